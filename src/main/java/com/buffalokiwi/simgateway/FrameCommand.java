@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway;
+
+import com.buffalokiwi.simgateway.payload.FrameDecoder;
+import com.buffalokiwi.socketserver.Command;
+import com.buffalokiwi.socketserver.ICommandInput;
+
+
+/**
+ * Receives packed delta frames from the SimGateway export script 
+ * 
+ * Responds with the resync text when the exporter must send a full frame.  Otherwise there is no response.
+ * 
+ * @author John Quinn
+ */
+public class FrameCommand extends Command
+{
+  public static final String COMMAND = "frame";
+  
+  /**
+   * Command for cockpit draw argument frames 
+   */
+  public static final String COMMAND_ARGUMENTS = "args";
+  
+  /**
+   * Response telling the exporter to send every value 
+   */
+  public static final String RESYNC = "resync";
+  
+  /**
+   * Response telling the exporter to send every cockpit argument 
+   */
+  public static final String RESYNC_ARGUMENTS = "resync args";
+  
+  private final FrameDecoder decoder;
+  private final String resync;
+
+  public FrameCommand( final FrameDecoder decoder )
+  {
+    this( COMMAND, RESYNC, decoder );
+  }
+  
+  
+  /**
+   * @param command Command name 
+   * @param resync Response sent when a full frame is required 
+   * @param decoder Frame decoder 
+   */
+  public FrameCommand( final String command, final String resync, final FrameDecoder decoder )
+  {
+    super( command );
+    
+    if ( resync == null || resync.isEmpty())
+      throw new IllegalArgumentException( "resync must not be null or empty" );
+    else if ( decoder == null )
+      throw new IllegalArgumentException( "decoder must not be null" );
+    
+    this.resync = resync;
+    this.decoder = decoder;
+  }
+
+  
+  @Override
+  public String execute( final ICommandInput input ) throws Exception 
+  {
+    if ( decoder.update( input.getPayload()) == FrameDecoder.FRAME_OK )
+      return "";
+    
+    return resync;
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway;
+
+import com.buffalokiwi.simgateway.state.HistoryRing;
+import com.buffalokiwi.simgateway.state.StateHistory;
+import com.buffalokiwi.socketserver.Command;
+import com.buffalokiwi.socketserver.ICommandInput;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Returns the recorded history of a control 
+ * 
+ * Input is "software address=seconds".
+ * Output is one sample per line, oldest first, as "age in milliseconds,value"
+ * 
+ * @author John Quinn
+ */
+public class HistoryCommand extends Command
+{
+  public static final String COMMAND = "history";
+  
+  private final StateHistory history;
+
+  
+  public HistoryCommand( final StateHistory history )
+  {
+    super( COMMAND );
+    
+    if ( history == null )
+      throw new IllegalArgumentException( "history must not be null" );
+    
+    this.history = history;
+  }
+
+  
+  @Override
+  public String execute( final ICommandInput input ) throws Exception 
+  {
+    final String[] parts = input.getPayload().split( "=" );
+    if ( parts.length != 2 )
+      return "Expected format software address=seconds\r\n";
+    
+    final int address;
+    final double seconds;
+    try {
+      address = Integer.parseInt( parts[0].trim());
+      seconds = Double.parseDouble( parts[1].trim());
+      if ( address < 0 || !( seconds > 0 ))
+        throw new NumberFormatException();
+    } catch( NumberFormatException e ) {
+      return "Expected format software address=seconds - software address must be an unsigned integer and seconds must be greater than zero\r\n";
+    }
+    
+    final HistoryRing ring = history.getHistory( address );
+    if ( ring == null )
+      return "History is not enabled for software address " + String.valueOf( address ) + "\r\n";
+    
+    final long now = System.nanoTime();
+    final long[] nanos = new long[ring.getCapacity()];
+    final double[] values = new double[ring.getCapacity()];
+    final int count = ring.copySince( now - (long)( seconds * 1_000_000_000L ), nanos, values );
+    
+    final StringBuilder out = new StringBuilder();
+    for ( int i = 0; i < count; i++ )
+    {
+      out.append( TimeUnit.NANOSECONDS.toMillis( now - nanos[i] ));
+      out.append( ',' );
+      out.append( values[i] );
+      out.append( "\r\n" );
+    }
+    
+    return out.toString();
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway;
+
+import com.buffalokiwi.simgateway.payload.IndicationDecoder;
+import com.buffalokiwi.socketserver.Command;
+import com.buffalokiwi.socketserver.CommandProperty;
+import com.buffalokiwi.socketserver.ICommandInput;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Receives list_indication() text blocks from the SimGateway export script
+ *
+ * This is a multiline command.  The first line is the display id, and the remaining lines are the block returned by
+ * list_indication().  Input is terminated by a line containing a single period.  Lines starting with a period are 
+ * sent with another period in front, which the client removes.
+ * Blocks for displays without a configured schema are ignored.  There is no response.
+ *
+ * @author John Quinn
+ */
+public class IndicationCommand extends Command
+{
+  public static final String COMMAND = "indication";
+
+  /**
+   * display id => decoder
+   */
+  private final Map<Integer,IndicationDecoder> decoderMap = new HashMap<>();
+
+
+  public IndicationCommand( final List<IndicationDecoder> decoderList )
+  {
+    super( COMMAND, EnumSet.of( CommandProperty.MULTILINE ));
+
+    if ( decoderList == null )
+      throw new IllegalArgumentException( "decoderList must not be null" );
+
+    for ( final IndicationDecoder decoder : decoderList )
+    {
+      decoderMap.put( decoder.getDisplay(), decoder );
+    }
+  }
+
+
+  @Override
+  public String execute( final ICommandInput input ) throws Exception
+  {
+    final String payload = input.getPayload();
+
+    //..Display id
+    int i = 0;
+    int display = 0;
+    for ( ; i < payload.length() && i < 9; i++ )
+    {
+      final int d = payload.charAt( i ) - '0';
+      if ( d < 0 || d > 9 )
+        break;
+
+      display = display * 10 + d;
+    }
+
+    if ( i == 0 )
+      return "Expected display id on the first line\r\n";
+
+    final IndicationDecoder decoder = decoderMap.get( display );
+    if ( decoder != null )
+      decoder.update( payload, i );
+
+    return "";
+  }
+}
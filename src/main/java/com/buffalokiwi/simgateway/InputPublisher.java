@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+
+package com.buffalokiwi.simgateway;
+
+import com.buffalokiwi.simgateway.hardware.ComponentType;
+import com.buffalokiwi.simgateway.hardware.IComponent;
+import com.buffalokiwi.simgateway.hardware.InputAction;
+import com.buffalokiwi.simgateway.hardware.InputEvent;
+import com.buffalokiwi.socketserver.IClient;
+import com.buffalokiwi.utils.Logs;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Pushes panel input to the sim exporter connections that subscribed with "subscribe input".
+ * 
+ * Input events with an action are sent as a single line:
+ * 
+ *   input [device],[command],[value];[device],[command],[value]
+ * 
+ * SimGateway-Export.lua reads the line in LuaExportBeforeNextFrame and performs each command before the next frame.
+ * 
+ * Events are queued by the link event thread and written by the publisher thread, so a slow connection never 
+ * blocks the serial port.  When the publisher is idle, each event is sent as soon as it arrives.  Rotary detents 
+ * that arrive while a line is being written are added to the queued value for the same component, so a fast spin 
+ * becomes one command instead of a burst of single detents.  Switch changes are never combined, so a quick press and
+ * release is still sent as both.
+ */
+public class InputPublisher implements Consumer<InputEvent>, Runnable
+{
+  private static final Logger LOG = LogManager.getLogger( InputPublisher.class );
+  
+  /**
+   * Prefix of every line pushed to the exporter 
+   */
+  public static final String COMMAND = "input";
+  
+  /**
+   * Decimal places sent for command values 
+   */
+  private static final int VALUE_SCALE = 6;
+  
+  
+  /**
+   * A queued command 
+   */
+  private static final class PendingInput
+  {
+    private final IComponent component;
+    private int value;
+    
+    private PendingInput( final IComponent component, final int value )
+    {
+      this.component = component;
+      this.value = value;
+    }
+  }
+  
+  
+  private final List<IClient> subscribers = new CopyOnWriteArrayList<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition ready = lock.newCondition();
+  
+  //..Commands waiting to be sent.  Guarded by lock 
+  private ArrayList<PendingInput> pending = new ArrayList<>();
+  
+  //..Commands being sent.  Only used by the publisher thread 
+  private ArrayList<PendingInput> sending = new ArrayList<>();
+  private final StringBuilder line = new StringBuilder();
+  
+  
+  /**
+   * Send input to a client 
+   * @param client exporter connection 
+   */
+  public void subscribe( final IClient client )
+  {
+    if ( client == null )
+      throw new IllegalArgumentException( "client must not be null" );
+    
+    if ( !subscribers.contains( client ))
+    {
+      subscribers.add( client );
+      Logs.info( LOG, "Client", client.getUUID(), "subscribed to input" );
+    }
+  }
+  
+  
+  /**
+   * Stop sending input to a client 
+   * @param client exporter connection 
+   * @return if the client was subscribed 
+   */
+  public boolean unsubscribe( final IClient client )
+  {
+    return subscribers.remove( client );
+  }
+  
+  
+  /**
+   * Queue an input event.  Called on the link event thread 
+   * @param event event 
+   */
+  @Override
+  public void accept( final InputEvent event )
+  {
+    final IComponent component = event.getComponent();
+    if ( component.getAction() == null || subscribers.isEmpty())
+      return;
+    
+    lock.lock();
+    try {
+      if ( component.getType() == ComponentType.ROTARY )
+      {
+        for ( final PendingInput p : pending )
+        {
+          if ( p.component == component )
+          {
+            p.value += event.getValue();
+            return;
+          }
+        }
+      }
+      
+      pending.add( new PendingInput( component, event.getValue()));
+      ready.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  
+  /**
+   * Write queued commands to the subscribers until interrupted 
+   */
+  @Override
+  public void run()
+  {
+    try {
+      while ( !Thread.currentThread().isInterrupted())
+      {
+        lock.lock();
+        try {
+          while ( pending.isEmpty())
+          {
+            ready.await();
+          }
+          
+          final ArrayList<PendingInput> next = pending;
+          pending = sending;
+          sending = next;
+        } finally {
+          lock.unlock();
+        }
+        
+        publish();
+      }
+    } catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  
+  
+  /**
+   * Send the swapped out commands as one line 
+   */
+  private void publish()
+  {
+    line.setLength( 0 );
+    line.append( COMMAND ).append( ' ' );
+    
+    final int start = line.length();
+    for ( final PendingInput p : sending )
+    {
+      //..Detents turned back and forth cancel out 
+      if ( p.value == 0 && p.component.getType() == ComponentType.ROTARY )
+        continue;
+      
+      final InputAction action = p.component.getAction();
+      if ( line.length() > start )
+        line.append( ';' );
+      
+      line.append( action.getDevice()).append( ',' ).append( action.getCommand()).append( ',' )
+        .append( formatValue( action.getValue( p.value )));
+    }
+    
+    sending.clear();
+    
+    if ( line.length() == start )
+      return;
+    
+    final String out = line.toString();
+    for ( final IClient client : subscribers )
+    {
+      if ( !client.push( out ))
+      {
+        subscribers.remove( client );
+        Logs.info( LOG, "Client", client.getUUID(), "unsubscribed from input" );
+      }
+    }
+  }
+  
+  
+  /**
+   * @param value value 
+   * @return value without trailing zeros 
+   */
+  private static String formatValue( final double value )
+  {
+    return BigDecimal.valueOf( value ).setScale( VALUE_SCALE, RoundingMode.HALF_UP ).stripTrailingZeros().toPlainString();
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway;
+
+import com.buffalokiwi.simgateway.hardware.EmulatorLink;
+import com.buffalokiwi.simgateway.hardware.FirmwareEmulator;
+import com.buffalokiwi.simgateway.hardware.FrameDefect;
+import com.buffalokiwi.simgateway.hardware.IDevice;
+import com.buffalokiwi.simgateway.hardware.LinkScheduler;
+import com.buffalokiwi.simgateway.hardware.ReliableLink;
+import com.buffalokiwi.socketserver.Command;
+import com.buffalokiwi.socketserver.ICommandInput;
+import java.util.List;
+import java.util.function.Supplier;
+
+
+/**
+ * Reports serial link utilization for each connected device
+ *
+ * Output is one device per line as
+ * "name sn:serial baud=9600 utilization=42.5% sent=1234 bytes/1000 messages backlog=0"
+ * Protocol version 2 devices add " rtt=12.5ms rto=40.0ms retransmits=3 stale=1"
+ * Emulated devices add " frames=120 displayed=118 latency=4.21ms max=9.80ms" followed by the count of each frame 
+ * defect found, ie: " clipped=2"
+ */
+public class LinkCommand extends Command
+{
+  public static final String COMMAND = "link";
+
+  private final Supplier<List<IDevice>> deviceList;
+
+
+  /**
+   * @param deviceList Supplies the connected devices 
+   */
+  public LinkCommand( final Supplier<List<IDevice>> deviceList )
+  {
+    super( COMMAND );
+
+    if ( deviceList == null )
+      throw new IllegalArgumentException( "deviceList must not be null" );
+
+    this.deviceList = deviceList;
+  }
+
+
+  @Override
+  public String execute( final ICommandInput input ) throws Exception
+  {
+    final List<IDevice> devices = deviceList.get();
+    if ( devices.isEmpty())
+      return "No devices connected\r\n";
+
+    final StringBuilder out = new StringBuilder();
+    for ( final IDevice device : devices )
+    {
+      final LinkScheduler link = device.getLinkScheduler();
+      out.append( String.format( "%s sn:%s baud=%d utilization=%.1f%% sent=%d bytes/%d messages backlog=%d",
+        device.getName(), device.getSerial(), link.getBaudRate(), link.getUtilization() * 100, link.getBytesSent(),
+        link.getMessagesSent(), link.getBacklog()));
+      
+      final ReliableLink reliable = device.getReliableLink();
+      if ( reliable != null )
+      {
+        out.append( String.format( " rtt=%.1fms rto=%.1fms retransmits=%d stale=%d", reliable.getSmoothedRtt(), 
+          reliable.getRetransmitTimeout(), reliable.getRetransmits(), reliable.getStaleSkipped()));
+      }
+      
+      if ( device.getLink() instanceof EmulatorLink )
+      {
+        final FirmwareEmulator emulator = ((EmulatorLink)device.getLink()).getEmulator();
+        out.append( String.format( " frames=%d displayed=%d latency=%.2fms max=%.2fms", emulator.getFrameCount(), 
+          emulator.getDisplayCount(), emulator.getAverageLatency(), emulator.getMaxLatency()));
+        
+        for ( final FrameDefect defect : FrameDefect.values())
+        {
+          final long count = emulator.getDefectCount( defect );
+          if ( count > 0 )
+            out.append( ' ' ).append( defect.getName()).append( '=' ).append( count );
+        }
+      }
+      
+      out.append( "\r\n" );
+    }
+
+    return out.toString();
+  }
+}
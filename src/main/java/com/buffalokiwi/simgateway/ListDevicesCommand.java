@@ -7,40 +7,57 @@
 
 package com.buffalokiwi.simgateway;
 
+import com.buffalokiwi.simgateway.hardware.PortInventory;
 import com.buffalokiwi.socketserver.Command;
 import com.buffalokiwi.socketserver.ICommandInput;
 import com.fazecast.jSerialComm.SerialPort;
+import java.util.List;
 
 /**
  * Lists attached serial devices 
+ * 
+ * Ports are read from the cached port inventory, which is refreshed by the device scan.  "listDevices refresh" 
+ * enumerates the ports first.
  */
 public class ListDevicesCommand extends Command
 {
   public static final String COMMAND = "listDevices";
+  
+  /**
+   * Payload that enumerates the ports before listing them 
+   */
+  public static final String REFRESH = "refresh";
+  
+  private final PortInventory inventory;
 
-  public ListDevicesCommand()
+  public ListDevicesCommand( final PortInventory inventory )
   {
     super( COMMAND );
     
+    if ( inventory == null )
+      throw new IllegalArgumentException( "inventory must not be null" );
+    
+    this.inventory = inventory;
   }
 
   
   @Override
   public String execute( final ICommandInput input ) throws Exception 
   {
-    final SerialPort portList[] = SerialPort.getCommPorts();
+    final List<SerialPort> portList = ( REFRESH.equals( input.getPayload())) ? inventory.refresh() : inventory.getPortList();
     
     final StringBuilder out = new StringBuilder();
     
-    for ( int i = 0; i < portList.length; i++ )
+    for ( int i = 0; i < portList.size(); i++ )
     {
       final int index = i + 1;
-      final SerialPort port = portList[i];      
+      final SerialPort port = portList.get( i );
       out.append( index );
       out.append( ") " );
       out.append( port.getDescriptivePortName());
       out.append( " sn:" );
       out.append( port.getSerialNumber());
+      out.append( "\r\n" );
     }
     
     return out.toString();
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway;
+
+import com.buffalokiwi.simgateway.payload.PayloadDecoder;
+import com.buffalokiwi.socketserver.Command;
+import com.buffalokiwi.socketserver.ICommandInput;
+
+
+/**
+ * A command created from a payload schema in the configuration file 
+ * @author John Quinn
+ */
+public class PayloadCommand extends Command
+{
+  private final PayloadDecoder decoder;
+
+  public PayloadCommand( final PayloadDecoder decoder )
+  {
+    super( decoder.getSchema().getCommand());
+    
+    this.decoder = decoder;
+  }
+
+  
+  @Override
+  public String execute( final ICommandInput input ) throws Exception 
+  {
+    decoder.update( input.getPayload());
+    return "";
+  }
+}
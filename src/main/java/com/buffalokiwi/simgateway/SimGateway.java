@@ -11,14 +11,27 @@ import com.buffalokiwi.simgateway.config.Config;
 import com.buffalokiwi.simgateway.config.FileLocator;
 import com.buffalokiwi.simgateway.dcs.EngineInfo;
 import com.buffalokiwi.simgateway.hardware.DeviceFactory;
+import com.buffalokiwi.simgateway.hardware.DeviceManager;
+import com.buffalokiwi.simgateway.hardware.DeviceRouter;
+import com.buffalokiwi.simgateway.hardware.DeviceScheduler;
 import com.buffalokiwi.simgateway.hardware.IComponent;
 import com.buffalokiwi.simgateway.hardware.IDevice;
+import com.buffalokiwi.simgateway.hardware.RoutingTable;
+import com.buffalokiwi.simgateway.payload.FrameDecoder;
+import com.buffalokiwi.simgateway.payload.IndicationDecoder;
+import com.buffalokiwi.simgateway.payload.IndicationSchema;
+import com.buffalokiwi.simgateway.payload.PayloadControl;
+import com.buffalokiwi.simgateway.payload.PayloadDecoder;
+import com.buffalokiwi.simgateway.payload.PayloadSchema;
+import com.buffalokiwi.simgateway.payload.PayloadSchemaFactory;
+import com.buffalokiwi.simgateway.state.ArgumentStore;
 import com.buffalokiwi.simgateway.state.BooleanStateEvent;
 import com.buffalokiwi.simgateway.state.EventStateManager;
 import com.buffalokiwi.simgateway.state.ISimControl;
 import com.buffalokiwi.simgateway.state.IStateEvent;
 import com.buffalokiwi.simgateway.state.IStateEventManager;
 import com.buffalokiwi.simgateway.state.StateChangeProcessor;
+import com.buffalokiwi.simgateway.state.StateHistory;
 import com.buffalokiwi.socketserver.Client;
 import com.buffalokiwi.socketserver.CommandPool;
 import com.buffalokiwi.socketserver.ICommandPool;
@@ -40,6 +53,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -173,10 +187,13 @@ public class SimGateway
     //..The device factory MUST close all serial port connections when this shuts down.
     try ( final DeviceFactory deviceFactory = new DeviceFactory( CURRENT_SIM )) {
       
-      final Config config = loadConfig( configFileMap, deviceFactory );
+      //..Payload schemas from the config file.  Each schema becomes a socket command 
+      final PayloadSchemaFactory payloadFactory = new PayloadSchemaFactory();
+      
+      final Config config = loadConfig( configFileMap, deviceFactory, payloadFactory );
       
       //..Do stuff with the device factory resources 
-      start( config, deviceFactory );
+      start( config, deviceFactory, payloadFactory );
     } catch( Exception e ) {
       Logs.error( LOG, e, "General Failure" );
       Logs.debug( LOG, "If you are seeing this, you are a bad programmer.  You need to find",
@@ -192,9 +209,11 @@ public class SimGateway
    * Loads and processes the config file 
    * @param configFileMap Files to read 
    * @param deviceFactory Device config is added to this  
+   * @param payloadFactory Payload and indication schemas are added to this 
    * @return 
    */
-  private static Config loadConfig( final Map<String,File> configFileMap, final DeviceFactory deviceFactory )
+  private static Config loadConfig( final Map<String,File> configFileMap, final DeviceFactory deviceFactory, 
+    final PayloadSchemaFactory payloadFactory )
   {
     //..Read the configuration file and load the device factory config 
     return readConfig( configFileMap.get( FILE_CONFIG ),
@@ -206,6 +225,30 @@ public class SimGateway
         } catch( ClassCastException e ) {
           Logs.error( LOG, "config.json is missing devices array" );
         }
+      },
+      
+      //..Loads payload schemas.  These are optional 
+      json -> {
+        if ( json.get( "payloads" ) == null )
+          return;
+        
+        try {
+          payloadFactory.addSchemaList( json.getJsonArray( "payloads" ));
+        } catch( ClassCastException e ) {
+          Logs.error( LOG, "config.json payloads must be an array" );
+        }
+      },
+      
+      //..Loads list_indication display schemas.  These are optional 
+      json -> {
+        if ( json.get( "indications" ) == null )
+          return;
+        
+        try {
+          payloadFactory.addIndicationList( json.getJsonArray( "indications" ));
+        } catch( ClassCastException e ) {
+          Logs.error( LOG, "config.json indications must be an array" );
+        }
       }
     );        
   }
@@ -213,38 +256,103 @@ public class SimGateway
   
   private static StateChangeProcessor<IStateEvent> createStateChangeProcessor( 
     final LinkedBlockingQueue<IStateEvent> eventQueue,
-    final DeviceFactory deviceFactory )
+    final DeviceFactory deviceFactory,
+    final StateHistory history )
   {
     //..Reads the event queue and invokes state change handlers 
     return new StateChangeProcessor<>( eventQueue, 
       //..Each of the below handlers are called for each state change in the queue 
-      event -> Logs.debug( LOG, "State change:", event.getControl(), "to", event.getValue(), "from", event.getOldValue()),
-            
-      //..Locate the device and hardware component we want to talk to and send it a message 
-      event -> {
-        //..Find the device 
-        final IDevice device = deviceFactory.findDeviceBySoftwareAddress( event.getControl().getSoftwareAddress());
-        if ( device == null )
-          return;
+      List.of(),
+      
+      //..Each of the below handlers are called once per cycle with every state change drained from the queue
+      List.of(
+        batch -> {
+          if ( !LOG.isDebugEnabled())
+            return;
+          
+          for ( final IStateEvent event : batch )
+          {
+            Logs.debug( LOG, "State change:", event.getControl(), "to", event.getValue(), "from", event.getOldValue());
+          }
+        },
         
-        //..Find the control on the device 
-        final IComponent component = device.getComponentBySoftwareAddress( event.getControl().getSoftwareAddress());
-        if ( component == null )
-          return;
+        //..Record value history for components with history enabled 
+        history,
         
-        //..Converts object to byte array and writes the byte array to the hardware address on device 
-        device.write( component.getHardwareAddress(), event.getValue().toString().getBytes());        
-      }
+        //..Locate the devices and hardware components we want to talk to and send each device a single batch 
+        new DeviceRouter( deviceFactory )
+      )
     );    
   }
   
   
+  /**
+   * Creates history rings for each configured component with a history size 
+   * @param deviceFactory devices
+   * @return history 
+   */
+  private static StateHistory createStateHistory( final DeviceFactory deviceFactory )
+  {
+    //..Components on devices that are not plugged in yet are included, so they have history when they are attached 
+    final Map<Integer,Integer> capacityMap = new HashMap<>();
+    for ( final IComponent component : deviceFactory.getComponentList())
+    {
+      if ( component.getHistorySize() > 0 )
+        capacityMap.put( component.getAddress(), component.getHistorySize());
+    }
+    
+    return new StateHistory( capacityMap );
+  }
+  
+  
+  /**
+   * Creates a decoder for each configured list_indication display 
+   * @param stateManager state manager
+   * @param payloadFactory indication schemas 
+   * @return decoders 
+   */
+  private static List<IndicationDecoder> createIndicationDecoders( final IStateEventManager stateManager, 
+    final PayloadSchemaFactory payloadFactory )
+  {
+    final List<IndicationDecoder> decoderList = new ArrayList<>();
+    for ( final IndicationSchema schema : payloadFactory.getIndicationList())
+    {
+      decoderList.add( new IndicationDecoder( CURRENT_SIM, stateManager, schema ));
+    }
+    
+    return decoderList;
+  }
+  
+  
+  /**
+   * Creates the cockpit argument store and maps every component configured with "arg:[argument id]"
+   * @param stateManager state manager
+   * @param deviceFactory devices
+   * @return store 
+   */
+  private static ArgumentStore createArgumentStore( final IStateEventManager stateManager, final DeviceFactory deviceFactory )
+  {
+    final ArgumentStore arguments = new ArgumentStore( stateManager );
+    for ( final IComponent component : deviceFactory.getComponentList())
+    {
+      if ( !arguments.isArgumentAddress( component.getAddress()))
+        continue;
+      
+      final int argument = component.getAddress() - ArgumentStore.ADDRESS_BASE;
+      arguments.map( argument, new PayloadControl( CURRENT_SIM, component.getAddress(), "arg:" + argument ));
+    }
+    
+    return arguments;
+  }
+  
+  
   /**
    * 
    * @param config
    * @param deviceFactory 
+   * @param payloadFactory 
    */
-  private static void start( final Config config, final DeviceFactory deviceFactory )
+  private static void start( final Config config, final DeviceFactory deviceFactory, final PayloadSchemaFactory payloadFactory )
   {
     //..Contains state change events to be sent to hardware     
     final LinkedBlockingQueue<IStateEvent> eventQueue = new LinkedBlockingQueue<>();
@@ -252,36 +360,77 @@ public class SimGateway
     //..Some events require more specific event handler objects - like booleans.  we can add them here
     //..Anything not in the map will use GenericStateEvent
     final HashMap<Class, EventFactoryFunction<IStateEvent,Object>> factoryMap = new HashMap<>();
-    factoryMap.put( Boolean.class, ( ISimControl control, Boolean value, Boolean oldValue ) -> new BooleanStateEvent( control, value, oldValue ));
+    factoryMap.put( Boolean.class, ( control, value, oldValue, sequence ) -> new BooleanStateEvent( control, (Boolean)value, (Boolean)oldValue, sequence ));
     
     //..Registers state change events with the event queue 
     final EventStateManager stateManager = new EventStateManager( eventQueue, factoryMap );
       
     
+    //..Value history for components with history enabled 
+    final StateHistory history = createStateHistory( deviceFactory );
+    
     //..Listens for state changes in eventQueue and calls handlers that do things like write messages to devices 
     final StateChangeProcessor<IStateEvent> stateChangeProcessor = createStateChangeProcessor(
       eventQueue,
-      deviceFactory
+      deviceFactory,
+      history
     );
     
+    //..Values sent by switches on the panels.  These are dispatched on the link event thread as they arrive 
+    deviceFactory.getInputHandlers().add( event -> {
+      if ( LOG.isDebugEnabled())
+        Logs.debug( LOG, "Input from", event.getDevice().getName(), event, "in", 
+          ( System.nanoTime() - event.getReceivedNanos()) / 1000, "us" );
+    });
+    
     //..A  list of executors 
-    final List<ExecutorService> executorList = new ArrayList<>();
+    final List<ExecutorService> executorList = new CopyOnWriteArrayList<>();
+    
+    //..Pushes panel input with a configured action to the subscribed exporter connections 
+    final InputPublisher inputPublisher = new InputPublisher();
+    deviceFactory.getInputHandlers().add( inputPublisher );
+    final ExecutorService inputPublisherExecutor = Executors.newSingleThreadExecutor();
+    inputPublisherExecutor.submit( inputPublisher );
+    executorList.add( inputPublisherExecutor );
     
     //..Poll for state changes (if not already doing so) 
     final ScheduledExecutorService stateChangeExecutor = Executors.newSingleThreadScheduledExecutor();
     stateChangeExecutor.scheduleAtFixedRate( stateChangeProcessor, 0, 100, TimeUnit.MILLISECONDS );
     executorList.add( stateChangeExecutor );
         
-    //..Now create an executor for reach connected device    
+    //..Every device is written from one timer thread and a virtual thread per write.  Serial ports are written through 
+    //  JNI, which pins the carrier of a virtual thread, so they are written from platform threads instead 
+    final ScheduledExecutorService deviceTimerExecutor = Executors.newSingleThreadScheduledExecutor();
+    final ExecutorService deviceWriteExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    final ExecutorService serialWriteExecutor = Executors.newCachedThreadPool();
+    executorList.add( deviceTimerExecutor );
+    executorList.add( deviceWriteExecutor );
+    executorList.add( serialWriteExecutor );
+    
+    final DeviceScheduler deviceScheduler = new DeviceScheduler( deviceTimerExecutor, deviceWriteExecutor, 
+      serialWriteExecutor, history );
     for ( final IDevice device : deviceFactory.getDeviceList())
     {
-      final ScheduledExecutorService deviceWriteExecutor = Executors.newSingleThreadScheduledExecutor();
-      deviceWriteExecutor.scheduleAtFixedRate( device, 0, 100, TimeUnit.MILLISECONDS );
-      executorList.add( deviceWriteExecutor );
+      deviceScheduler.add( device );
+    }
+    
+    //..Devices plugged in later are started when attached, and stopped before they are closed when removed 
+    final DeviceManager deviceManager = deviceFactory.getDeviceManager();
+    deviceManager.getAttachHandlers().add( deviceScheduler::add );
+    deviceManager.getDetachHandlers().add( deviceScheduler::remove );
+    
+    //..Scan for devices that were plugged in or removed 
+    if ( config.getDeviceScanInterval() > 0 )
+    {
+      final ScheduledExecutorService deviceScanExecutor = Executors.newSingleThreadScheduledExecutor();
+      deviceScanExecutor.scheduleWithFixedDelay( deviceManager, config.getDeviceScanInterval(), 
+        config.getDeviceScanInterval(), TimeUnit.MILLISECONDS );
+      executorList.add( deviceScanExecutor );
     }
     
     //..Create the socket server 
-    final Server server = createServer( config, createCommands( stateManager, deviceFactory, executorList ));
+    final Server server = createServer( config, createCommands( stateManager, deviceFactory, history, payloadFactory, 
+      createArgumentStore( stateManager, deviceFactory ), inputPublisher, executorList ));
     
     //..This is running on the main thread 
     try {
@@ -430,19 +579,35 @@ public class SimGateway
   
   
   private static ICommandPool createCommands( final IStateEventManager stateManager, final DeviceFactory deviceFactory,
-    final List<ExecutorService> executorList )
+    final StateHistory history, final PayloadSchemaFactory payloadFactory, final ArgumentStore arguments, 
+    final InputPublisher inputPublisher, final List<ExecutorService> executorList )
   {
-    return ( new CommandPool.Builder())
+    final List<PayloadSchema> schemaList = payloadFactory.getSchemaList();
+    
+    final CommandPool.Builder builder = ( new CommandPool.Builder())
     .addCommand( new QuickCommand( "help", (input) -> { 
-      return (new StringBuilder())
+      final StringBuilder help = (new StringBuilder())
       .append( "\r\nAvailable Commands:\r\n" )
       .append( "          quit - Close the client\r\n" )
       .append( "     terminate - Shutdown the " + PROGRAM_NAME + " server\r\n" )
-      .append( "   listDevices - List attached serial devices\r\n" )
+      .append( "   listDevices - [refresh] List attached serial devices from the cached port list\r\n" )
       .append( " dcsEngineInfo - [value] Update DCS engine info state; comma-delimted list of 12 values  \r\n" )
       .append( "         write - [value] Write message to log \r\n" )
       .append( "      setState - [int address] [value]\r\n" )
-      .toString();
+      .append( "       history - [int address]=[seconds] Recorded values for a control as age ms,value\r\n" )
+      .append( "          link - Serial link utilization for each connected device\r\n" )
+      .append( "         frame - [seq];[address]=[value];... Packed delta frame from the export script\r\n" )
+      .append( "          args - [seq];[argument]=[value];... Packed cockpit argument frame from the export script\r\n" )
+      .append( "    indication - Multiline.  [display id] followed by the list_indication text, terminated by .\r\n" )
+      .append( "     subscribe - input  Push panel input to this connection as input [device],[command],[value];...\r\n" );
+      
+      for ( final PayloadSchema schema : schemaList )
+      {
+        help.append( String.format( "%14s - [value] Configured payload; delimited list of %d values\r\n", 
+          schema.getCommand(), schema.getFieldList().size()));
+      }
+      
+      return help.toString();
     }))
     .addCommand( new QuickCommand( "helo", (input) -> { return SERVER_GREETING; } ))
     .addCommand( new QuickCommand( "quit", (input) -> { throw new QuitException(); } ))
@@ -480,16 +645,37 @@ public class SimGateway
         return "Expected format software address=value - software address must be an unsigned integer\r\n";        
       }
       
-      final IDevice device = deviceFactory.findDeviceBySoftwareAddress( address );
-      if ( device == null )
+      final List<RoutingTable.Route> routes = deviceFactory.getRoutingTable().get( address );
+      if ( routes.isEmpty())
         return "No device mapped to software address " + String.valueOf( address );
       
-      device.write( address, parts[1].getBytes( StandardCharsets.US_ASCII ));
+      //..Every component mapped to the address receives the value 
+      final byte[] value = parts[1].getBytes( StandardCharsets.US_ASCII );
+      for ( final RoutingTable.Route route : routes )
+      {
+        route.getDevice().write( route.getHardwareAddress(), value );
+      }
       
       return "ok";
     }))
-    .addCommand( new ListDevicesCommand()) //..Lists connected com devices 
+    .addCommand( new ListDevicesCommand( deviceFactory.getDeviceManager().getPortInventory())) //..Lists connected com devices 
     .addCommand( new EngineInfoCommand( new EngineInfo( stateManager ))) //..engineInfo 
-    .build();          
+    .addCommand( new HistoryCommand( history )) //..history 
+    .addCommand( new LinkCommand( deviceFactory::getDeviceList )) //..link 
+    .addCommand( new SubscribeCommand( inputPublisher )) //..push channels for the export script 
+    .addCommand( new FrameCommand( new FrameDecoder( CURRENT_SIM, stateManager ))) //..delta frames from SimGateway-Export.lua 
+    .addCommand( new FrameCommand( FrameCommand.COMMAND_ARGUMENTS, FrameCommand.RESYNC_ARGUMENTS, //..cockpit argument frames 
+      new FrameDecoder( stateManager, arguments.size() - 1, arguments::set )))
+    .addCommand( new IndicationCommand( createIndicationDecoders( stateManager, payloadFactory ))); //..text displays 
+    
+    //..Commands declared by payload schemas in the config file.  
+    //..These are added last, so a schema can replace a built in command like dcsEngineInfo 
+    for ( final PayloadSchema schema : schemaList )
+    {
+      builder.addCommand( new PayloadCommand( new PayloadDecoder( schema, CURRENT_SIM, stateManager )));
+      Logs.info( LOG, "Registered payload command", schema.getCommand());
+    }
+    
+    return builder.build();          
   }
 }
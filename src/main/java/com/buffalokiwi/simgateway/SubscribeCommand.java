@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+
+package com.buffalokiwi.simgateway;
+
+import com.buffalokiwi.socketserver.Command;
+import com.buffalokiwi.socketserver.ICommandInput;
+
+
+/**
+ * Subscribes the connection to a push channel 
+ * 
+ * "subscribe input" sends panel input to the connection as it arrives.  See InputPublisher.
+ * There is no response.
+ */
+public class SubscribeCommand extends Command
+{
+  public static final String COMMAND = "subscribe";
+  
+  /**
+   * Channel name for panel input 
+   */
+  public static final String CHANNEL_INPUT = "input";
+  
+  private final InputPublisher inputPublisher;
+  
+  
+  public SubscribeCommand( final InputPublisher inputPublisher )
+  {
+    super( COMMAND );
+    
+    if ( inputPublisher == null )
+      throw new IllegalArgumentException( "inputPublisher must not be null" );
+    
+    this.inputPublisher = inputPublisher;
+  }
+  
+  
+  @Override
+  public String execute( final ICommandInput input ) throws Exception
+  {
+    if ( input.getClient() == null )
+      throw new IllegalArgumentException( "subscribe requires a client connection" );
+    else if ( !CHANNEL_INPUT.equals( input.getPayload()))
+      throw new IllegalArgumentException( "Unknown channel " + input.getPayload());
+    
+    inputPublisher.subscribe( input.getClient());
+    return "";
+  }
+}
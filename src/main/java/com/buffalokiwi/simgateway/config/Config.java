@@ -23,10 +23,20 @@ public class Config
    */
   public static final int DEFAULT_SERVER_PORT = 4201;
   
+  /**
+   * Default milliseconds between serial port scans for devices that were plugged in or removed 
+   */
+  public static final int DEFAULT_DEVICE_SCAN_INTERVAL = 2000;
+  
   /**
    * Socket server port number 
    */
   private int serverPort;
+  
+  /**
+   * Milliseconds between serial port scans 
+   */
+  private int deviceScanInterval;
    
   
   /**
@@ -43,6 +53,9 @@ public class Config
     final JsonObject server = getServerObject( json );
     
     serverPort = server.getInt( "port", DEFAULT_SERVER_PORT );
+    deviceScanInterval = server.getInt( "device_scan_interval", DEFAULT_DEVICE_SCAN_INTERVAL );
+    if ( deviceScanInterval < 0 )
+      throw new IllegalArgumentException( "server.device_scan_interval must be an unsigned integer" );
   }
 
   
@@ -56,6 +69,15 @@ public class Config
   }
   
   
+  /**
+   * @return milliseconds between serial port scans.  0 disables scanning 
+   */
+  public int getDeviceScanInterval()
+  {
+    return deviceScanInterval;
+  }
+  
+  
   /**
    * Attempts to retrieve the "server" object containing the socket server configuration properties
    * @param json configuration JSON
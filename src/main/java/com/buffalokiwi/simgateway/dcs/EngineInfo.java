@@ -6,6 +6,7 @@
  */
 package com.buffalokiwi.simgateway.dcs;
 
+import com.buffalokiwi.simgateway.payload.PayloadParser;
 import com.buffalokiwi.simgateway.state.BooleanState;
 import com.buffalokiwi.simgateway.state.FloatState;
 import com.buffalokiwi.simgateway.state.IStateEventManager;
@@ -26,6 +27,18 @@ public class EngineInfo
   private static final int NUM_VARS = 12;
   
   private static final Logger LOG = LogManager.getLogger( EngineInfo.class );
+  
+  /**
+   * Each payload is published as a single frame 
+   */
+  private final IStateEventManager stateManager;
+  
+  /**
+   * Reads the payload into values and status.  Guarded by this 
+   */
+  private final PayloadParser parser = new PayloadParser( ',' );
+  private final float[] values = new float[NUM_VARS];
+  private final byte[] status = new byte[NUM_VARS];
     
   private final FloatState fuelInternal;
   private final FloatState fuelExternal;
@@ -43,6 +56,10 @@ public class EngineInfo
   
   public EngineInfo( final IStateEventManager stateManager )
   {
+    if ( stateManager == null )
+      throw new IllegalArgumentException( "stateManager must not be null" );
+    
+    this.stateManager = stateManager;
     fuelInternal = new FloatState( Control.ENGINE_INFO_FUEL_INTERNAL, stateManager );
     fuelExternal = new FloatState( Control.ENGINE_INFO_FUEL_EXTERNAL, stateManager );
     tempLeft = new FloatState( Control.ENGINE_INFO_TEMP_LEFT, stateManager, 1 );
@@ -72,85 +89,87 @@ public class EngineInfo
    *  .. "," .. engineInfo.EngineStart.right
    *  .. "," .. engineInfo.HydraulicPressure.left
    *  .. "," .. engineInfo.HydraulicPressure.right
+   * 
+   * Every value in the payload is committed as a single frame.
+   * Engine start values are true when the field is the number 1.
    * @param dcsPayload 
    */
-  public void update( final String dcsPayload )
+  public synchronized void update( final String dcsPayload )
   {
     if ( dcsPayload == null || dcsPayload.isEmpty())
       return;
     
-    final String[] data = dcsPayload.split( "," );
-    if ( data.length != NUM_VARS )
+    final int fields = parser.parse( dcsPayload, values, status );
+    if ( fields != NUM_VARS )
     {
-      Logs.error( LOG, "DCS Engine Info payload contained an invalid number of elements.  Expected", NUM_VARS, "got", data.length );
+      Logs.error( LOG, "DCS Engine Info payload contained an invalid number of elements.  Expected", NUM_VARS, "got", fields );
       return;
     }
     
+    //..Fields that fail to parse keep their current value 
+    stateManager.beginFrame();
     try {
-      fuelInternal.set( Float.valueOf( data[0] ));
-    } catch( NumberFormatException e ) {}
+      setFloat( fuelInternal, 0 );
+      setFloat( fuelExternal, 1 );
+      setFloat( tempLeft, 2 );
+      setFloat( tempRight, 3 );
+      setFloat( rpmLeft, 4 );
+      setFloat( rpmRight, 5 );
+      setFloat( fuelConsumptionLeft, 6 );
+      setFloat( fuelConsumptionRight, 7 );
+      setBoolean( engineStartLeft, 8 );
+      setBoolean( engineStartRight, 9 );
+      setFloat( pressureLeft, 10 );
+      setFloat( pressureRight, 11 );
+    } finally {
+      stateManager.commitFrame();
+    }
+  }
   
-    try {
-      fuelExternal.set( Float.valueOf( data[1] ));
-    } catch( NumberFormatException e ) {}
   
+  /**
+   * Resets the internal engine state 
+   */
+  public void reset()
+  {
+    stateManager.beginFrame();
     try {
-      tempLeft.set( Float.valueOf( data[2] ));
-    } catch( NumberFormatException e ) {}
-    
-    try {
-      tempRight.set( Float.valueOf( data[3] ));
-    } catch( NumberFormatException e ) {}
-    
-    try {
-      rpmLeft.set( Float.valueOf( data[4] ));
-    } catch( NumberFormatException e ) {}
-      
-    try {
-      rpmRight.set( Float.valueOf( data[5] ));
-    } catch( NumberFormatException e ) {}
-    
-    try {
-      fuelConsumptionLeft.set( Float.valueOf( data[6] ));
-    } catch( NumberFormatException e ) {}
-    
-    try {
-      fuelConsumptionRight.set( Float.valueOf( data[7] ));
-    } catch( NumberFormatException e ) {}
-    
-    try {
-      engineStartLeft.set( data[8].equals( "1" ));
-    } catch( NumberFormatException e ) {}
-    
-    try {
-      engineStartRight.set( data[9].equals( "1" ));
-    } catch( NumberFormatException e ) {}
-    
-    
-    try {
-      pressureLeft.set( Float.valueOf( data[10] ));
-    } catch( NumberFormatException e ) {}
-    
-    try {
-      pressureRight.set( Float.valueOf( data[11] ));
-    } catch( NumberFormatException e ) {}
+      fuelInternal.set( 0f );
+      fuelExternal.set( 0f );
+      rpmLeft.set( 0f );
+      rpmRight.set( 0f );
+      fuelConsumptionLeft.set( 0f );
+      fuelConsumptionRight.set( 0f );
+      engineStartLeft.set( false );
+      engineStartRight.set( false );
+      pressureLeft.set( 0f );
+      pressureRight.set( 0f );
+    } finally {
+      stateManager.commitFrame();
+    }
   }
   
   
   /**
-   * Resets the internal engine state 
+   * Set a float state from a parsed field 
+   * @param state state
+   * @param field field index 
    */
-  public void reset()
+  private void setFloat( final FloatState state, final int field )
+  {
+    if ( status[field] == PayloadParser.FIELD_OK )
+      state.set( values[field] );
+  }
+  
+  
+  /**
+   * Set a boolean state from a parsed field 
+   * @param state state
+   * @param field field index 
+   */
+  private void setBoolean( final BooleanState state, final int field )
   {
-    fuelInternal.set( 0f );
-    fuelExternal.set( 0f );
-    rpmLeft.set( 0f );
-    rpmRight.set( 0f );
-    fuelConsumptionLeft.set( 0f );
-    fuelConsumptionRight.set( 0f );
-    engineStartLeft.set( false );
-    engineStartRight.set( false );
-    pressureLeft.set( 0f );
-    pressureRight.set( 0f );
+    if ( status[field] == PayloadParser.FIELD_OK )
+      state.set( values[field] == 1f );
   }
 }
@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Encodes state values as ASCII text into a reusable buffer without creating intermediate Strings.
+ *
+ * Integers are written as decimal digits.  Floats are written with up to DEFAULT_SCALE decimal places, trailing zeros
+ * removed, and always at least one decimal place (ie: 124.85, 1.0).  Decimal places are dropped as needed to keep at 
+ * most 8 significant digits, and -0.0 is written as 0.0.  Booleans are written as true or false, and character 
+ * sequences are written one byte per character.  Characters outside of ASCII are written as '?'.
+ *
+ * The buffer grows when a value does not fit, and is otherwise reused.  Each instance is meant to be used by a single
+ * thread.  Encoded bytes are valid until the next call to encode.
+ */
+public class AsciiValueEncoder implements IValueEncoder
+{
+  /**
+   * Number of decimal places written for floats
+   */
+  public static final int DEFAULT_SCALE = 4;
+
+  /**
+   * Initial buffer size
+   */
+  private static final int INITIAL_SIZE = 64;
+
+  /**
+   * Floats at or above this magnitude are written with Float.toString()
+   */
+  private static final double MAX_FIXED = 1e14;
+
+  /**
+   * Maximum number of significant digits written for floats
+   */
+  private static final int SIGNIFICANT_DIGITS = 8;
+
+  private static final long[] POW10 = { 1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 
+    100_000_000L, 1_000_000_000L };
+
+  private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+  private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+
+  private final int scale;
+  private byte[] buffer = new byte[INITIAL_SIZE];
+
+
+  public AsciiValueEncoder()
+  {
+    this( DEFAULT_SCALE );
+  }
+
+
+  /**
+   * @param scale Number of decimal places written for floats
+   */
+  public AsciiValueEncoder( final int scale )
+  {
+    if ( scale < 0 || scale > 9 )
+      throw new IllegalArgumentException( "scale must be between 0 and 9" );
+
+    this.scale = scale;
+  }
+
+
+  @Override
+  public byte[] getBuffer()
+  {
+    return buffer;
+  }
+
+
+  /**
+   * Every component receives text
+   */
+  @Override
+  public int encode( final IComponent component, final Object value )
+  {
+    return encode( value );
+  }
+
+
+  /**
+   * Every component receives text
+   */
+  @Override
+  public int encodeFloat( final IComponent component, final float value )
+  {
+    return encodeFloat( value );
+  }
+
+
+  /**
+   * Every component receives the same text
+   */
+  @Override
+  public boolean isEquivalent( final IComponent a, final IComponent b )
+  {
+    return true;
+  }
+
+
+  /**
+   * Encode a state value
+   * @param value value
+   * @return number of bytes written to the buffer
+   */
+  public int encode( final Object value )
+  {
+    if ( value instanceof Float || value instanceof Double )
+      return encodeFloat(((Number)value).floatValue());
+    else if ( value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte )
+      return encodeLong(((Number)value).longValue());
+    else if ( value instanceof Boolean )
+      return encodeBytes(((Boolean)value) ? TRUE : FALSE );
+    else if ( value instanceof CharSequence )
+      return encodeChars((CharSequence)value );
+    else if ( value == null )
+      return 0;
+
+    return encodeBytes( value.toString().getBytes( StandardCharsets.US_ASCII ));
+  }
+
+
+  /**
+   * Encode a float
+   * @param value value
+   * @return number of bytes written to the buffer
+   */
+  public int encodeFloat( final float value )
+  {
+    if ( Float.isNaN( value ) || Float.isInfinite( value ) || Math.abs( value ) >= MAX_FIXED )
+      return encodeBytes( Float.toString( value ).getBytes( StandardCharsets.US_ASCII ));
+
+    ensureCapacity( 40 );
+
+    //..Floats only carry about 8 significant digits.  Anything after that is noise.
+    final double abs = Math.abs((double)value );
+    int decimals = scale;
+    for ( int digits = 1; digits <= SIGNIFICANT_DIGITS && decimals > 0; digits++ )
+    {
+      if ( abs < POW10[digits] )
+        break;
+
+      decimals = Math.min( decimals, SIGNIFICANT_DIGITS - digits - 1 );
+    }
+    
+    decimals = Math.max( 0, decimals );
+    final long factor = POW10[decimals];
+
+    long scaled = Math.round( abs * factor );
+    int pos = 0;
+    if ( value < 0 && scaled != 0 )
+      buffer[pos++] = '-';
+
+    pos = writeDigits( scaled / factor, pos );
+    buffer[pos++] = '.';
+
+    if ( decimals == 0 )
+    {
+      buffer[pos++] = '0';
+      return pos;
+    }
+
+    //..Fraction without trailing zeros.  At least one decimal place is always written
+    long fraction = scaled % factor;
+    int digits = decimals;
+    while ( digits > 1 && fraction % 10 == 0 )
+    {
+      fraction /= 10;
+      digits--;
+    }
+
+    for ( int i = pos + digits - 1; i >= pos; i-- )
+    {
+      buffer[i] = (byte)( '0' + fraction % 10 );
+      fraction /= 10;
+    }
+
+    return pos + digits;
+  }
+
+
+  /**
+   * Encode an integer
+   * @param value value
+   * @return number of bytes written to the buffer
+   */
+  public int encodeLong( final long value )
+  {
+    ensureCapacity( 20 );
+
+    if ( value == Long.MIN_VALUE )
+      return encodeBytes( Long.toString( value ).getBytes( StandardCharsets.US_ASCII ));
+
+    int pos = 0;
+    long v = value;
+    if ( v < 0 )
+    {
+      buffer[pos++] = '-';
+      v = -v;
+    }
+
+    return writeDigits( v, pos );
+  }
+
+
+  /**
+   * Encode characters as ASCII
+   * @param value value
+   * @return number of bytes written to the buffer
+   */
+  public int encodeChars( final CharSequence value )
+  {
+    final int len = value.length();
+    ensureCapacity( len );
+
+    for ( int i = 0; i < len; i++ )
+    {
+      final char c = value.charAt( i );
+      buffer[i] = ( c < 0x80 ) ? (byte)c : (byte)'?';
+    }
+
+    return len;
+  }
+
+
+  private int encodeBytes( final byte[] bytes )
+  {
+    ensureCapacity( bytes.length );
+    System.arraycopy( bytes, 0, buffer, 0, bytes.length );
+    return bytes.length;
+  }
+
+
+  /**
+   * Write an unsigned integer at pos
+   * @return position after the last digit
+   */
+  private int writeDigits( final long value, final int pos )
+  {
+    int digits = 1;
+    for ( long v = value / 10; v > 0; v /= 10 )
+    {
+      digits++;
+    }
+
+    long v = value;
+    for ( int i = pos + digits - 1; i >= pos; i-- )
+    {
+      buffer[i] = (byte)( '0' + v % 10 );
+      v /= 10;
+    }
+
+    return pos + digits;
+  }
+
+
+  /**
+   * Grow the buffer if it is smaller than size 
+   * @param size required size 
+   */
+  protected void ensureCapacity( final int size )
+  {
+    if ( buffer.length < size )
+      buffer = Arrays.copyOf( buffer, Math.max( size, buffer.length * 2 ));
+  }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.utils.Logs;
+import com.fazecast.jSerialComm.SerialPort;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Negotiates a faster baud rate with the device firmware after the port is opened at a safe rate.
+ * 
+ * Requests are framed messages sent to CONTROL_ADDRESS with an ASCII payload.  Replies are ASCII lines ending in \n.
+ * 
+ *   B?       Firmware replies with B[current baud rate].  Sent at the safe rate until the firmware answers, since 
+ *            most boards reset when the port is opened.
+ *   B[rate]  Firmware replies with B[rate] and switches to the rate, or replies with N if it does not support it.
+ *            The firmware switches back to the safe rate unless a B? is received at the new rate within 
+ *            CONFIRM_TIMEOUT_MS.
+ * 
+ * Rates are tried from fastest to slowest.  Firmware that does not answer is left at the safe rate.
+ * See lcdproto.ino for the firmware side.
+ */
+public class BaudNegotiator
+{
+  private static final Logger LOG = LogManager.getLogger( BaudNegotiator.class );
+  
+  /**
+   * Hardware address of control messages 
+   */
+  public static final int CONTROL_ADDRESS = 0xFF;
+  
+  /**
+   * Time the firmware waits for a B? at a new rate before switching back.  Must match lcdproto.ino 
+   */
+  public static final int CONFIRM_TIMEOUT_MS = 1000;
+  
+  /**
+   * Candidate rates from fastest to slowest 
+   */
+  private static final int[] RATES = { 2_000_000, 1_000_000, 500_000, 250_000, 230_400, 115_200, 57_600, 38_400, 
+    19_200 };
+  
+  /**
+   * Time to wait for the firmware to answer after the port is opened 
+   */
+  private static final int STARTUP_TIMEOUT_MS = 3000;
+  
+  /**
+   * Time to wait for a reply 
+   */
+  private static final int REPLY_TIMEOUT_MS = 250;
+  
+  /**
+   * Time to wait after changing the baud rate 
+   */
+  private static final int SETTLE_MS = 20;
+  
+  private final SerialPort port;
+  private final SerialSettings settings;
+  private final IMessageEncoder encoder;
+  private final ByteBuffer out = ByteBuffer.allocate( 64 );
+  private final byte[] in = new byte[64];
+  
+  
+  /**
+   * @param port An open port 
+   * @param settings Port settings.  The port must be open at the settings baud rate 
+   * @param encoder Encoder used to frame requests 
+   */
+  public BaudNegotiator( final SerialPort port, final SerialSettings settings, final IMessageEncoder encoder )
+  {
+    if ( port == null )
+      throw new IllegalArgumentException( "port must not be null" );
+    else if ( settings == null )
+      throw new IllegalArgumentException( "settings must not be null" );
+    else if ( encoder == null )
+      throw new IllegalArgumentException( "encoder must not be null" );
+    
+    this.port = port;
+    this.settings = settings;
+    this.encoder = encoder;
+  }
+  
+  
+  /**
+   * Negotiate the fastest rate up to the settings negotiated baud rate that the firmware supports.
+   * The port is left at the returned rate.
+   * @return baud rate 
+   */
+  public int negotiate()
+  {
+    final int safeRate = settings.getBaudRate();
+    
+    try {
+      port.setComPortTimeouts( SerialPort.TIMEOUT_READ_SEMI_BLOCKING | SerialPort.TIMEOUT_WRITE_BLOCKING, 
+        REPLY_TIMEOUT_MS, settings.getWriteTimeout());
+      
+      if ( !waitForFirmware( safeRate ))
+      {
+        Logs.info( LOG, "Firmware on", port.getDescriptivePortName(), "did not answer the baud rate request.  Using", safeRate );
+        return safeRate;
+      }
+      
+      for ( final int rate : RATES )
+      {
+        if ( rate > settings.getNegotiatedBaudRate() || rate <= safeRate )
+          continue;
+        
+        if ( trySwitch( rate, safeRate ))
+        {
+          Logs.info( LOG, "Negotiated", rate, "baud on", port.getDescriptivePortName());
+          return rate;
+        }
+      }
+      
+      Logs.info( LOG, "Firmware on", port.getDescriptivePortName(), "did not accept a faster rate.  Using", safeRate );
+      return safeRate;
+      
+    } catch( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      port.setBaudRate( safeRate );
+      return safeRate;
+    } finally {
+      settings.applyTimeouts( port );
+    }
+  }
+  
+  
+  /**
+   * Send B? until the firmware answers with the expected rate 
+   */
+  private boolean waitForFirmware( final int rate )
+  {
+    final String expected = "B" + rate;
+    final long deadline = System.nanoTime() + STARTUP_TIMEOUT_MS * 1_000_000L;
+    while ( System.nanoTime() < deadline )
+    {
+      send( "B?" );
+      if ( expected.equals( readReply()))
+        return true;
+    }
+    
+    return false;
+  }
+  
+  
+  /**
+   * Ask the firmware to switch to rate and confirm it at the new rate 
+   */
+  private boolean trySwitch( final int rate, final int safeRate ) throws InterruptedException
+  {
+    final String expected = "B" + rate;
+    
+    send( expected );
+    if ( !expected.equals( readReply()))
+      return false;
+    
+    port.setBaudRate( rate );
+    Thread.sleep( SETTLE_MS );
+    port.flushIOBuffers();
+    
+    send( "B?" );
+    if ( expected.equals( readReply()))
+      return true;
+    
+    //..The firmware switches back on its own when the rate is not confirmed 
+    Logs.debug( LOG, "Failed to confirm", rate, "baud on", port.getDescriptivePortName());
+    port.setBaudRate( safeRate );
+    Thread.sleep( CONFIRM_TIMEOUT_MS + SETTLE_MS );
+    port.flushIOBuffers();
+    return false;
+  }
+  
+  
+  private void send( final String request )
+  {
+    final byte[] payload = request.getBytes( StandardCharsets.US_ASCII );
+    out.clear();
+    encoder.encode( CONTROL_ADDRESS, payload, payload.length, out );
+    port.writeBytes( out.array(), out.position());
+  }
+  
+  
+  /**
+   * Read a reply line 
+   * @return reply without the line ending or null if nothing was received in time 
+   */
+  private String readReply()
+  {
+    final long deadline = System.nanoTime() + REPLY_TIMEOUT_MS * 1_000_000L;
+    int len = 0;
+    
+    while ( len < in.length && System.nanoTime() < deadline )
+    {
+      final int n = port.readBytes( in, 1, len );
+      if ( n <= 0 )
+        continue;
+      
+      if ( in[len] == '\n' )
+      {
+        //..Protocol version 2 acknowledgements may still arrive from before the port was reopened, and switch 
+        //  positions are sent again by the firmware once the rate is confirmed 
+        if ( len > 0 && ( in[0] == 'A' || in[0] == 'I' ))
+        {
+          len = 0;
+          continue;
+        }
+        
+        return new String( in, 0, len, StandardCharsets.US_ASCII ).trim();
+      }
+      
+      len++;
+    }
+    
+    return null;
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+
+/**
+ * Encodes values in a compact binary form chosen by component type.
+ *
+ * LED, TOGGLE and MOMENTARY: 1 byte.  0 is off and 1 is on.  Numbers are on when they are not zero.
+ * GAUGE and ROTARY: 2 byte signed big endian fixed point.  The value is multiplied by 10^scale (IComponent.getScale()),
+ * rounded and clamped to -32768 - 32767.
+ * LCD_CHARACTER: Raw ASCII characters, the same as AsciiValueEncoder.
+ *
+ * Values that do not fit the binary form for the component type (ie: text sent to a gauge) are sent as ASCII.
+ * Binary payloads may contain framing bytes, and must be framed with Message.STUFFED_ENCODER.
+ */
+public class BinaryValueEncoder extends AsciiValueEncoder
+{
+  private static final float[] POW10 = { 1f, 10f, 100f, 1_000f, 10_000f };
+
+
+  @Override
+  public int encode( final IComponent component, final Object value )
+  {
+    switch( component.getType())
+    {
+      case LED:
+      case TOGGLE:
+      case MOMENTARY:
+        if ( value instanceof Boolean )
+          return encodeSwitch((Boolean)value );
+        else if ( value instanceof Number )
+          return encodeSwitch(((Number)value).doubleValue() != 0 );
+      break;
+
+      case GAUGE:
+      case ROTARY:
+        if ( value instanceof Number )
+          return encodeFixed( component, ((Number)value).floatValue());
+        else if ( value instanceof Boolean )
+          return encodeFixed( component, ((Boolean)value) ? 1f : 0f );
+      break;
+
+      default:
+      break;
+    }
+
+    return encode( value );
+  }
+
+
+  @Override
+  public int encodeFloat( final IComponent component, final float value )
+  {
+    switch( component.getType())
+    {
+      case LED:
+      case TOGGLE:
+      case MOMENTARY:
+        return encodeSwitch( value != 0 );
+
+      case GAUGE:
+      case ROTARY:
+        return encodeFixed( component, value );
+
+      default:
+        return encodeFloat( value );
+    }
+  }
+
+
+  /**
+   * The binary form depends on the component type and scale 
+   */
+  @Override
+  public boolean isEquivalent( final IComponent a, final IComponent b )
+  {
+    return a.getType() == b.getType() && a.getScale() == b.getScale();
+  }
+
+
+  private int encodeSwitch( final boolean on )
+  {
+    ensureCapacity( 1 );
+    getBuffer()[0] = (byte)( on ? 1 : 0 );
+    return 1;
+  }
+
+
+  private int encodeFixed( final IComponent component, final float value )
+  {
+    final int scaled;
+    if ( Float.isNaN( value ))
+      scaled = 0;
+    else
+      scaled = Math.max( Short.MIN_VALUE, Math.min( Short.MAX_VALUE, Math.round( value * POW10[component.getScale()] )));
+
+    ensureCapacity( 2 );
+    final byte[] buffer = getBuffer();
+    buffer[0] = (byte)( scaled >> 8 );
+    buffer[1] = (byte)scaled;
+    return 2;
+  }
+}
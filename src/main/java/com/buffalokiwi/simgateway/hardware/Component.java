@@ -8,6 +8,7 @@
 package com.buffalokiwi.simgateway.hardware;
 
 import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.simgateway.state.ISmoothingFilter;
 
 
 /**
@@ -26,6 +27,11 @@ public class Component implements IComponent
     private String desc = "";
     private int address = 0;
     private int hardwareAddress = 0;
+    private int historySize = 0;
+    private ISmoothingFilter smoothingFilter = null;
+    private int scale = DEFAULT_SCALE;
+    private int weight = DEFAULT_WEIGHT;
+    private InputAction action = null;
     
     public Builder setSim( final SimType t )
     {
@@ -69,6 +75,57 @@ public class Component implements IComponent
     }
     
     
+    public Builder setHistorySize( final int size )
+    {
+      this.historySize = size;
+      return this;
+    }
+    
+    
+    public Builder setSmoothingFilter( final ISmoothingFilter filter )
+    {
+      this.smoothingFilter = filter;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the number of decimal places kept when numeric values are sent as binary fixed point 
+     * @param scale decimal places 
+     * @return 
+     */
+    public Builder setScale( final int scale )
+    {
+      this.scale = scale;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the share of the device link this component receives when the link is saturated, relative to the other 
+     * components on the device 
+     * @param weight weight 
+     * @return 
+     */
+    public Builder setWeight( final int weight )
+    {
+      this.weight = weight;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the sim command performed when this input component changes 
+     * @param action action or null 
+     * @return 
+     */
+    public Builder setAction( final InputAction action )
+    {
+      this.action = action;
+      return this;
+    }
+    
+    
     public Component build() throws IllegalArgumentException
     {
       return new Component( this );
@@ -76,12 +133,32 @@ public class Component implements IComponent
   }
   
   
+  /**
+   * Default number of decimal places kept for binary fixed point values 
+   */
+  public static final int DEFAULT_SCALE = 1;
+  
+  /**
+   * Default link weight 
+   */
+  public static final int DEFAULT_WEIGHT = 1;
+  
+  /**
+   * Maximum link weight 
+   */
+  public static final int MAX_WEIGHT = 100;
+  
   private final SimType sim;
   private final ComponentType type;
   private final String name;
   private final String desc;
   private final int address;
   private final int hardwareAddress;
+  private final int historySize;
+  private final ISmoothingFilter smoothingFilter;
+  private final int scale;
+  private final int weight;
+  private final InputAction action;
   
   
   protected Component( final Builder b ) 
@@ -98,6 +175,14 @@ public class Component implements IComponent
       throw new IllegalArgumentException( "component address must be an unsigned integer" );
     else if ( b.hardwareAddress < 0 )
       throw new IllegalArgumentException( "component hardware address must be an unsigned integer" );
+    else if ( b.historySize < 0 )
+      throw new IllegalArgumentException( "component history size must be an unsigned integer" );
+    else if ( b.scale < 0 || b.scale > 4 )
+      throw new IllegalArgumentException( "component scale must be between 0 and 4" );
+    else if ( b.weight < 1 || b.weight > MAX_WEIGHT )
+      throw new IllegalArgumentException( "component weight must be between 1 and " + MAX_WEIGHT );
+    else if ( b.action != null && !b.type.isInput())
+      throw new IllegalArgumentException( "component action is only supported by input components" );
     
     
     this.sim = b.sim;
@@ -106,6 +191,11 @@ public class Component implements IComponent
     this.desc = b.desc;
     this.address = b.address;
     this.hardwareAddress = b.hardwareAddress;
+    this.historySize = b.historySize;
+    this.smoothingFilter = b.smoothingFilter;
+    this.scale = b.scale;
+    this.weight = b.weight;
+    this.action = b.action;
   }
   
   
@@ -149,4 +239,39 @@ public class Component implements IComponent
   {
     return sim;
   }
+  
+  
+  @Override
+  public int getHistorySize()
+  {
+    return historySize;
+  }
+  
+  
+  @Override
+  public ISmoothingFilter getSmoothingFilter()
+  {
+    return smoothingFilter;
+  }
+  
+  
+  @Override
+  public int getScale()
+  {
+    return scale;
+  }
+  
+  
+  @Override
+  public int getWeight()
+  {
+    return weight;
+  }
+  
+  
+  @Override
+  public InputAction getAction()
+  {
+    return action;
+  }
 }
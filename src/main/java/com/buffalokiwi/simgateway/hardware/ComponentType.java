@@ -35,7 +35,13 @@ public enum ComponentType
   /**
    * An indicator light
    */
-  LED( "led", "LED" );
+  LED( "led", "LED" ),
+  
+  /**
+   * An analog gauge - a needle driven by a stepper or servo.  
+   * Values written to gauges are interpolated between sim updates at the device output rate 
+   */
+  GAUGE( "gauge", "Gauge" );
   
   
   private final String name;
@@ -73,6 +79,15 @@ public enum ComponentType
   }
   
   
+  /**
+   * @return true if the panel sends values for this type of component to the gateway 
+   */
+  public boolean isInput()
+  {
+    return this == TOGGLE || this == MOMENTARY || this == ROTARY;
+  }
+  
+  
   @Override
   public String toString()
   {
@@ -0,0 +1,375 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * A device message queue holding at most one pending payload per hardware address.
+ *
+ * Writing to an address that already has a pending payload replaces the payload and keeps its place in the queue.
+ * Addresses are drained in the order they first arrived.  The queue never drops the newest payload for an address,
+ * and it can never hold more entries than there are hardware addresses.
+ *
+ * Payloads are copied into a buffer owned by each slot.  Slot buffers are kept and only grow, so a queue in steady
+ * state does not allocate.
+ *
+ * Hardware addresses are a single byte on the wire, so only the least significant byte of the address is used.
+ *
+ * When the queue has a LinkScheduler, drains send only what the link can carry and pick addresses in weighted fair
+ * queuing order instead of arrival order.  Messages with equal finish tags drain in arrival order.  Messages that do 
+ * not fit stay in the queue for the next drain.
+ *
+ * This is thread safe.
+ */
+public class ConflatingMessageQueue
+{
+  /**
+   * Number of hardware addresses
+   */
+  public static final int SLOTS = 256;
+
+  /**
+   * Smallest slot buffer
+   */
+  private static final int MIN_SLOT_SIZE = 16;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+
+  /**
+   * hardware address => pending payload buffer
+   */
+  private final byte[][] pending = new byte[SLOTS][];
+
+  /**
+   * hardware address => pending payload length
+   */
+  private final int[] lengths = new int[SLOTS];
+
+  /**
+   * hardware address => has a pending payload
+   */
+  private final boolean[] queued = new boolean[SLOTS];
+
+  /**
+   * Addresses with a pending payload in order of arrival.  This is a ring buffer
+   */
+  private final int[] order = new int[SLOTS];
+  private int head = 0;
+  private int count = 0;
+  
+  /**
+   * Link scheduler or null 
+   */
+  private final LinkScheduler scheduler;
+  
+  /**
+   * Called when an address is added to the queue, or null 
+   */
+  private volatile Runnable readyHandler = null;
+
+
+  /**
+   * Create a queue that drains everything in arrival order 
+   */
+  public ConflatingMessageQueue()
+  {
+    this( null );
+  }
+
+
+  /**
+   * @param scheduler Meters and orders drained messages.  null drains everything in arrival order 
+   */
+  public ConflatingMessageQueue( final LinkScheduler scheduler )
+  {
+    this.scheduler = scheduler;
+  }
+
+
+  /**
+   * Set the handler called each time an address is added to the queue.  Replacing a pending payload does not call the
+   * handler.  The handler is called while holding the queue lock and must not block 
+   * @param readyHandler handler or null 
+   */
+  public void setReadyHandler( final Runnable readyHandler )
+  {
+    this.readyHandler = readyHandler;
+  }
+  
+  
+  /**
+   * Add a payload to the queue
+   * @param hardwareAddress hardware address
+   * @param bytes payload
+   * @return true if the address was added to the queue, false if a pending payload for the address was replaced
+   */
+  public boolean offer( final int hardwareAddress, final byte[] bytes )
+  {
+    if ( bytes == null )
+      throw new IllegalArgumentException( "bytes must not be null" );
+
+    return offer( hardwareAddress, bytes, 0, bytes.length );
+  }
+
+
+  /**
+   * Add a payload to the queue.  The bytes are copied
+   * @param hardwareAddress hardware address
+   * @param bytes source
+   * @param offset start of the payload in bytes
+   * @param length payload length
+   * @return true if the address was added to the queue, false if a pending payload for the address was replaced
+   */
+  public boolean offer( final int hardwareAddress, final byte[] bytes, final int offset, final int length )
+  {
+    lock.lock();
+    try {
+      return put( hardwareAddress, bytes, offset, length );
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Add every payload in a batch to the queue at once.  A writer never sees part of the batch.
+   * @param batch batch
+   */
+  public void offer( final MessageBatch batch )
+  {
+    if ( batch.isEmpty())
+      return;
+
+    lock.lock();
+    try {
+      for ( int i = 0; i < batch.size(); i++ )
+      {
+        put( batch.getAddress( i ), batch.getPayload( i ), 0, batch.getLength( i ));
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Retrieve the number of pending addresses
+   * @return size
+   */
+  public int size()
+  {
+    lock.lock();
+    try {
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Remove every pending payload without waiting
+   * @param sink Receives each payload in queue order.  This is called while holding the queue lock
+   * @return number of entries removed
+   */
+  public int drainTo( final IMessageSink sink )
+  {
+    return drainTo( sink, SLOTS );
+  }
+
+
+  /**
+   * Remove up to max pending payloads without waiting
+   * @param sink Receives each payload in queue order.  This is called while holding the queue lock
+   * @param max Maximum number of entries to remove
+   * @return number of entries removed
+   */
+  public int drainTo( final IMessageSink sink, final int max )
+  {
+    lock.lock();
+    try {
+      return drain( sink, max );
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Change the link speed of the scheduler.  Does nothing without a scheduler 
+   * @param baudRate Link speed in bits per second
+   */
+  public void setBaudRate( final int baudRate )
+  {
+    if ( scheduler == null )
+      return;
+    
+    lock.lock();
+    try {
+      scheduler.setBaudRate( baudRate );
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Take bytes written outside of the queue from the scheduler bandwidth, ie: retransmitted frames.  Does nothing
+   * without a scheduler 
+   * @param bytes encoded bytes
+   */
+  public void consume( final int bytes )
+  {
+    if ( scheduler == null )
+      return;
+    
+    lock.lock();
+    try {
+      scheduler.consume( bytes );
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Wait until at least one payload is pending or the timeout elapses 
+   * @param timeoutNanos Maximum time to wait in nanoseconds 
+   * @return true if a payload is pending 
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean await( final long timeoutNanos ) throws InterruptedException
+  {
+    lock.lockInterruptibly();
+    try {
+      long remaining = timeoutNanos;
+      while ( count == 0 && remaining > 0 )
+      {
+        remaining = notEmpty.awaitNanos( remaining );
+      }
+
+      return count > 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+
+  /**
+   * Must be called while holding the lock
+   */
+  private boolean put( final int hardwareAddress, final byte[] bytes, final int offset, final int length )
+  {
+    final int address = hardwareAddress & 0xFF;
+
+    if ( pending[address] == null || pending[address].length < length )
+      pending[address] = new byte[Math.max( length, MIN_SLOT_SIZE )];
+
+    System.arraycopy( bytes, offset, pending[address], 0, length );
+    lengths[address] = length;
+
+    if ( queued[address] )
+    {
+      //..The replacement keeps its place, but its finish tag follows the new length 
+      if ( scheduler != null )
+        scheduler.replace( address, pending[address], length );
+      
+      return false;
+    }
+
+    queued[address] = true;
+    order[( head + count ) % SLOTS] = address;
+    
+    if ( scheduler != null )
+      scheduler.enqueue( address, pending[address], length );
+    
+    count++;
+    notEmpty.signal();
+    
+    final Runnable handler = readyHandler;
+    if ( handler != null )
+      handler.run();
+    
+    return true;
+  }
+
+
+  /**
+   * Must be called while holding the lock
+   */
+  private int drain( final IMessageSink sink, final int max )
+  {
+    if ( scheduler != null )
+      return drainScheduled( sink, max );
+    
+    final int n = Math.min( count, max );
+    for ( int i = 0; i < n; i++ )
+    {
+      final int address = order[head];
+      head = ( head + 1 ) % SLOTS;
+      count--;
+      queued[address] = false;
+      sink.accept( address, pending[address], lengths[address] );
+    }
+
+    return n;
+  }
+
+
+  /**
+   * Remove pending payloads in finish tag order until the link scheduler runs out of bandwidth.
+   * Must be called while holding the lock
+   */
+  private int drainScheduled( final IMessageSink sink, final int max )
+  {
+    scheduler.refill( System.nanoTime());
+    
+    int n = 0;
+    while ( count > 0 && n < max )
+    {
+      //..Find the smallest finish tag.  There are at most SLOTS entries, so a scan is cheaper than keeping a heap 
+      int best = head;
+      double bestTag = scheduler.getTag( order[head] );
+      for ( int i = 1; i < count; i++ )
+      {
+        final int p = ( head + i ) % SLOTS;
+        final double tag = scheduler.getTag( order[p] );
+        if ( tag < bestTag )
+        {
+          best = p;
+          bestTag = tag;
+        }
+      }
+      
+      final int address = order[best];
+      if ( !scheduler.admit( address, pending[address], lengths[address] ))
+        break;
+      
+      //..Close the hole by moving the older entries up one slot, so equal tags still drain in order of arrival 
+      for ( int p = best; p != head; )
+      {
+        final int prev = ( p + SLOTS - 1 ) % SLOTS;
+        order[p] = order[prev];
+        p = prev;
+      }
+      
+      head = ( head + 1 ) % SLOTS;
+      count--;
+      queued[address] = false;
+      sink.accept( address, pending[address], lengths[address] );
+      n++;
+    }
+    
+    scheduler.endDrain( count );
+    return n;
+  }
+}
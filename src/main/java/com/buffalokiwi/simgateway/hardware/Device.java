@@ -8,16 +8,18 @@
 package com.buffalokiwi.simgateway.hardware;
 
 import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.utils.EventHandlerStack;
+import com.buffalokiwi.utils.IEventHandlerStack;
 import com.buffalokiwi.utils.Logs;
 import com.fazecast.jSerialComm.SerialPort;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.function.BiFunction;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -32,7 +34,7 @@ import org.apache.logging.log4j.Logger;
  * Then we simply restart the thread later either on a scheduler or when an data point comes in that needs to be enqueued
  * 
  */
-public class Device implements IDevice
+public final class Device implements IDevice
 {
   public static class Builder
   {
@@ -41,8 +43,15 @@ public class Device implements IDevice
     private String description = "";
     private String serial = "";
     private List<IComponent> componentList = null;
-    private SerialPort port = null;
-    private BiFunction<Integer,byte[],IMessage> messageFactory = (hardwareAddress, message) -> new Message( hardwareAddress, message );
+    private IDeviceLink link = null;
+    private int outputRate = DEFAULT_OUTPUT_RATE;
+    private OutputMode outputMode = OutputMode.SCHEDULED;
+    private IMessageEncoder messageEncoder = null;
+    private ValueEncoding encoding = ValueEncoding.TEXT;
+    private SerialSettings serialSettings = SerialSettings.DEFAULT;
+    private int protocolVersion = 1;
+    private int window = ReliableLink.DEFAULT_WINDOW;
+    private IEventHandlerStack<InputEvent> inputHandlers = null;
     
     public Builder()
     {
@@ -50,9 +59,14 @@ public class Device implements IDevice
     }
     
     
-    public Builder setMessageFactory( final BiFunction<Integer,byte[],IMessage> messageFactory )
+    /**
+     * Sets the encoder used to frame payloads for the wire.  Defaults to the message encoder for the value encoding.
+     * @param messageEncoder encoder 
+     * @return 
+     */
+    public Builder setMessageEncoder( final IMessageEncoder messageEncoder )
     {
-      this.messageFactory = messageFactory;
+      this.messageEncoder = messageEncoder;
       return this;
     }
     
@@ -67,7 +81,19 @@ public class Device implements IDevice
      */
     public Builder setSerialPort( final SerialPort port )
     {
-      this.port = port;
+      this.link = ( port == null ) ? null : new SerialLink( port );
+      return this;
+    }
+    
+    
+    /**
+     * Sets the link the device writes to.  Use this for virtual devices that do not have a serial port 
+     * @param link link 
+     * @return 
+     */
+    public Builder setLink( final IDeviceLink link )
+    {
+      this.link = link;
       return this;
     }
 
@@ -107,50 +133,125 @@ public class Device implements IDevice
     }
     
     
-    public Device build() throws IOException
+    /**
+     * Sets the number of times per second the message queue is written to the device 
+     * @param hz rate 
+     * @return 
+     */
+    public Builder setOutputRate( final int hz )
     {
-      return new Device( this );
+      this.outputRate = hz;
+      return this;
     }
-  }
-  
-  
-  /**
-   * Represents a message in the queue waiting to be written to the device 
-   */
-  private static class QueueEntry 
-  {
-    private final int hardwareAddress;
-    private final byte[] message;
     
-    QueueEntry( final int hardwareAddress, final byte[] message )
+    
+    /**
+     * Sets how the message queue is written to the device 
+     * @param mode mode 
+     * @return 
+     */
+    public Builder setOutputMode( final OutputMode mode )
+    {
+      this.outputMode = mode;
+      return this;
+    }
+    
+    
+    /**
+     * Sets how values are encoded for this device 
+     * @param encoding encoding 
+     * @return 
+     */
+    public Builder setEncoding( final ValueEncoding encoding )
+    {
+      this.encoding = encoding;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the serial port parameters.  Defaults to SerialSettings.DEFAULT 
+     * @param settings settings 
+     * @return 
+     */
+    public Builder setSerialSettings( final SerialSettings settings )
+    {
+      this.serialSettings = settings;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the protocol version.  1 is write and forget.  2 adds sequence numbers, checksums and acknowledgements
+     * @param version 1 or 2 
+     * @return 
+     * @see ReliableLink 
+     */
+    public Builder setProtocolVersion( final int version )
     {
-      this.hardwareAddress = hardwareAddress;
-      this.message = message;
+      this.protocolVersion = version;
+      return this;
     }
     
     
     /**
-     * the component this is for 
+     * Sets the number of frames in flight for protocol version 2 
+     * @param window 1 - ReliableLink.MAX_WINDOW 
      * @return 
      */
-    public int getHardwareAddress()
+    public Builder setWindow( final int window )
     {
-      return hardwareAddress;
+      this.window = window;
+      return this;
     }
     
     
     /**
-     * The entire payload with headers 
+     * Sets the handlers called for each value sent by an input component.  Devices can share a handler stack.
+     * When not set, the device uses its own stack 
+     * @param inputHandlers handlers 
      * @return 
      */
-    public byte[] getMessage()
+    public Builder setInputHandlers( final IEventHandlerStack<InputEvent> inputHandlers )
+    {
+      this.inputHandlers = inputHandlers;
+      return this;
+    }
+    
+    
+    public Device build() throws IOException
     {
-      return message;
+      return new Device( this );
     }
   }
   
+  
   private static final Logger LOG = LogManager.getLogger( Device.class );
-  private static final int QUEUE_CAPACITY = 10;
+  
+  /**
+   * Default output rate in hz.  
+   */
+  public static final int DEFAULT_OUTPUT_RATE = 10;
+  
+  /**
+   * Longest time service() asks to wait.  Draining keeps the link statistics current 
+   */
+  private static final long SERVICE_WAIT_NANOS = 1_000_000_000L;
+  
+  /**
+   * Shortest time service() asks to wait for bandwidth 
+   */
+  private static final long MIN_BACKLOG_WAIT_NANOS = 1_000_000L;
+  
+  /**
+   * Initial size of the output buffer.  The buffer grows if a burst does not fit.
+   */
+  private static final int OUTPUT_BUFFER_SIZE = 4096;
+  
+  /**
+   * Largest input value accepted 
+   */
+  private static final int MAX_INPUT_VALUE = 32767;
   
   
   private final SimType sim;
@@ -159,16 +260,45 @@ public class Device implements IDevice
   private final String serial;
   private final List<IComponent> componentList;
   private final boolean hasSerial;
-  private final SerialPort port;
+  private final IDeviceLink link;
   private final HashMap<Integer,IComponent> componentAddressMap = new HashMap<>();
-  private final BiFunction<Integer,byte[],IMessage> messageFactory;
+  private final IMessageEncoder messageEncoder;
+  private final ValueEncoding encoding;
+  private final int outputRate;
+  private final OutputMode outputMode;
+  private final SerialSettings serialSettings;
   
+  //..Protocol version 2 sequencing and acknowledgements.  null for version 1 
+  private final ReliableLink reliableLink;
+  
+  //..Called for each value read from an input component 
+  private final IEventHandlerStack<InputEvent> inputHandlers;
+  
+  //..hardware address => input component 
+  private final IComponent[] inputComponents = new IComponent[ConflatingMessageQueue.SLOTS];
+  
+  //..Meters writes to what the serial link can carry and shares the link between components by weight 
+  private final LinkScheduler linkScheduler;
   
   //..This is the message queue
-  //..There might be some timing issues, etc and if we start getting backed up on messages
-  //..This always adds messages to the end of the queue
-  //..If the queue is full, this pops then adds.
-  private final LinkedBlockingDeque<QueueEntry> messageQueue = new LinkedBlockingDeque<>( QUEUE_CAPACITY );
+  //..Each hardware address has at most one pending message.  A newer message for the same address replaces the 
+  //  pending one and keeps its place in line, so a busy component can never push out an update for another component.
+  //  Messages the link has no room for wait here for the next write.
+  private final ConflatingMessageQueue messageQueue;
+  
+  //..Messages drained from the queue are framed straight into this buffer, which is written to the port with a single 
+  //  write call.  jSerialComm writes from byte arrays, so this is a heap buffer.  Only used by the writer thread.
+  private ByteBuffer outBuffer = ByteBuffer.allocate( OUTPUT_BUFFER_SIZE );
+  
+  //..Receives entries drained from the queue 
+  private final IMessageSink drainSink = this::encodeMessage;
+  
+  //..Serial port output stream.  This is cached when the port is opened, and only used by the writer thread.
+  private OutputStream out = null;
+  
+  //..If the last write failed.  Failures are logged once until a write succeeds, so a network device that is away 
+  //  does not log on every write 
+  private boolean writeFailed = false;
   
   
   
@@ -186,10 +316,20 @@ public class Device implements IDevice
       throw new IllegalArgumentException( "Device component list must not be null" );
     else if ( b.name.isEmpty() && b.serial.isEmpty())
       throw new IllegalArgumentException( "Device name and serial must not both be empty" );
-    else if ( b.port == null )
-      throw new IllegalArgumentException( "Device serial port must not be null" );
-    else if ( b.messageFactory == null )
-      throw new IllegalArgumentException( "Device message factory must not be null" );
+    else if ( b.link == null )
+      throw new IllegalArgumentException( "Device link must not be null" );
+    else if ( b.encoding == null )
+      throw new IllegalArgumentException( "Device encoding must not be null" );
+    else if ( b.outputRate < 1 || b.outputRate > 1000 )
+      throw new IllegalArgumentException( "Device output rate must be between 1 and 1000 hz" );
+    else if ( b.outputMode == null )
+      throw new IllegalArgumentException( "Device output mode must not be null" );
+    else if ( b.serialSettings == null )
+      throw new IllegalArgumentException( "Device serial settings must not be null" );
+    else if ( b.protocolVersion != 1 && b.protocolVersion != 2 )
+      throw new IllegalArgumentException( "Device protocol version must be 1 or 2" );
+    else if ( b.protocolVersion == 2 && b.messageEncoder != null )
+      throw new IllegalArgumentException( "Device message encoder can not be set for protocol version 2" );
     
     sim = b.sim;
     name = b.name;
@@ -197,21 +337,42 @@ public class Device implements IDevice
     serial = b.serial;
     componentList = Collections.unmodifiableList( new ArrayList<>( b.componentList ));
     hasSerial = serial != null && !serial.trim().isEmpty();
-    port = b.port;
-    messageFactory = b.messageFactory;
+    link = b.link;
+    encoding = b.encoding;
+    reliableLink = ( b.protocolVersion == 2 ) ? new ReliableLink( b.window ) : null;
+    if ( reliableLink != null )
+      messageEncoder = reliableLink;
+    else
+      messageEncoder = ( b.messageEncoder == null ) ? encoding.getMessageEncoder() : b.messageEncoder;
+    outputRate = b.outputRate;
+    outputMode = b.outputMode;
+    serialSettings = b.serialSettings;
+    linkScheduler = new LinkScheduler( serialSettings.getBaudRate(), serialSettings.getBitsPerByte(), outputRate, 
+      messageEncoder, componentList );
+    messageQueue = new ConflatingMessageQueue( linkScheduler );
+    
+    inputHandlers = ( b.inputHandlers == null ) ? new EventHandlerStack<>() : b.inputHandlers;
     
     for ( final IComponent c : componentList )
     {
       componentAddressMap.put( c.getAddress(), c );
+      
+      if ( c.getType().isInput())
+      {
+        final int address = c.getHardwareAddress() & 0xFF;
+        if ( inputComponents[address] != null )
+          throw new IllegalArgumentException( "Device " + name + " has more than one input component at hardware address " 
+            + address );
+        
+        inputComponents[address] = c;
+      }
     }
     
-    port.setComPortParameters( 9600, 8, 1, 0 );
-    //port.setComPortTimeouts(SerialPort.TIMEOUT_WRITE_BLOCKING, 0, 0 );
-    
-    if ( !port.openPort())
-      throw new IOException( "Failed to connect to device on " + port.getPortDescription());
+    if ( !openPort())
+      throw new IOException( "Failed to connect to device on " + link.getDescription());
     else
-      Logs.info( LOG, "Connected to device", name, "sn", serial, "on port", port.getPortDescription());
+      Logs.info( LOG, "Connected to device", name, "sn", serial, "on", link.getDescription(), "at", 
+        linkScheduler.getBaudRate(), "baud" );
   }
   
   
@@ -258,17 +419,69 @@ public class Device implements IDevice
   
   
   @Override
-  public SerialPort getSerialPort()
+  public int getOutputRate()
+  {
+    return outputRate;
+  }
+  
+  
+  @Override
+  public ValueEncoding getEncoding()
   {
-    return port;
+    return encoding;
+  }
+  
+  
+  @Override
+  public OutputMode getOutputMode()
+  {
+    return outputMode;
+  }
+  
+  
+  @Override
+  public LinkScheduler getLinkScheduler()
+  {
+    return linkScheduler;
+  }
+  
+  
+  @Override
+  public SerialSettings getSerialSettings()
+  {
+    return serialSettings;
+  }
+  
+  
+  @Override
+  public ReliableLink getReliableLink()
+  {
+    return reliableLink;
+  }
+  
+  
+  @Override
+  public IEventHandlerStack<InputEvent> getInputHandlers()
+  {
+    return inputHandlers;
+  }
+  
+  
+  @Override
+  public IDeviceLink getLink()
+  {
+    return link;
   }
   
   
   @Override
   public void close() throws Exception
   {
-    if ( !port.closePort())
-      throw new IOException( "Device " + getName() + " sn: " + getSerial() + " - failed to close port" );
+    try {
+      link.close();
+    } catch( IOException e ) {
+      throw new IOException( "Device " + getName() + " sn: " + getSerial() + " - failed to close link", e );
+    }
   }
   
   
@@ -286,56 +499,282 @@ public class Device implements IDevice
   @Override
   public void write( final int hardwareAddress, final byte[] bytes )
   {
+    messageQueue.offer( hardwareAddress, bytes );
+  }
+  
+  
+  @Override
+  public void write( final int hardwareAddress, final byte[] bytes, final int offset, final int length )
+  {
+    messageQueue.offer( hardwareAddress, bytes, offset, length );
+  }
+  
+  
+  @Override
+  public void write( final MessageBatch batch )
+  {
+    messageQueue.offer( batch );
+  }
+  
+  
+  /**
+   * Reads messages from the queue and sends them to the device 
+   * Everything waiting in the queue that the link can carry is framed and written to the port as a single burst.  
+   * Returns immediately when the queue is empty.
+   */
+  @Override
+  public void run()
+  {
+    writeQueue();
+  }
+  
+  
+  /**
+   * Sends everything waiting in the queue that the link can carry as a single burst, and returns the time until the 
+   * next message waiting for bandwidth or retransmission is due.
+   * @return nanoseconds 
+   */
+  @Override
+  public long service()
+  {
+    writeQueue();
+    
+    long wait = SERVICE_WAIT_NANOS;
+    if ( reliableLink != null )
+    {
+      //..Wake up in time to retransmit.  A full window waits for acknowledgements, which signal the device 
+      wait = Math.min( wait, reliableLink.getTimeoutNanos( System.nanoTime()));
+      if ( reliableLink.getAvailable() == 0 )
+        return wait;
+    }
     
-    final QueueEntry entry = new QueueEntry(
-      hardwareAddress,
-      bytes
-    );
+    if ( linkScheduler.getBacklog() > 0 )
+      wait = Math.min( wait, Math.max( linkScheduler.getDelayNanos(), MIN_BACKLOG_WAIT_NANOS ));
     
-    //..Add the message to the end of the dequeue unless it's full, then pop
-    while( !messageQueue.offerLast( entry ))
+    return wait;
+  }
+  
+  
+  @Override
+  public void setReadyHandler( final Runnable readyHandler )
+  {
+    messageQueue.setReadyHandler( readyHandler );
+    if ( reliableLink != null )
+      reliableLink.setAvailableHandler( readyHandler );
+  }
+  
+  
+  /**
+   * Retransmit lost frames, frame as much of the queue as the link and window allow, and write it all to the port 
+   */
+  private void writeQueue()
+  {
+    if ( reliableLink == null )
     {
-      try {
-        messageQueue.pop();
-        Logs.info( LOG, "Device", getName(), "sn", getSerial(), "message queue full - removing head" );
-      } catch( NoSuchElementException e ) {
-        //..do nothing, it's empty
-      }
+      messageQueue.drainTo( drainSink );
+    }
+    else
+    {
+      //..Retransmitted frames go out first and are not metered by the queue, so they are taken from the link budget 
+      ensureCapacity( reliableLink.getMaxRetransmitLength());
+      final int start = outBuffer.position();
+      if ( reliableLink.retransmit( System.nanoTime(), outBuffer ) > 0 )
+        messageQueue.consume( outBuffer.position() - start );
+      
+      final int available = reliableLink.getAvailable();
+      if ( available > 0 )
+        messageQueue.drainTo( drainSink, available );
     }
+    
+    flush();
   }
   
   
   /**
-   * Reads messages from the queue and sends them to the device 
+   * Frames a drained payload into the output buffer 
    */
-  @Override
-  public void run()
+  private void encodeMessage( final int hardwareAddress, final byte[] payload, final int length )
+  {
+    ensureCapacity( messageEncoder.getMaxLength( length ));
+    messageEncoder.encode( hardwareAddress, payload, length, outBuffer );
+  }
+  
+  
+  /**
+   * Grow the output buffer if it has less than required bytes remaining 
+   * @param required bytes 
+   */
+  private void ensureCapacity( final int required )
+  {
+    if ( outBuffer.remaining() < required )
+    {
+      final ByteBuffer larger = ByteBuffer.allocate( Math.max( outBuffer.capacity() * 2, outBuffer.position() + required ));
+      outBuffer.flip();
+      larger.put( outBuffer );
+      outBuffer = larger;
+    }
+  }
+  
+  
+  /**
+   * Write the output buffer to the port 
+   */
+  private void flush()
   {
+    if ( outBuffer.position() == 0 )
+      return;
+    
     try {
-      while ( true )
-      {
-        final QueueEntry entry = messageQueue.pop();
-        if ( entry == null )
-          break;
-        
-        //..Send the data to the device 
-        //..This converts everything to a happy little byte array the controller can understand 
-        final IMessage message = messageFactory.apply( entry.getHardwareAddress(), entry.getMessage());
-        if ( message == null )
-        {
-          Logs.error( LOG, "Message factory for device", getName(), "sn", getSerial(), "returned null - message abandoned" );
-          return;
-        }
-        
-        if ( !port.isOpen())
-          port.openPort();
-        
-        port.getOutputStream().write( message.getBytes());
-      }
-    } catch( NoSuchElementException e ) {
-      //..Do nothing, queue is empty
+      final OutputStream stream = getOutputStream();
+      stream.write( outBuffer.array(), 0, outBuffer.position());
+      stream.flush();
+      
+      if ( writeFailed )
+        Logs.info( LOG, "Sending data to device", getName(), "sn", getSerial(), "again" );
+      
+      writeFailed = false;
     } catch( IOException e ) {
-      Logs.error( LOG, e, "Failed to send data to device", getName(), "sn", getSerial());
+      //..The stream is fetched again on the next write 
+      out = null;
+      if ( !writeFailed )
+        Logs.error( LOG, e, "Failed to send data to device", getName(), "sn", getSerial());
+      
+      writeFailed = true;
+    } finally {
+      outBuffer.clear();
+    }
+  }
+  
+  
+  /**
+   * Retrieve the link output stream.  The link is reopened if it was closed.
+   * @return stream 
+   * @throws IOException if the link is not open 
+   */
+  private OutputStream getOutputStream() throws IOException
+  {
+    if ( !link.isOpen())
+    {
+      openPort();
+      out = null;
+    }
+    
+    if ( out == null )
+      out = link.getOutputStream();
+    
+    return out;
+  }
+  
+  
+  /**
+   * Open the port with the configured settings and negotiate a faster baud rate if enabled.  Boards like the Arduino 
+   * reset when the port is opened, so negotiation runs every time the port is opened.
+   * @return true if the port is open 
+   */
+  private boolean openPort()
+  {
+    if ( !link.open( serialSettings ))
+      return false;
+    
+    //..Negotiation uses version 1 frames, which protocol version 2 firmware also accepts for control messages 
+    if ( serialSettings.getNegotiatedBaudRate() > 0 )
+      messageQueue.setBaudRate( link.negotiateBaudRate( serialSettings, encoding.getMessageEncoder()));
+    
+    //..Lines sent by the device are handled as soon as they arrive 
+    if ( !link.setLineHandler( this::onLine ))
+      Logs.error( LOG, "Failed to listen for input from device", name, "sn", serial );
+    
+    if ( reliableLink != null )
+    {
+      //..Anything framed for the old connection is not sent.  Frames that were not acknowledged are queued again, 
+      //  and the sync frame restarts the firmware sequence 
+      outBuffer.clear();
+      reliableLink.reset( messageQueue );
+      ensureCapacity( reliableLink.getMaxLength( 1 ));
+      reliableLink.sync( outBuffer );
+    }
+    
+    return true;
+  }
+  
+  
+  /**
+   * Handle a line sent by the device.  Called on the link event thread, ie: the jSerialComm event thread.
+   * 
+   * Input messages are "I[hardware address],[value]" in decimal, ie: "I32,1" or "I33,-2".  Acknowledgements start with
+   * "A" and are passed to the reliable link.
+   * @param line line 
+   * @param length line length 
+   */
+  private void onLine( final byte[] line, final int length )
+  {
+    if ( length == 0 )
+      return;
+    else if ( line[0] == 'I' )
+      onInput( line, length );
+    else if ( line[0] == 'A' && reliableLink != null )
+      reliableLink.onLine( line, length );
+    else if ( LOG.isDebugEnabled())
+      Logs.debug( LOG, "Device", name, "sent an unknown message:", new String( line, 0, length, StandardCharsets.US_ASCII ));
+  }
+  
+  
+  /**
+   * Parse an input message and dispatch the event to the input handlers 
+   * @param line line 
+   * @param length line length 
+   */
+  private void onInput( final byte[] line, final int length )
+  {
+    final long now = System.nanoTime();
+    
+    //..Address digits, a comma, an optional minus sign and value digits 
+    int i = 1;
+    int address = 0;
+    boolean valid = true;
+    for ( ; valid && i < length && line[i] != ','; i++ )
+    {
+      final int d = line[i] - '0';
+      valid = d >= 0 && d <= 9 && ( address = address * 10 + d ) <= 0xFF;
+    }
+    
+    valid &= i > 1 && i < length;
+    
+    final boolean negative = valid && i + 1 < length && line[i + 1] == '-';
+    if ( negative )
+      i++;
+    
+    valid &= i + 1 < length;
+    
+    int value = 0;
+    for ( i++; valid && i < length; i++ )
+    {
+      final int d = line[i] - '0';
+      valid = d >= 0 && d <= 9 && ( value = value * 10 + d ) <= MAX_INPUT_VALUE;
+    }
+    
+    if ( !valid )
+    {
+      Logs.error( LOG, "Device", name, "sent an invalid input message:", 
+        new String( line, 0, length, StandardCharsets.US_ASCII ));
+      return;
+    }
+    
+    final IComponent component = inputComponents[address];
+    if ( component == null )
+    {
+      Logs.error( LOG, "Device", name, "sent input for hardware address", address, 
+        "which is not an input component" );
+      return;
+    }
+    
+    final InputEvent event = new InputEvent( this, component, negative ? -value : value, now );
+    
+    //..A failing handler must not stop the port event thread 
+    try {
+      inputHandlers.execute( event );
+    } catch( Exception e ) {
+      Logs.error( LOG, e, "Input handler failed for", event );
     }
   }
 }
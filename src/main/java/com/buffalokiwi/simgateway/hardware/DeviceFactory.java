@@ -8,14 +8,22 @@
 package com.buffalokiwi.simgateway.hardware;
 
 import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.simgateway.state.ArgumentStore;
+import com.buffalokiwi.simgateway.state.ExponentialMovingAverageFilter;
+import com.buffalokiwi.simgateway.state.ISmoothingFilter;
+import com.buffalokiwi.simgateway.state.MovingAverageFilter;
+import com.buffalokiwi.utils.EventHandlerStack;
+import com.buffalokiwi.utils.IEventHandlerStack;
 import com.buffalokiwi.utils.Logs;
 import com.fazecast.jSerialComm.SerialPort;
-import java.io.IOException;
+import com.fazecast.jSerialComm.SerialPortInvalidPortException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import javax.json.JsonArray;
+import javax.json.JsonNumber;
 import javax.json.JsonObject;
+import javax.json.JsonString;
 import javax.json.JsonValue;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -75,26 +83,47 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
   
   
   /**
-   * The master list of devices 
+   * Connects configured devices as they are plugged in 
    */
-  private final ArrayList<IDevice> deviceList = new ArrayList<>();
+  private final DeviceManager deviceManager = new DeviceManager();
   
   /**
-   * Map of software address => IDevice 
-   * This is how we translate the configured component constants to a component on the device itself
+   * Every configured component, including components on devices that are not plugged in 
    */
-  private final HashMap<Integer,IDevice> softAddressMap = new HashMap<>();
+  private final ArrayList<IComponent> componentList = new ArrayList<>();
+  
+  /**
+   * software address => device and component 
+   * This is how we translate the configured component constants to a component on the device itself.
+   * Only connected devices are mapped.  Replaced when a device is attached or detached 
+   */
+  private volatile RoutingTable routingTable = RoutingTable.EMPTY;
     
   /**
    * The log 
    */
   private static final Logger LOG = LogManager.getLogger(DeviceFactory.class );
     
+  /**
+   * Prefix used to map a component to a cockpit draw argument.  ie: "dcs": "arg:120"
+   */
+  private static final String ARGUMENT_PREFIX = "arg:";
+  
+  /**
+   * Minimum history size for gauge components 
+   */
+  private static final int GAUGE_HISTORY_SIZE = 2;
+  
   /**
    * The type of sim this device supports 
    */
   private final SimType sim;
   
+  /**
+   * Handlers called for values sent by input components on every device 
+   */
+  private final IEventHandlerStack<InputEvent> inputHandlers = new EventHandlerStack<>();
+  
   
   /**
    * @param currentSim Current sim
@@ -103,6 +132,10 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
   {
     super();
     sim = currentSim;
+    
+    //..Devices are routed by software address while they are connected 
+    deviceManager.getAttachHandlers().add( device -> buildRoutingTable());
+    deviceManager.getDetachHandlers().add( device -> buildRoutingTable());
   }
 
   
@@ -113,14 +146,7 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
   @Override
   public void close() throws Exception
   {
-    for ( final IDevice d : deviceList )
-    {
-      try {
-        d.close();
-      } catch( Exception e ) {
-        Logs.error( LOG, e );
-      }
-    }
+    deviceManager.close();
   }
   
   
@@ -130,7 +156,37 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
    */
   public List<IDevice> getDeviceList()
   {
-    return new ArrayList<>( deviceList );
+    return deviceManager.getDeviceList();
+  }
+  
+  
+  /**
+   * Retrieve every configured component, including components on devices that are not connected 
+   * @return components 
+   */
+  public List<IComponent> getComponentList()
+  {
+    return new ArrayList<>( componentList );
+  }
+  
+  
+  /**
+   * @return The manager that connects configured devices as they are plugged in 
+   */
+  public DeviceManager getDeviceManager()
+  {
+    return deviceManager;
+  }
+  
+  
+  /**
+   * Handlers called for each value sent by an input component on any device.  Handlers run on the serial port event
+   * thread and must not block 
+   * @return handlers 
+   */
+  public IEventHandlerStack<InputEvent> getInputHandlers()
+  {
+    return inputHandlers;
   }
   
   
@@ -146,7 +202,39 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
    *    {
    *      "mame" : "Arduino Uno",
    *      "serial" : "442383131393513132F1",
-   *      "description" : "Prototype development LCD"
+   *      "description" : "Prototype development LCD",
+   *      "output_rate" : 10,                             optional.  Times per second the device is written to
+   *      "output_mode" : "scheduled",                    optional.  scheduled writes at the output rate.  blocking writes 
+   *                                                      messages as soon as they are queued 
+   *      "encoding" : "text",                            optional.  text sends values as ascii.  binary sends compact 
+   *                                                      values per component type 
+   *      "protocol" : 1,                                 optional.  1 is write and forget.  2 adds sequence numbers, 
+   *                                                      checksums and acknowledgements 
+   *      "window" : 8,                                   optional.  protocol 2 frames in flight.  1-32 
+   *      "port" : {                                      optional serial port parameters 
+   *        "baud" : 9600,                                baud rate the port is opened at 
+   *        "data_bits" : 8,                              5-8 
+   *        "parity" : "none",                            none, odd, even, mark or space 
+   *        "stop_bits" : 1,                              1, 1.5 or 2 
+   *        "write_timeout" : 0,                          milliseconds.  0 blocks until written 
+   *        "send_buffer" : 0,                            driver send buffer size in bytes.  0 uses the driver default 
+   *        "receive_buffer" : 0,                         driver receive buffer size in bytes.  0 uses the driver default 
+   *        "negotiate_baud" : 115200                     highest baud rate to negotiate with the firmware.  0 disables 
+   *      },
+   *      "link" : {                                      optional transport.  Defaults to the serial port found by scanning 
+   *        "type" : "memory",                            serial, memory, file, pty, emulator, tcp or udp 
+   *        "path" : "/dev/pts/4",                        file or pty path 
+   *        "host" : "192.168.1.50",                      tcp and udp.  Device host name or address 
+   *        "port" : 5000,                                tcp and udp.  Device port 
+   *        "reconnect" : 1000,                           tcp and udp.  Milliseconds between connection attempts 
+   *        "connect_timeout" : 1000,                     tcp.  Milliseconds to wait for a connection 
+   *        "datagram" : 1400,                            udp.  Largest datagram in bytes 
+   *        "throttle" : true,                            memory, file, pty and emulator.  Write at the baud rate of the 
+   *                                                      port settings 
+   *        "capture" : 4096,                             memory.  Number of the most recently written bytes to keep 
+   *        "history" : 256,                              emulator.  Number of decoded frames to keep 
+   *        "append" : false                              file.  Append to an existing file 
+   *      }
    *    }
    *  ]
    * 
@@ -184,66 +272,87 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
           continue;
         }
         
-        //..Only load live devices 
-        if ( matchesLiveDevice( dev ))
+        if ( !( o.get( "components" ) instanceof JsonObject ))
         {
-          Logs.info( LOG, "Found device", dev.getName(), "sn:" + dev.getSerial());
-          
-          if ( o.get( "components" ) instanceof JsonObject )
-          {
-            //..need to set the result on the device
-            final List<IComponent> componentList = createComponents( o.getJsonObject( "components" ), deviceIndex );
-            
-            try {
-              
-              final IDevice device = new Device.Builder()
-                .setSerialPort( getLiveDevice( dev ))
-                .setName( dev.getName())
-                .setDescription( dev.getDescription())
-                .setSerial( dev.getSerial())
-                .setSimType( sim )
-                .setComponentList( componentList )
-                .build();
-              
-              for ( final IComponent c : componentList )
-              {
-                softAddressMap.put( c.getAddress(), device );
-              }
-              
-              this.deviceList.add( device );
-              
-            } catch( IllegalArgumentException e ) {
-              Logs.error( LOG, e, "Failed to create Device at config.json.devices index", deviceIndex );
-            } catch( DeviceNotFoundException e ) {
-              Logs.error( LOG, e, "Failed to locate Device at config.json.devices index", deviceIndex, "with name \"", dev.getName(), "\" and serial \"", dev.getSerial(), "\"" );
-            } catch( IOException e ) {
-              Logs.error( LOG, e, "Failed to connect to device at config.json.devices index", deviceIndex, "with name \"", dev.getName(), "\" and serial \"", dev.getSerial(), "\"" );
-            }
-          }
+          Logs.error( LOG, "config.json devices array error at index", deviceIndex, "- components must be an object" );
+          continue;
         }
-        else
+        
+        final List<IComponent> deviceComponents = createComponents( o.getJsonObject( "components" ), deviceIndex );
+        final int index = deviceIndex;
+        final JsonObject linkConfig = ( o.get( "link" ) instanceof JsonObject ) ? o.getJsonObject( "link" ) : JsonValue.EMPTY_JSON_OBJECT;
+        final LinkType linkType = LinkType.fromName( linkConfig.getString( "type", LinkType.SERIAL.getName()));
+        if ( linkType == null )
         {
-          Logs.error( LOG, "Configured device", dev.getName(), "sn:" + dev.getSerial(), "not found - is it plugged in?" );
+          Logs.error( LOG, "config.json devices array error at index", deviceIndex, "- link type must be one of serial, memory, file, pty, emulator, tcp or udp" );
+          continue;
         }
+        
+        //..Serial devices are created when the device manager finds their port.  Virtual devices are created on the 
+        //  first refresh 
+        deviceManager.add( dev, port -> {
+          try {
+            Logs.info( LOG, "Found device", dev.getName(), "sn:" + dev.getSerial());
+            
+            return new Device.Builder()
+              .setLink( createLink( linkType, linkConfig, port, dev, o ))
+              .setName( dev.getName())
+              .setDescription( dev.getDescription())
+              .setSerial( dev.getSerial())
+              .setSimType( sim )
+              .setComponentList( deviceComponents )
+              .setOutputRate( o.getInt( "output_rate", Device.DEFAULT_OUTPUT_RATE ))
+              .setOutputMode( OutputMode.fromName( o.getString( "output_mode", OutputMode.SCHEDULED.getName())))
+              .setEncoding( ValueEncoding.fromName( o.getString( "encoding", ValueEncoding.TEXT.getName())))
+              .setSerialSettings( createSerialSettings( o.get( "port" )))
+              .setProtocolVersion( o.getInt( "protocol", 1 ))
+              .setWindow( o.getInt( "window", ReliableLink.DEFAULT_WINDOW ))
+              .setInputHandlers( inputHandlers )
+              .build();
+          } catch( IllegalArgumentException e ) {
+            throw new IllegalArgumentException( "Failed to create Device at config.json.devices index " + index, e );
+          }
+        }, linkType.isScanned());
+        
+        componentList.addAll( deviceComponents );
       } catch( IllegalArgumentException e ) {
         Logs.error( LOG, e, "config.json devices array entry at index", deviceIndex, "is missing name, serial or description" );
       }
     }
+    
+    //..Enumerate the ports once and connect every configured device that is plugged in 
+    deviceManager.refresh();
   }
 
 
   /**
-   * Locates a device by the unique software address (control id)
+   * Locates a device by the software address (control id).
+   * When the address is mapped on more than one device, the first device in the routing table is returned 
    * @param address
    * @return device or null 
    */
   @Override
   public IDevice findDeviceBySoftwareAddress( final int address )
   {
-    if ( !softAddressMap.containsKey( address ))
-      return null;
-    
-    return softAddressMap.get( address );
+    final List<RoutingTable.Route> routes = routingTable.get( address );
+    return routes.isEmpty() ? null : routes.get( 0 ).getDevice();
+  }
+  
+  
+  @Override
+  public RoutingTable getRoutingTable()
+  {
+    return routingTable;
+  }
+  
+  
+  /**
+   * Replace the routing table with one built from the connected devices 
+   */
+  private synchronized void buildRoutingTable()
+  {
+    routingTable = new RoutingTable( deviceManager.getDeviceList());
+    Logs.debug( LOG, "Routing table rebuilt with", routingTable.size(), "slots" );
   }
 
   
@@ -256,7 +365,7 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
    */
   public IDeviceId getDeviceId( final String serialOrName ) throws DeviceNotFoundException
   {
-    for ( final IDevice entry : deviceList )
+    for ( final IDevice entry : deviceManager.getDeviceList())
     {
       if (( entry.hasSerial() && entry.getSerial().equals( serialOrName ))
         || ( !entry.hasSerial() && entry.getName().equals( serialOrName )))
@@ -289,45 +398,12 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
    */
   public SerialPort getLiveDevice( final IDeviceId dev ) throws DeviceNotFoundException
   {
-    for ( final SerialPort port : SerialPort.getCommPorts())
-    {
-      if ( dev.hasSerial() && port.getSerialNumber().equals( dev.getSerial()))
-      {
-        //..Check that these match 
-        //    sp.setComPortParameters(9600, 8, 1, 0);
-        port.setComPortTimeouts( SerialPort.TIMEOUT_WRITE_BLOCKING, 0, 0 );
-        return port;
-      }
-      else if ( !dev.hasSerial() && port.getDescriptivePortName().equals( dev.getName()))
-      {
-        return port;
-      }
-    }
+    //..Port parameters and timeouts are applied by the device from its serial settings 
+    final SerialPort port = deviceManager.getPortInventory().find( dev );
+    if ( port == null )
+      throw new DeviceNotFoundException();
     
-    throw new DeviceNotFoundException();
-  }
-
-  
-  /**
-   * Test if the device id matches a connected device  
-   * @param dev device id 
-   * @return 
-   */
-  private boolean matchesLiveDevice( final IDeviceId dev )
-  {
-    for ( final SerialPort port : SerialPort.getCommPorts())
-    {
-      if ( dev.hasSerial() && port.getSerialNumber().equals( dev.getSerial()))
-      {
-        return true;
-      }
-      else if ( !dev.hasSerial() && port.getDescriptivePortName().equals( dev.getName()))
-      {
-        return true;
-      }
-    }
-    
-    return false;
+    return port;
   }
   
   
@@ -341,6 +417,21 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
         "address": 1,                                 component hardware address
         "sim": {                                      supported sims object.  this is a constant "sim"
           "dcs": 1                                    Supported sim software address. keys are sim names from SimType. values are controlId from the Control enum in the appropriate package 
+                                                      or "arg:[argument id]" for a cockpit draw argument 
+        },
+        "history": 256,                               optional number of value samples to keep 
+        "smoothing": {                                optional smoothing filter for numeric values 
+          "type": "ema",                              "ema" (exponential moving average) or "sma" (simple moving average)
+          "alpha": 0.25,                              ema smoothing factor 
+          "window": 8,                                sma sample count
+          "scale": 1                                  decimal places to keep 
+        },
+        "scale": 1,                                   optional decimal places kept by binary encoding.  defaults to 1
+        "weight": 1,                                  optional share of the device link when it is saturated. 1-100
+        "action": {                                   optional sim command for toggle, momentary and rotary components 
+          "device": 25,                               sim device id 
+          "command": 3001,                            sim command id 
+          "step": 1                                   value per detent or when on/pressed.  defaults to 1
         }
       }
     }
@@ -392,24 +483,24 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
           continue;
         }
 
-        //..Get the software address
-        final int softwareAddress = c.getInt( "address", -1 );
-        if ( softwareAddress < 0 )
+        //..Get the hardware address
+        final int hardwareAddress = c.getInt( "address", -1 );
+        if ( hardwareAddress < 0 )
         {
-          Logs.error( LOG, "Config section error: devices at index", deviceIndex, "components." + key + "." + componentKey, "at index", index, " - sim software address must be an unsigned integer" );
+          Logs.error( LOG, "Config section error: devices at index", deviceIndex, "components." + key + "." + componentKey, "at index", index, " - hardware address must be an unsigned integer" );
           continue;
         }
 
-        //..Get the hardware address
-        final int hardwareAddress = getHardwareAddressForCurrentSim( c.getJsonObject( "sim" ));
-        if ( hardwareAddress == -2 )
+        //..Get the software address
+        final int softwareAddress = getSoftwareAddressForCurrentSim( c.getJsonObject( "sim" ));
+        if ( softwareAddress == -2 )
         {
           //..Unsupported by the current sim 
           continue;
         }
-        else if ( hardwareAddress < 0 )
+        else if ( softwareAddress < 0 )
         {
-          Logs.error( LOG, "Config section error: devices at index", deviceIndex, "components." + key + "." + componentKey, "at index", index, " - sim hardware address for", sim.getName(), "must be an unsigned integer" );
+          Logs.error( LOG, "Config section error: devices at index", deviceIndex, "components." + key + "." + componentKey, "at index", index, " - sim software address for", sim.getName(), "must be an unsigned integer or arg:[argument id]" );
           continue;
         }
 
@@ -422,6 +513,12 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
             .setDescription( c.getString( "description", "" ))
             .setAddress( softwareAddress )
             .setHardwareAddress( hardwareAddress )
+            //..Gauges are interpolated between the last two samples and always need history 
+            .setHistorySize(( ct == ComponentType.GAUGE ) ? Math.max( GAUGE_HISTORY_SIZE, c.getInt( "history", 0 )) : c.getInt( "history", 0 ))
+            .setSmoothingFilter( createSmoothingFilter( c.get( "smoothing" )))
+            .setScale( c.getInt( "scale", Component.DEFAULT_SCALE ))
+            .setWeight( c.getInt( "weight", Component.DEFAULT_WEIGHT ))
+            .setAction( createInputAction( c.get( "action" )))
             .build();
           
           Logs.info( LOG, "Found component", newComponent.getName(), "-", newComponent.getDescription(), "at address", newComponent.getAddress());
@@ -440,20 +537,210 @@ public class DeviceFactory implements IDeviceLocator, AutoCloseable
   
   
   /**
-   * Test if the component supports the current sim runtime 
+   * Retrieve the software address of the component for the current sim runtime 
+   * The value is either a software address or "arg:[argument id]" for a cockpit draw argument 
    * @param o This is the sim object 
-   * @return 
+   * @return address, -1 if the value is invalid or -2 if the component does not support the current sim 
    */
-  private int getHardwareAddressForCurrentSim( final JsonObject o )
+  private int getSoftwareAddressForCurrentSim( final JsonObject o )
   {
     for ( final String key : o.keySet())
     {
-      if ( sim.getName().equalsIgnoreCase( key ))
-      {
+      if ( !sim.getName().equalsIgnoreCase( key ))
+        continue;
+      
+      final JsonValue v = o.get( key );
+      if ( v instanceof JsonNumber )
         return o.getInt( key, -1 );
+      else if ( !( v instanceof JsonString ))
+        return -1;
+      
+      final String s = ((JsonString)v).getString().trim();
+      if ( !s.startsWith( ARGUMENT_PREFIX ))
+        return -1;
+      
+      try {
+        final int argument = Integer.parseInt( s.substring( ARGUMENT_PREFIX.length()).trim());
+        if ( argument < 0 || argument >= ArgumentStore.DEFAULT_SIZE )
+          return -1;
+        
+        return ArgumentStore.toSoftwareAddress( argument );
+      } catch( NumberFormatException e ) {
+        return -1;
       }
     }
     
     return -2;
   }
+  
+  
+  /**
+   * Create the sim command for an input component 
+   * @param v The action config object 
+   * @return action or null if no action is configured 
+   * @throws IllegalArgumentException if the config is invalid 
+   */
+  private InputAction createInputAction( final JsonValue v ) throws IllegalArgumentException
+  {
+    if ( v == null || v == JsonValue.NULL )
+      return null;
+    else if ( !( v instanceof JsonObject ))
+      throw new IllegalArgumentException( "action must be an object" );
+    
+    final JsonObject o = (JsonObject)v;
+    if ( !( o.get( "device" ) instanceof JsonNumber ) || !( o.get( "command" ) instanceof JsonNumber ))
+      throw new IllegalArgumentException( "action device and command must be numbers" );
+    
+    return new InputAction( o.getInt( "device" ), o.getInt( "command" ), 
+      ( o.get( "step" ) instanceof JsonNumber ) ? o.getJsonNumber( "step" ).doubleValue() : InputAction.DEFAULT_STEP );
+  }
+  
+  
+  /**
+   * Create the smoothing filter for a component 
+   * @param v The smoothing config object 
+   * @return filter or null if smoothing is not configured 
+   * @throws IllegalArgumentException if the config is invalid 
+   */
+  private ISmoothingFilter createSmoothingFilter( final JsonValue v ) throws IllegalArgumentException
+  {
+    if ( v == null || v == JsonValue.NULL )
+      return null;
+    else if ( !( v instanceof JsonObject ))
+      throw new IllegalArgumentException( "smoothing must be an object" );
+    
+    final JsonObject o = (JsonObject)v;
+    final int scale = o.getInt( "scale", 2 );
+    
+    switch( o.getString( "type", "" ).toLowerCase())
+    {
+      case "ema":
+        return new ExponentialMovingAverageFilter(( o.get( "alpha" ) instanceof JsonNumber ) ? o.getJsonNumber( "alpha" ).doubleValue() : 0.25, scale );
+        
+      case "sma":
+        return new MovingAverageFilter( o.getInt( "window", 8 ), scale );
+        
+      default:
+        throw new IllegalArgumentException( "smoothing type must be one of ema or sma" );
+    }
+  }
+  
+  
+  /**
+   * Create the transport for a device 
+   * @param type link type 
+   * @param o The link config object 
+   * @param port The port found by scanning or null for virtual links 
+   * @param dev device id 
+   * @param device The device config object 
+   * @return link 
+   * @throws IllegalArgumentException if the config is invalid 
+   */
+  private IDeviceLink createLink( final LinkType type, final JsonObject o, final SerialPort port, final IDeviceId dev, 
+    final JsonObject device ) throws IllegalArgumentException
+  {
+    final boolean throttle = o.getBoolean( "throttle", false );
+    final String name = dev.getName().isEmpty() ? dev.getSerial() : dev.getName();
+    
+    switch( type )
+    {
+      case MEMORY:
+        return new MemoryLink( name, o.getInt( "capture", MemoryLink.DEFAULT_CAPTURE ), throttle );
+        
+      case EMULATOR:
+        //..The emulated firmware is built with the same settings as the device 
+        return new EmulatorLink( name, ValueEncoding.fromName( device.getString( "encoding", ValueEncoding.TEXT.getName())),
+          device.getInt( "protocol", 1 ), o.getInt( "history", FirmwareEmulator.DEFAULT_HISTORY ), throttle );
+        
+      case FILE:
+        return new FileLink( Paths.get( getLinkPath( o )), o.getBoolean( "append", false ), throttle );
+        
+      case PTY:
+        try {
+          return new SerialLink( SerialPort.getCommPort( getLinkPath( o )), throttle );
+        } catch( SerialPortInvalidPortException e ) {
+          throw new IllegalArgumentException( "link path " + o.getString( "path" ) + " is not a valid port", e );
+        }
+        
+      case TCP:
+        return new TcpLink( getLinkHost( o ), o.getInt( "port", 0 ), o.getInt( "reconnect", NetworkLink.DEFAULT_RECONNECT ),
+          o.getInt( "connect_timeout", TcpLink.DEFAULT_CONNECT_TIMEOUT ));
+        
+      case UDP:
+        return new UdpLink( getLinkHost( o ), o.getInt( "port", 0 ), o.getInt( "reconnect", NetworkLink.DEFAULT_RECONNECT ),
+          o.getInt( "datagram", UdpLink.DEFAULT_DATAGRAM ));
+        
+      default:
+        return new SerialLink( port );
+    }
+  }
+  
+  
+  /**
+   * @param o The link config object 
+   * @return path 
+   * @throws IllegalArgumentException if path is missing 
+   */
+  private String getLinkPath( final JsonObject o ) throws IllegalArgumentException
+  {
+    final String path = o.getString( "path", "" ).trim();
+    if ( path.isEmpty())
+      throw new IllegalArgumentException( "link path must not be empty" );
+    
+    return path;
+  }
+  
+  
+  /**
+   * @param o The link config object 
+   * @return host 
+   * @throws IllegalArgumentException if host is missing 
+   */
+  private String getLinkHost( final JsonObject o ) throws IllegalArgumentException
+  {
+    final String host = o.getString( "host", "" ).trim();
+    if ( host.isEmpty())
+      throw new IllegalArgumentException( "link host must not be empty" );
+    
+    return host;
+  }
+  
+  
+  /**
+   * Create the serial settings for a device 
+   * @param v The port config object 
+   * @return settings 
+   * @throws IllegalArgumentException if the config is invalid 
+   */
+  private SerialSettings createSerialSettings( final JsonValue v ) throws IllegalArgumentException
+  {
+    if ( v == null || v == JsonValue.NULL )
+      return SerialSettings.DEFAULT;
+    else if ( !( v instanceof JsonObject ))
+      throw new IllegalArgumentException( "port must be an object" );
+    
+    final JsonObject o = (JsonObject)v;
+    
+    final Parity parity = Parity.fromName( o.getString( "parity", Parity.NONE.getName()));
+    if ( parity == null )
+      throw new IllegalArgumentException( "port parity must be one of none, odd, even, mark or space" );
+    
+    //..Stop bits may be a number or a string 
+    final String stopBitsName = ( o.get( "stop_bits" ) instanceof JsonNumber ) 
+      ? o.getJsonNumber( "stop_bits" ).bigDecimalValue().stripTrailingZeros().toPlainString() : o.getString( "stop_bits", StopBits.ONE.getName());
+    final StopBits stopBits = StopBits.fromName( stopBitsName );
+    if ( stopBits == null )
+      throw new IllegalArgumentException( "port stop_bits must be one of 1, 1.5 or 2" );
+    
+    return new SerialSettings.Builder()
+      .setBaudRate( o.getInt( "baud", SerialSettings.DEFAULT_BAUD_RATE ))
+      .setDataBits( o.getInt( "data_bits", SerialSettings.DEFAULT_DATA_BITS ))
+      .setParity( parity )
+      .setStopBits( stopBits )
+      .setWriteTimeout( o.getInt( "write_timeout", 0 ))
+      .setSendBufferSize( o.getInt( "send_buffer", 0 ))
+      .setReceiveBufferSize( o.getInt( "receive_buffer", 0 ))
+      .setNegotiatedBaudRate( o.getInt( "negotiate_baud", 0 ))
+      .build();
+  }
 }
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.utils.EventHandlerStack;
+import com.buffalokiwi.utils.IEventHandlerStack;
+import com.buffalokiwi.utils.Logs;
+import com.buffalokiwi.utils.ThrowableFunction;
+import com.fazecast.jSerialComm.SerialPort;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Connects configured devices as they are plugged in and disconnects them when they are removed.
+ * 
+ * Each refresh enumerates the serial ports once into the port inventory, and every configured device is matched 
+ * against that snapshot.  A configured device that appears is created and attached, and an attached device whose port
+ * disappeared is detached and closed.  Run this on a fixed delay to pick up devices that are plugged in or removed 
+ * while the gateway is running.
+ * 
+ * Devices that are not scanned, like virtual devices, are created by the first refresh and stay attached.
+ * 
+ * Attach handlers are called after a device is connected, and detach handlers are called before it is closed.  
+ * Handlers run on the thread calling refresh().
+ */
+public class DeviceManager implements Runnable, AutoCloseable
+{
+  private static final Logger LOG = LogManager.getLogger( DeviceManager.class );
+  
+  
+  /**
+   * A device from the configuration file 
+   */
+  private static final class ConfiguredDevice
+  {
+    private final IDeviceId id;
+    private final ThrowableFunction<SerialPort,IDevice,IOException> creator;
+    private final boolean scanned;
+    
+    //..The connected device or null 
+    private IDevice device = null;
+    
+    //..Errors are logged once until the device connects 
+    private boolean reported = false;
+    
+    private ConfiguredDevice( final IDeviceId id, final ThrowableFunction<SerialPort,IDevice,IOException> creator,
+      final boolean scanned )
+    {
+      this.id = id;
+      this.creator = creator;
+      this.scanned = scanned;
+    }
+  }
+  
+  
+  private final PortInventory inventory = new PortInventory();
+  
+  //..Guarded by this 
+  private final List<ConfiguredDevice> configuredList = new ArrayList<>();
+  
+  private final List<IDevice> deviceList = new CopyOnWriteArrayList<>();
+  private final IEventHandlerStack<IDevice> attachHandlers = new EventHandlerStack<>();
+  private final IEventHandlerStack<IDevice> detachHandlers = new EventHandlerStack<>();
+  
+  
+  /**
+   * Add a configured device.  The device is connected by the next refresh if it is plugged in 
+   * @param id device id 
+   * @param creator Creates the device for a port 
+   */
+  public void add( final IDeviceId id, final ThrowableFunction<SerialPort,IDevice,IOException> creator )
+  {
+    add( id, creator, true );
+  }
+  
+  
+  /**
+   * Add a configured device 
+   * @param id device id 
+   * @param creator Creates the device.  The port is null when the device is not scanned 
+   * @param scanned true if the device is connected when a port matching the id is found.  false to create the device
+   * on the next refresh without a port 
+   */
+  public synchronized void add( final IDeviceId id, final ThrowableFunction<SerialPort,IDevice,IOException> creator, 
+    final boolean scanned )
+  {
+    if ( id == null )
+      throw new IllegalArgumentException( "id must not be null" );
+    else if ( creator == null )
+      throw new IllegalArgumentException( "creator must not be null" );
+    
+    configuredList.add( new ConfiguredDevice( id, creator, scanned ));
+  }
+  
+  
+  /**
+   * @return Connected devices 
+   */
+  public List<IDevice> getDeviceList()
+  {
+    return new ArrayList<>( deviceList );
+  }
+  
+  
+  /**
+   * @return The cached serial port list 
+   */
+  public PortInventory getPortInventory()
+  {
+    return inventory;
+  }
+  
+  
+  /**
+   * Handlers called after a device is connected 
+   * @return handlers 
+   */
+  public IEventHandlerStack<IDevice> getAttachHandlers()
+  {
+    return attachHandlers;
+  }
+  
+  
+  /**
+   * Handlers called before a removed device is closed 
+   * @return handlers 
+   */
+  public IEventHandlerStack<IDevice> getDetachHandlers()
+  {
+    return detachHandlers;
+  }
+  
+  
+  /**
+   * Enumerate the serial ports and attach or detach configured devices 
+   */
+  public synchronized void refresh()
+  {
+    inventory.refresh();
+    
+    for ( final ConfiguredDevice c : configuredList )
+    {
+      if ( !c.scanned )
+      {
+        //..Failures are retried on each refresh, ie: a pty that has not been created yet 
+        if ( c.device == null )
+          attach( c, null );
+        
+        continue;
+      }
+      
+      final SerialPort port = inventory.find( c.id );
+      if ( c.device != null && port == null )
+      {
+        Logs.info( LOG, "Device", c.id.getName(), "sn:" + c.id.getSerial(), "was removed" );
+        detach( c );
+      }
+      else if ( c.device == null && port != null )
+      {
+        attach( c, port );
+      }
+      else if ( c.device == null && !c.reported )
+      {
+        Logs.error( LOG, "Configured device", c.id.getName(), "sn:" + c.id.getSerial(), 
+          "not found - it will be connected when it is plugged in" );
+        c.reported = true;
+      }
+    }
+  }
+  
+  
+  /**
+   * Refresh.  Errors are logged so a scheduled refresh keeps running 
+   */
+  @Override
+  public void run()
+  {
+    try {
+      refresh();
+    } catch( Exception e ) {
+      Logs.error( LOG, e, "Failed to refresh devices" );
+    }
+  }
+  
+  
+  /**
+   * Detach and close every connected device 
+   */
+  @Override
+  public synchronized void close()
+  {
+    for ( final ConfiguredDevice c : configuredList )
+    {
+      if ( c.device != null )
+        detach( c );
+    }
+  }
+  
+  
+  private void attach( final ConfiguredDevice c, final SerialPort port )
+  {
+    try {
+      c.device = c.creator.applyThrows( port );
+    } catch( IOException | IllegalArgumentException e ) {
+      if ( !c.reported )
+        Logs.error( LOG, e, "Failed to connect to device", c.id.getName(), "sn:" + c.id.getSerial());
+      
+      c.reported = true;
+      return;
+    }
+    
+    c.reported = false;
+    deviceList.add( c.device );
+    
+    try {
+      attachHandlers.execute( c.device );
+    } catch( Exception e ) {
+      Logs.error( LOG, e, "Device attach handler failed for", c.id.getName());
+    }
+  }
+  
+  
+  private void detach( final ConfiguredDevice c )
+  {
+    final IDevice device = c.device;
+    c.device = null;
+    c.reported = true;
+    deviceList.remove( device );
+    
+    try {
+      detachHandlers.execute( device );
+    } catch( Exception e ) {
+      Logs.error( LOG, e, "Device detach handler failed for", c.id.getName());
+    }
+    
+    try {
+      device.close();
+    } catch( Exception e ) {
+      Logs.error( LOG, e, "Failed to close device", c.id.getName());
+    }
+  }
+}
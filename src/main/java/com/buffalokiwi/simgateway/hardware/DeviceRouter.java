@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.simgateway.state.ISmoothingFilter;
+import com.buffalokiwi.simgateway.state.IStateEvent;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+
+/**
+ * A batch handler for the StateChangeProcessor that routes state changes to devices.
+ *
+ * Each event is routed with a single lookup in the RoutingTable, which is read once per cycle.  An event is sent to 
+ * every component mapped to its software address, and the value is encoded once for each group of components that 
+ * receive the same bytes.
+ * 
+ * Every event drained during a processor cycle is grouped by device and then by hardware address.  If a component
+ * changes more than once during the cycle, only the newest value is kept.  Each device is then handed a single batch.
+ * 
+ * Numeric values for components with a smoothing filter are added to the filter, and the filtered value is written 
+ * by the SmoothingSettler at the device output rate.
+ * 
+ * Values are encoded into reused buffers without intermediate Strings, and batches are reused between cycles, so 
+ * routing does not allocate once every device has been seen.
+ *
+ * This is not thread safe, and is meant to be called only by the StateChangeProcessor thread.
+ */
+public class DeviceRouter implements Consumer<List<IStateEvent>>
+{
+  /**
+   * Supplies the routing table 
+   */
+  private final IDeviceLocator locator;
+
+  /**
+   * device => batch.
+   * The batches are cleared and reused on every cycle.
+   */
+  private final Map<IDevice,MessageBatch> batchMap = new IdentityHashMap<>();
+  
+  /**
+   * Devices with a non-empty batch during the current cycle 
+   */
+  private final List<IDevice> pendingList = new ArrayList<>();
+
+
+  /**
+   * @param locator Finds devices by software address
+   */
+  public DeviceRouter( final IDeviceLocator locator )
+  {
+    if ( locator == null )
+      throw new IllegalArgumentException( "locator must not be null" );
+
+    this.locator = locator;
+  }
+
+
+  /**
+   * Route a batch of events to the devices
+   * @param events events drained from the event queue
+   */
+  @Override
+  public void accept( final List<IStateEvent> events )
+  {
+    //..The same table is used for the whole cycle 
+    final RoutingTable table = locator.getRoutingTable();
+    
+    for ( int i = 0; i < events.size(); i++ )
+    {
+      final IStateEvent event = events.get( i );
+
+      //..Every component mapped to the software address 
+      final List<RoutingTable.Route> targets = table.get( event.getControl().getSoftwareAddress());
+      
+      //..Length of the bytes in the encoder buffer for the previous route, or -1 if nothing was encoded 
+      int length = -1;
+      
+      for ( int j = 0; j < targets.size(); j++ )
+      {
+        final RoutingTable.Route route = targets.get( j );
+        
+        //..Gauge values are written by the GaugeInterpolator 
+        if ( route.getType() == ComponentType.GAUGE )
+        {
+          length = -1;
+          continue;
+        }
+        
+        final IValueEncoder encoder = route.getEncoder();
+        
+        //..Components that receive the same bytes as the previous component share the encoded value 
+        if ( length < 0 || !route.isSharedEncoding())
+        {
+          //..Numeric values can be smoothed before they are sent.  The SmoothingSettler writes the smoothed value 
+          final IComponent component = route.getComponent();
+          final ISmoothingFilter filter = component.getSmoothingFilter();
+          if ( filter != null && event.getValue() instanceof Number )
+          {
+            filter.update(((Number)event.getValue()).doubleValue());
+            length = -1;
+            continue;
+          }
+          
+          length = encoder.encode( component, event.getValue());
+        }
+
+        final IDevice device = route.getDevice();
+        MessageBatch batch = batchMap.get( device );
+        if ( batch == null )
+        {
+          batch = new MessageBatch();
+          batchMap.put( device, batch );
+        }
+
+        if ( batch.isEmpty())
+          pendingList.add( device );
+
+        //..Newer values for the same component replace older ones.
+        batch.put( route.getHardwareAddress(), encoder.getBuffer(), 0, length );
+      }
+    }
+
+    //..One batch per device
+    for ( int i = 0; i < pendingList.size(); i++ )
+    {
+      final IDevice device = pendingList.get( i );
+      final MessageBatch batch = batchMap.get( device );
+      device.write( batch );
+      batch.clear();
+    }
+    
+    pendingList.clear();
+  }
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.simgateway.state.StateHistory;
+import com.buffalokiwi.utils.Logs;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Writes every device from a shared timer and a shared writer executor instead of one thread per device.
+ * 
+ * Devices are written when they are ready.  SCHEDULED devices are ready at each output interval.  BLOCKING devices 
+ * signal when a message is queued or acknowledgements open the window, and are also ready when the time returned by 
+ * IDevice.service() elapses, ie: a retransmission is due.  Gauges and smoothed components on BLOCKING devices are 
+ * updated by the timer at the output rate.
+ * 
+ * Each device has at most one write in progress.  Signals that arrive during a write are merged into a single 
+ * follow-up write, so a device that is written faster than its link can carry does not build a backlog of tasks.  
+ * Writes to network and virtual links run on the writer executor, which is meant to start a virtual thread per task.
+ * Writes to links that block in native code, ie: jSerialComm ports, run on the native writer executor instead.  A 
+ * virtual thread blocked in a native call pins its carrier, so enough hung serial ports would stop every device.  Each
+ * device has at most one write in progress, so a cached pool of platform threads never holds more threads than there 
+ * are serial devices, and a device whose port write blocks only holds its own thread.
+ * 
+ * This is thread safe.
+ */
+public class DeviceScheduler 
+{
+  private static final Logger LOG = LogManager.getLogger( DeviceScheduler.class );
+  
+  //..Device write states 
+  private static final int IDLE = 0;
+  private static final int RUNNING = 1;
+  private static final int READY_AGAIN = 2;
+  
+  
+  /**
+   * A device and its timers 
+   */
+  private final class Entry 
+  {
+    private final IDevice device;
+    private final GaugeInterpolator interpolator;
+    private final SmoothingSettler settler;
+    private final ExecutorService executor;
+    private final AtomicInteger state = new AtomicInteger( IDLE );
+    
+    //..Output rate ticks for SCHEDULED devices, or gauge and smoothing ticks for BLOCKING devices 
+    private volatile ScheduledFuture<?> tick = null;
+    
+    //..The next service() call for BLOCKING devices.  Only changed by the write in progress 
+    private volatile ScheduledFuture<?> wakeup = null;
+    
+    private volatile boolean removed = false;
+    
+    
+    private Entry( final IDevice device, final GaugeInterpolator interpolator, final SmoothingSettler settler,
+      final ExecutorService executor )
+    {
+      this.device = device;
+      this.interpolator = interpolator;
+      this.settler = settler;
+      this.executor = executor;
+    }
+    
+    
+    /**
+     * @return true if the device has gauges or smoothed components that are updated at the output rate 
+     */
+    private boolean hasTick()
+    {
+      return interpolator != null || settler != null;
+    }
+    
+    
+    /**
+     * Mark the device ready to write.  Starts a write if one is not in progress.  Never blocks 
+     */
+    private void signal()
+    {
+      while ( !removed )
+      {
+        final int s = state.get();
+        if ( s == IDLE )
+        {
+          if ( state.compareAndSet( IDLE, RUNNING ))
+          {
+            try {
+              executor.execute( this::write );
+            } catch( RejectedExecutionException e ) {
+              //..The scheduler is shutting down 
+              state.set( IDLE );
+            }
+            
+            return;
+          }
+        }
+        else if ( s == READY_AGAIN || state.compareAndSet( RUNNING, READY_AGAIN ))
+        {
+          return;
+        }
+      }
+    }
+    
+    
+    private void write()
+    {
+      do
+      {
+        state.set( RUNNING );
+        if ( removed )
+          break;
+        
+        try {
+          if ( device.getOutputMode() == OutputMode.BLOCKING )
+          {
+            schedule( device.service());
+          }
+          else
+          {
+            //..Gauges and smoothed components are updated immediately before each write 
+            if ( interpolator != null )
+              interpolator.run();
+            
+            if ( settler != null )
+              settler.run();
+            
+            device.run();
+          }
+        } catch( Exception e ) {
+          Logs.error( LOG, e, "Failed to write device", device.getName(), "sn:" + device.getSerial());
+        }
+      } while ( !state.compareAndSet( RUNNING, IDLE ));
+    }
+    
+    
+    /**
+     * Call service() again after a delay 
+     * @param delayNanos nanoseconds 
+     */
+    private void schedule( final long delayNanos )
+    {
+      if ( wakeup != null )
+        wakeup.cancel( false );
+      
+      try {
+        wakeup = timer.schedule( this::signal, delayNanos, TimeUnit.NANOSECONDS );
+      } catch( RejectedExecutionException e ) {
+        wakeup = null;
+      }
+    }
+    
+    
+    private void interpolate()
+    {
+      try {
+        if ( interpolator != null )
+          interpolator.run();
+        
+        if ( settler != null )
+          settler.run();
+      } catch( Exception e ) {
+        //..An exception would cancel the tick 
+        Logs.error( LOG, e, "Failed to update gauges and smoothed components for device", device.getName(), 
+          "sn:" + device.getSerial());
+      }
+    }
+    
+    
+    private void cancel()
+    {
+      removed = true;
+      
+      final ScheduledFuture<?> t = tick;
+      if ( t != null )
+        t.cancel( false );
+      
+      final ScheduledFuture<?> w = wakeup;
+      if ( w != null )
+        w.cancel( false );
+    }
+  }
+  
+  
+  private final ScheduledExecutorService timer;
+  private final ExecutorService writers;
+  private final ExecutorService nativeWriters;
+  private final StateHistory history;
+  private final Map<IDevice,Entry> entries = new ConcurrentHashMap<>();
+  
+  
+  /**
+   * @param timer Shared timer.  Timer tasks never block 
+   * @param writers Runs device writes.  ie: Executors.newVirtualThreadPerTaskExecutor()
+   * @param nativeWriters Runs writes to links that block in native code.  ie: Executors.newCachedThreadPool()
+   * @param history value history used to interpolate gauges 
+   */
+  public DeviceScheduler( final ScheduledExecutorService timer, final ExecutorService writers, 
+    final ExecutorService nativeWriters, final StateHistory history )
+  {
+    if ( timer == null )
+      throw new IllegalArgumentException( "timer must not be null" );
+    else if ( writers == null )
+      throw new IllegalArgumentException( "writers must not be null" );
+    else if ( nativeWriters == null )
+      throw new IllegalArgumentException( "nativeWriters must not be null" );
+    else if ( history == null )
+      throw new IllegalArgumentException( "history must not be null" );
+    
+    this.timer = timer;
+    this.writers = writers;
+    this.nativeWriters = nativeWriters;
+    this.history = history;
+  }
+  
+  
+  /**
+   * Start writing a device 
+   * @param device device 
+   */
+  public void add( final IDevice device )
+  {
+    if ( device == null )
+      throw new IllegalArgumentException( "device must not be null" );
+    
+    final GaugeInterpolator interpolator = new GaugeInterpolator( device, history );
+    final SmoothingSettler settler = new SmoothingSettler( device );
+    final Entry entry = new Entry( device, interpolator.hasGauges() ? interpolator : null, 
+      settler.hasComponents() ? settler : null, device.getLink().hasNativeWrites() ? nativeWriters : writers );
+    if ( entries.putIfAbsent( device, entry ) != null )
+      return;
+    
+    final long period = 1_000_000_000L / device.getOutputRate();
+    
+    if ( device.getOutputMode() == OutputMode.BLOCKING )
+    {
+      //..Messages are written as soon as they are queued.  Gauges and smoothed components are still updated at the 
+      //  output rate 
+      device.setReadyHandler( entry::signal );
+      if ( entry.hasTick())
+        entry.tick = timer.scheduleAtFixedRate( entry::interpolate, 0, period, TimeUnit.NANOSECONDS );
+      
+      entry.signal();
+    }
+    else
+    {
+      //..Devices are written at their configured output rate 
+      entry.tick = timer.scheduleAtFixedRate( entry::signal, 0, period, TimeUnit.NANOSECONDS );
+    }
+  }
+  
+  
+  /**
+   * Stop writing a device.  A write in progress is allowed to finish 
+   * @param device device 
+   */
+  public void remove( final IDevice device )
+  {
+    final Entry entry = entries.remove( device );
+    if ( entry == null )
+      return;
+    
+    device.setReadyHandler( null );
+    entry.cancel();
+  }
+  
+  
+  /**
+   * @return Number of devices being written 
+   */
+  public int size()
+  {
+    return entries.size();
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * A frame as the emulated firmware received it 
+ */
+public class EmulatedFrame 
+{
+  private final int address;
+  private final String text;
+  private final long startNanos;
+  private final long endNanos;
+  private final long visibleNanos;
+  private final Set<FrameDefect> defects;
+  
+  
+  /**
+   * @param address Hardware address the gateway sent 
+   * @param text Characters shown on the display, or null if the frame did not update the display 
+   * @param startNanos System.nanoTime() when the first byte of the frame started on the wire 
+   * @param endNanos System.nanoTime() when the firmware read the last byte of the frame 
+   * @param visibleNanos System.nanoTime() when the display finished updating, or 0 
+   * @param defects Ways the firmware mishandled the frame 
+   */
+  public EmulatedFrame( final int address, final String text, final long startNanos, final long endNanos, 
+    final long visibleNanos, final Set<FrameDefect> defects )
+  {
+    if ( defects == null )
+      throw new IllegalArgumentException( "defects must not be null" );
+    
+    this.address = address;
+    this.text = text;
+    this.startNanos = startNanos;
+    this.endNanos = endNanos;
+    this.visibleNanos = visibleNanos;
+    this.defects = Collections.unmodifiableSet( defects.isEmpty() ? EnumSet.noneOf( FrameDefect.class ) : EnumSet.copyOf( defects ));
+  }
+  
+  
+  /**
+   * @return Hardware address the gateway sent, or -1 if the frame did not contain an address 
+   */
+  public int getAddress()
+  {
+    return address;
+  }
+  
+  
+  /**
+   * @return Characters shown on the display, or null if the frame did not update the display 
+   */
+  public String getText()
+  {
+    return text;
+  }
+  
+  
+  public boolean isDisplayed()
+  {
+    return text != null;
+  }
+  
+  
+  /**
+   * @return System.nanoTime() when the first byte of the frame started on the wire 
+   */
+  public long getStartNanos()
+  {
+    return startNanos;
+  }
+  
+  
+  /**
+   * @return System.nanoTime() when the firmware read the last byte of the frame 
+   */
+  public long getEndNanos()
+  {
+    return endNanos;
+  }
+  
+  
+  /**
+   * @return System.nanoTime() when the display finished updating, or 0 if the frame did not update the display 
+   */
+  public long getVisibleNanos()
+  {
+    return visibleNanos;
+  }
+  
+  
+  /**
+   * Retrieve the time from the first byte leaving the gateway until the value is visible 
+   * @return nanoseconds or 0 if the frame did not update the display 
+   */
+  public long getLatencyNanos()
+  {
+    return isDisplayed() ? visibleNanos - startNanos : 0;
+  }
+  
+  
+  public Set<FrameDefect> getDefects()
+  {
+    return defects;
+  }
+  
+  
+  @Override
+  public String toString()
+  {
+    return "hw " + address + (( text == null ) ? " not displayed" : " \"" + text + "\" in " 
+      + String.format( "%.3fms", getLatencyNanos() / 1_000_000.0 )) + ( defects.isEmpty() ? "" : " " + defects );
+  }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A link to an emulated lcdproto.ino board.  
+ * 
+ * Everything the device writes is decoded by a FirmwareEmulator, and the acknowledgements and replies it sends are 
+ * delivered to the device when they would arrive, so protocol version 2 devices run without hardware.  
+ */
+public final class EmulatorLink extends VirtualLink
+{
+  /**
+   * Passes the device output to the emulator 
+   */
+  private final class Sink extends OutputStream
+  {
+    @Override
+    public void write( final int b )
+    {
+      emulator.receive( new byte[] {(byte)b }, 0, 1, System.nanoTime());
+    }
+    
+    
+    @Override
+    public void write( final byte[] b, final int off, final int len )
+    {
+      emulator.receive( b, off, len, System.nanoTime());
+    }
+  }
+  
+  
+  /**
+   * Delivers replies for every emulated device at the time they arrive 
+   */
+  private static final ScheduledExecutorService REPLY_EXECUTOR = Executors.newSingleThreadScheduledExecutor( r -> {
+    final Thread t = new Thread( r, "Firmware emulator replies" );
+    t.setDaemon( true );
+    return t;
+  });
+  
+  private final String name;
+  private final FirmwareEmulator emulator;
+  
+  
+  /**
+   * @param name name used in the description 
+   * @param encoding Device encoding.  The emulated firmware uses the same setting 
+   * @param protocolVersion Device protocol version.  The emulated firmware uses the same setting 
+   * @param history Number of frames kept 
+   * @param throttle Block writes for the time the configured baud rate would take to send them
+   */
+  public EmulatorLink( final String name, final ValueEncoding encoding, final int protocolVersion, 
+    final int history, final boolean throttle )
+  {
+    super( throttle );
+    
+    if ( name == null )
+      throw new IllegalArgumentException( "name must not be null" );
+    
+    this.name = name;
+    emulator = new FirmwareEmulator( encoding, protocolVersion, history, this::deliver );
+  }
+  
+  
+  /**
+   * @return The emulated firmware 
+   */
+  public FirmwareEmulator getEmulator()
+  {
+    return emulator;
+  }
+  
+  
+  @Override
+  public String getDescription()
+  {
+    return "emulator:" + name;
+  }
+  
+  
+  @Override
+  public synchronized boolean open( final SerialSettings settings )
+  {
+    emulator.setBaudRate( settings.getBaudRate(), settings.getBitsPerByte());
+    return super.open( settings );
+  }
+  
+  
+  @Override
+  protected int getSupportedBaudRate( final SerialSettings settings )
+  {
+    //..The gateway tries rates from fastest to slowest, so it settles on the fastest rate the firmware accepts 
+    final int rate = Math.min( settings.getNegotiatedBaudRate(), FirmwareEmulator.MAX_BAUD );
+    final int supported = emulator.isSupported( rate ) ? rate : settings.getBaudRate();
+    emulator.setBaudRate( supported, settings.getBitsPerByte());
+    return supported;
+  }
+  
+  
+  @Override
+  protected OutputStream openStream()
+  {
+    return new Sink();
+  }
+  
+  
+  /**
+   * Deliver a line sent by the firmware 
+   * @param line line 
+   * @param arrivalNanos System.nanoTime() when the line finishes arriving 
+   */
+  private void deliver( final byte[] line, final long arrivalNanos )
+  {
+    //..Replies for a closed link are dropped 
+    REPLY_EXECUTOR.schedule(() -> { 
+      if ( isOpen())
+        receive( line, line.length ); 
+    }, arrivalNanos - System.nanoTime(), TimeUnit.NANOSECONDS );
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+
+/**
+ * A link that writes the device output to a file 
+ */
+public class FileLink extends VirtualLink
+{
+  private final Path path;
+  private final boolean append;
+  
+  
+  /**
+   * @param path file 
+   * @param append Add to the end of an existing file instead of replacing it 
+   * @param throttle Block writes for the time the configured baud rate would take to send them
+   */
+  public FileLink( final Path path, final boolean append, final boolean throttle )
+  {
+    super( throttle );
+    
+    if ( path == null )
+      throw new IllegalArgumentException( "path must not be null" );
+    
+    this.path = path;
+    this.append = append;
+  }
+  
+  
+  @Override
+  public String getDescription()
+  {
+    return "file:" + path;
+  }
+  
+  
+  @Override
+  protected OutputStream openStream() throws IOException
+  {
+    return new FileOutputStream( path.toFile(), append );
+  }
+}
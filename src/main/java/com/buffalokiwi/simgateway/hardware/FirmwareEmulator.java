@@ -0,0 +1,918 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.utils.Logs;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Emulates the receiver in lcdproto.ino.
+ * 
+ * Bytes written by the gateway are fed through the same state machines as the firmware (text, binary or protocol 
+ * version 2, including the quirks of the text reader) one byte at a time, at the time each byte would arrive at the 
+ * emulated baud rate.  The firmware reads one byte per loop, does not read while it writes the LCD, and loses bytes 
+ * that arrive when the 64 byte receive buffer is full.
+ * 
+ * Each frame is recorded with the time its first byte started on the wire, the time the display finished updating, 
+ * and any way the firmware mishandled it, ie: a payload that was truncated or a value that was clipped on the 
+ * display.  Acknowledgements and control replies are sent to the reply handler with the time they would arrive at the 
+ * gateway.
+ * 
+ * This is thread safe.
+ */
+public class FirmwareEmulator 
+{
+  private static final Logger LOG = LogManager.getLogger( FirmwareEmulator.class );
+  
+  /**
+   * Max bytes in the text section of the message 
+   */
+  public static final int VALUE_BYTES = 0x10;
+  
+  /**
+   * Number of characters writeValueToLCD() shows 
+   */
+  public static final int DISPLAY_CHARS = 8;
+  
+  /**
+   * Arduino Uno HardwareSerial receive buffer size 
+   */
+  public static final int RECEIVE_BUFFER = 64;
+  
+  /**
+   * Lowest and highest baud rates the firmware accepts 
+   */
+  public static final int SAFE_BAUD = 9600;
+  public static final int MAX_BAUD = 115200;
+  
+  /**
+   * Time writeValueToLCD() takes.  LiquidCrystal waits about 100 microseconds per nibble, and the firmware sends a 
+   * cursor command and a character for each of the 8 positions 
+   */
+  public static final long DEFAULT_DISPLAY_NANOS = TimeUnit.MICROSECONDS.toNanos( 3400 );
+  
+  /**
+   * Default number of frames kept 
+   */
+  public static final int DEFAULT_HISTORY = 256;
+  
+  private static final int HEADER_BYTES = 0x3;
+  private static final int FOOTER_BYTES = 0x2;
+  private static final int MAX_BYTES = HEADER_BYTES + VALUE_BYTES + FOOTER_BYTES;
+  private static final int CONTROL_ADDRESS = 0xFF;
+  private static final long BAUD_CONFIRM_NANOS = TimeUnit.MILLISECONDS.toNanos( 1000 );
+  
+  //..The message processing loop states 
+  private static final int STATE_NONE = 0x1;
+  private static final int STATE_GET_HARDWARE_ADDRESS = 0x2;
+  private static final int STATE_GET_PAYLOAD = 0x3;
+  private static final int STATE_IN_MESSAGE = 0x4;
+  private static final int STATE_GET_CHECKSUM = 0x5;
+  
+  //..Parts of the frame sent by the gateway 
+  private static final int PART_HEADER = 0;
+  private static final int PART_PAYLOAD = 1;
+  private static final int PART_TRAILER = 2;
+  
+  private final ValueEncoding encoding;
+  private final int protocolVersion;
+  private final boolean stuffed;
+  private final long displayNanos;
+  private final int history;
+  private final ObjLongConsumer<byte[]> replyHandler;
+  
+  //..Firmware state.  Names match lcdproto.ino 
+  private final byte[] header = new byte[HEADER_BYTES];
+  private final byte[] value = new byte[VALUE_BYTES];
+  private int curState = STATE_NONE;
+  private int hardwareAddress = 0;
+  private int readIndex = 0;
+  private int headerIndex = 0;
+  private int valueIndex = 0;
+  private boolean binaryEscape = false;
+  private final int[] frameHeader = new int[2];
+  private int frameHeaderCount = 0;
+  private int frameCrc = 0;
+  private int frameChecksum = 0;
+  private boolean hasChecksum = false;
+  private int ackBase = 0;
+  private int ackBits = 0;
+  private int currentBaud = SAFE_BAUD;
+  private boolean baudPending = false;
+  private long baudChangedAt = 0;
+  
+  //..Link timing 
+  private int bitsPerByte = SerialSettings.DEFAULT.getBitsPerByte();
+  private long byteNanos;
+  
+  //..When the last byte from the gateway finished arriving 
+  private long receiveIdleAt = 0;
+  
+  //..When the last reply finished sending 
+  private long replyIdleAt = 0;
+  
+  //..When the firmware is done with the previous byte 
+  private long busyUntil = 0;
+  
+  //..Ring of the times bytes waiting in the receive buffer are read 
+  private final long[] readAt = new long[RECEIVE_BUFFER];
+  private int readAtStart = 0;
+  private int buffered = 0;
+  
+  //..The frame the gateway is sending 
+  private boolean inFrame = false;
+  private int part = PART_HEADER;
+  private boolean escape = false;
+  private int sentHeaderCount = 0;
+  private int sentAddress = -1;
+  private final byte[] sent = new byte[256];
+  private int sentLength = 0;
+  private long frameStart = 0;
+  private final EnumSet<FrameDefect> frameDefects = EnumSet.noneOf( FrameDefect.class );
+  private boolean frameHandled = false;
+  private int appliedLength = 0;
+  private String frameText = null;
+  private long frameVisible = 0;
+  
+  //..Results 
+  private final ArrayDeque<EmulatedFrame> frames = new ArrayDeque<>();
+  private final long[] defectCounts = new long[FrameDefect.values().length];
+  private long frameCount = 0;
+  private long displayCount = 0;
+  private long latencyTotal = 0;
+  private long latencyMax = 0;
+  
+  
+  /**
+   * @param encoding Firmware BINARY_ENCODING setting 
+   * @param protocolVersion Firmware PROTOCOL_VERSION setting.  1 or 2 
+   * @param history Number of frames kept 
+   * @param replyHandler Receives each line sent by the firmware and the System.nanoTime() it finishes arriving 
+   */
+  public FirmwareEmulator( final ValueEncoding encoding, final int protocolVersion, final int history, 
+    final ObjLongConsumer<byte[]> replyHandler )
+  {
+    this( encoding, protocolVersion, history, DEFAULT_DISPLAY_NANOS, replyHandler );
+  }
+  
+  
+  /**
+   * @param encoding Firmware BINARY_ENCODING setting 
+   * @param protocolVersion Firmware PROTOCOL_VERSION setting.  1 or 2 
+   * @param history Number of frames kept 
+   * @param displayNanos Time taken to write the display 
+   * @param replyHandler Receives each line sent by the firmware and the System.nanoTime() it finishes arriving 
+   */
+  public FirmwareEmulator( final ValueEncoding encoding, final int protocolVersion, final int history, 
+    final long displayNanos, final ObjLongConsumer<byte[]> replyHandler )
+  {
+    if ( encoding == null )
+      throw new IllegalArgumentException( "encoding must not be null" );
+    else if ( protocolVersion != 1 && protocolVersion != 2 )
+      throw new IllegalArgumentException( "protocolVersion must be 1 or 2" );
+    else if ( history < 0 )
+      throw new IllegalArgumentException( "history must be an unsigned integer" );
+    else if ( displayNanos < 0 )
+      throw new IllegalArgumentException( "displayNanos must be an unsigned integer" );
+    else if ( replyHandler == null )
+      throw new IllegalArgumentException( "replyHandler must not be null" );
+    
+    this.encoding = encoding;
+    this.protocolVersion = protocolVersion;
+    this.stuffed = protocolVersion == 2 || encoding == ValueEncoding.BINARY;
+    this.displayNanos = displayNanos;
+    this.history = history;
+    this.replyHandler = replyHandler;
+    byteNanos = (long)bitsPerByte * 1_000_000_000L / SAFE_BAUD;
+  }
+  
+  
+  /**
+   * Set the link speed.  Called by the link when the port is opened or the rate is negotiated 
+   * @param baudRate bits per second 
+   * @param bitsPerByte Bit times used to send one data byte 
+   */
+  public synchronized void setBaudRate( final int baudRate, final int bitsPerByte )
+  {
+    if ( bitsPerByte < 1 )
+      throw new IllegalArgumentException( "bitsPerByte must be greater than zero" );
+    else if ( baudRate < bitsPerByte )
+      throw new IllegalArgumentException( "baudRate must be at least bitsPerByte" );
+    
+    this.bitsPerByte = bitsPerByte;
+    currentBaud = baudRate;
+    byteNanos = (long)bitsPerByte * 1_000_000_000L / baudRate;
+  }
+  
+  
+  /**
+   * @param baudRate bits per second 
+   * @return true if handleControlMessage() accepts the rate 
+   */
+  public boolean isSupported( final int baudRate )
+  {
+    return baudRate >= SAFE_BAUD && baudRate <= MAX_BAUD;
+  }
+  
+  
+  /**
+   * Receive bytes written by the gateway 
+   * @param b bytes 
+   * @param off offset 
+   * @param len length 
+   * @param sentNanos System.nanoTime() when the bytes were written 
+   */
+  public synchronized void receive( final byte[] b, final int off, final int len, final long sentNanos )
+  {
+    for ( int i = off; i < off + len; i++ )
+    {
+      receive( b[i], sentNanos );
+    }
+  }
+  
+  
+  /**
+   * Send an input line as if a switch changed 
+   * @param address input hardware address 
+   * @param inputValue value 
+   */
+  public synchronized void sendInput( final int address, final int inputValue )
+  {
+    reply( "I" + address + "," + inputValue, System.nanoTime());
+  }
+  
+  
+  /**
+   * @return Frames received 
+   */
+  public synchronized long getFrameCount()
+  {
+    return frameCount;
+  }
+  
+  
+  /**
+   * @return Frames that updated the display 
+   */
+  public synchronized long getDisplayCount()
+  {
+    return displayCount;
+  }
+  
+  
+  /**
+   * @return Average time from the first byte of a frame leaving the gateway until the display is updated in 
+   * milliseconds 
+   */
+  public synchronized double getAverageLatency()
+  {
+    return ( displayCount == 0 ) ? 0 : latencyTotal / (double)displayCount / 1_000_000.0;
+  }
+  
+  
+  /**
+   * @return Longest time from the first byte of a frame leaving the gateway until the display is updated in 
+   * milliseconds 
+   */
+  public synchronized double getMaxLatency()
+  {
+    return latencyMax / 1_000_000.0;
+  }
+  
+  
+  /**
+   * @param defect defect 
+   * @return Number of frames with the defect 
+   */
+  public synchronized long getDefectCount( final FrameDefect defect )
+  {
+    return defectCounts[defect.ordinal()];
+  }
+  
+  
+  /**
+   * @return The newest frames, oldest first 
+   */
+  public synchronized List<EmulatedFrame> getFrames()
+  {
+    return new ArrayList<>( frames );
+  }
+  
+  
+  /**
+   * Discard the recorded frames and reset the counters 
+   */
+  public synchronized void clear()
+  {
+    frames.clear();
+    for ( int i = 0; i < defectCounts.length; i++ )
+    {
+      defectCounts[i] = 0;
+    }
+    
+    frameCount = 0;
+    displayCount = 0;
+    latencyTotal = 0;
+    latencyMax = 0;
+  }
+  
+  
+  private void receive( final byte input, final long sentNanos )
+  {
+    final long arrival = Math.max( receiveIdleAt, sentNanos ) + byteNanos;
+    receiveIdleAt = arrival;
+    
+    //..A text address is not stuffed, so it may equal a framing byte 
+    final boolean framing = !( !stuffed && inFrame && part == PART_HEADER && sentHeaderCount == 0 );
+    
+    if ( framing && input == Message.NESSAGE_START )
+      beginFrame( arrival - byteNanos );
+    else
+      track( input );
+    
+    //..Bytes read before this one arrived leave the buffer 
+    while ( buffered > 0 && readAt[readAtStart] <= arrival )
+    {
+      readAtStart = ( readAtStart + 1 ) % RECEIVE_BUFFER;
+      buffered--;
+    }
+    
+    if ( buffered == RECEIVE_BUFFER )
+    {
+      defect( FrameDefect.OVERRUN );
+    }
+    else
+    {
+      final long now = Math.max( arrival, busyUntil );
+      busyUntil = now;
+      readAt[( readAtStart + buffered ) % RECEIVE_BUFFER] = now;
+      buffered++;
+      loop( input & 0xFF, now );
+    }
+    
+    if ( framing && input == Message.MESSAGE_END && inFrame )
+      endFrame( busyUntil );
+  }
+  
+  
+  /**
+   * One pass of loop() in lcdproto.ino 
+   * @param input byte read 
+   * @param now System.nanoTime() the byte is read 
+   */
+  private void loop( final int input, final long now )
+  {
+    if ( baudPending && now - baudChangedAt > BAUD_CONFIRM_NANOS )
+    {
+      //..The gateway did not confirm the new rate 
+      setBaudRate( SAFE_BAUD, bitsPerByte );
+      baudPending = false;
+      resetMessageState();
+    }
+    
+    if ( protocolVersion == 2 )
+      readFrame( input, now );
+    else if ( encoding == ValueEncoding.BINARY )
+      readBinary( input, now );
+    else
+      readText( input, now );
+  }
+  
+  
+  /**
+   * The text reader.  This is a copy of the firmware, including the parts that do not do what the comments say 
+   */
+  private void readText( final int input, final long now )
+  {
+    if ( curState == STATE_NONE && input == Message.NESSAGE_START )
+    {
+      resetMessageState();
+      curState = STATE_GET_HARDWARE_ADDRESS;
+    }
+    else if ( curState == STATE_GET_HARDWARE_ADDRESS && input != Message.TEXT_START )
+    {
+      hardwareAddress = curState;
+    }
+    else if ( curState == STATE_GET_HARDWARE_ADDRESS && input == Message.TEXT_START )
+    {
+      curState = STATE_GET_PAYLOAD;
+    }
+    else if ( curState == STATE_GET_PAYLOAD && ( input == Message.TEXT_END || valueIndex >= VALUE_BYTES - 1 ))
+    {
+      curState = STATE_IN_MESSAGE;
+    }
+    else if ( curState == STATE_GET_PAYLOAD )
+    {
+      //..value[readIndex] is written with the header offset, so it runs off the end of the buffer 
+      if ( readIndex < VALUE_BYTES )
+        value[readIndex] = (byte)input;
+      else
+        defect( FrameDefect.OVERFLOW );
+    }
+    else if ( curState == STATE_IN_MESSAGE && input == Message.MESSAGE_END )
+    {
+      //..header[1] holds the hardware address byte 
+      if (( header[1] & 0xFF ) == CONTROL_ADDRESS )
+        handleControlMessage( header[1] & 0xFF, now );
+      else
+        writeValueToLCD( header[1] & 0xFF, now );
+      
+      resetMessageState();
+    }
+    
+    //..Read index position determines which array is written 
+    if ( readIndex < HEADER_BYTES )
+    {
+      if ( headerIndex < HEADER_BYTES )
+        header[headerIndex] = (byte)input;
+      else
+        defect( FrameDefect.OVERFLOW );
+      
+      headerIndex++;
+    }
+    else if ( readIndex < VALUE_BYTES && curState == STATE_GET_PAYLOAD )
+    {
+      value[valueIndex++] = (byte)input;
+    }
+    
+    readIndex = ( readIndex + 1 ) & 0xFF;
+    
+    if ( readIndex >= MAX_BYTES )
+    {
+      curState = STATE_IN_MESSAGE;
+      defect( FrameDefect.EARLY_DISPLAY );
+      writeValueToLCD( header[1] & 0xFF, busyUntil );
+    }
+  }
+  
+  
+  /**
+   * The binary encoding reader 
+   */
+  private void readBinary( int input, final long now )
+  {
+    if ( input == Message.NESSAGE_START )
+    {
+      resetMessageState();
+      curState = STATE_GET_HARDWARE_ADDRESS;
+      return;
+    }
+    else if ( curState == STATE_NONE )
+      return;
+    else if ( input == Message.TEXT_START && curState == STATE_GET_HARDWARE_ADDRESS )
+    {
+      curState = STATE_GET_PAYLOAD;
+      return;
+    }
+    else if ( input == Message.TEXT_END && curState == STATE_GET_PAYLOAD )
+    {
+      curState = STATE_IN_MESSAGE;
+      return;
+    }
+    else if ( input == Message.MESSAGE_END )
+    {
+      if ( curState == STATE_IN_MESSAGE )
+        applyBinaryMessage( now );
+      
+      resetMessageState();
+      return;
+    }
+    else if ( input == Message.DLE )
+    {
+      binaryEscape = true;
+      return;
+    }
+    
+    if ( binaryEscape )
+    {
+      input ^= Message.STUFF_MASK;
+      binaryEscape = false;
+    }
+    
+    if ( curState == STATE_GET_HARDWARE_ADDRESS )
+      hardwareAddress = input;
+    else if ( curState == STATE_GET_PAYLOAD && valueIndex < VALUE_BYTES )
+      value[valueIndex++] = (byte)input;
+  }
+  
+  
+  /**
+   * The protocol version 2 reader 
+   */
+  private void readFrame( int input, final long now )
+  {
+    if ( input == Message.NESSAGE_START )
+    {
+      resetMessageState();
+      curState = STATE_GET_HARDWARE_ADDRESS;
+      return;
+    }
+    else if ( curState == STATE_NONE )
+      return;
+    else if ( input == Message.TEXT_START && curState == STATE_GET_HARDWARE_ADDRESS )
+    {
+      curState = STATE_GET_PAYLOAD;
+      return;
+    }
+    else if ( input == Message.TEXT_END && curState == STATE_GET_PAYLOAD )
+    {
+      curState = STATE_GET_CHECKSUM;
+      return;
+    }
+    else if ( input == Message.MESSAGE_END )
+    {
+      if ( curState == STATE_GET_CHECKSUM )
+        applyFrame( now );
+      
+      resetMessageState();
+      return;
+    }
+    else if ( input == Message.DLE )
+    {
+      binaryEscape = true;
+      return;
+    }
+    
+    if ( binaryEscape )
+    {
+      input ^= Message.STUFF_MASK;
+      binaryEscape = false;
+    }
+    
+    if ( curState == STATE_GET_HARDWARE_ADDRESS && frameHeaderCount < 2 )
+    {
+      frameHeader[frameHeaderCount++] = input;
+      frameCrc = Message.crc8( frameCrc, (byte)input );
+    }
+    else if ( curState == STATE_GET_PAYLOAD )
+    {
+      //..Payload bytes that do not fit are dropped, but still count toward the checksum 
+      if ( valueIndex < VALUE_BYTES )
+        value[valueIndex++] = (byte)input;
+      
+      frameCrc = Message.crc8( frameCrc, (byte)input );
+    }
+    else if ( curState == STATE_GET_CHECKSUM )
+    {
+      frameChecksum = input;
+      hasChecksum = true;
+    }
+  }
+  
+  
+  private void applyFrame( final long now )
+  {
+    if ( frameHeaderCount == 1 && !hasChecksum )
+    {
+      //..Version 1 control message 
+      hardwareAddress = frameHeader[0];
+      if ( hardwareAddress == CONTROL_ADDRESS )
+        handleControlMessage( hardwareAddress, now );
+      
+      return;
+    }
+    
+    //..Corrupt frames are ignored.  The gateway sends them again 
+    if ( frameHeaderCount != 2 || !hasChecksum || frameCrc != frameChecksum )
+    {
+      defect( FrameDefect.BAD_CHECKSUM );
+      return;
+    }
+    
+    final int sequence = frameHeader[0];
+    hardwareAddress = frameHeader[1];
+    
+    final boolean isSync = ( hardwareAddress == CONTROL_ADDRESS && valueIndex == 1 && value[0] == 'S' );
+    
+    if ( acceptSequence( sequence, isSync ) && !isSync )
+    {
+      if ( encoding == ValueEncoding.BINARY )
+        applyBinaryMessage( now );
+      else if ( hardwareAddress == CONTROL_ADDRESS )
+        handleControlMessage( hardwareAddress, now );
+      else
+        writeValueToLCD( hardwareAddress, now );
+    }
+    else
+    {
+      //..Sync frames and frames received before are handled without being applied 
+      frameHandled = true;
+    }
+    
+    sendAck( now );
+  }
+  
+  
+  private boolean acceptSequence( final int sequence, final boolean isSync )
+  {
+    if ( isSync )
+    {
+      ackBase = ( sequence + 1 ) & 0xFF;
+      ackBits = 0;
+      return true;
+    }
+    
+    final int distance = ( sequence - ackBase ) & 0xFF;
+    if ( distance == 0 )
+    {
+      //..Move past this frame and every frame already received after it 
+      boolean received;
+      do
+      {
+        ackBase = ( ackBase + 1 ) & 0xFF;
+        received = ( ackBits & 1 ) != 0;
+        ackBits >>>= 1;
+      } while ( received );
+      
+      return true;
+    }
+    else if ( distance <= 32 )
+    {
+      final int mask = 1 << ( distance - 1 );
+      if (( ackBits & mask ) != 0 )
+        return false;
+      
+      ackBits |= mask;
+      return true;
+    }
+    
+    //..Received before the current ackBase 
+    return false;
+  }
+  
+  
+  private void sendAck( final long now )
+  {
+    reply( "A" + ackBase + "," + Integer.toHexString( ackBits ).toUpperCase(), now );
+  }
+  
+  
+  private void applyBinaryMessage( final long now )
+  {
+    if ( hardwareAddress == CONTROL_ADDRESS )
+      handleControlMessage( hardwareAddress, now );
+    else
+      writeValueToLCD( hardwareAddress, now );
+  }
+  
+  
+  private void handleControlMessage( final int address, final long now )
+  {
+    applied( address );
+    
+    if ( valueIndex < 2 || value[0] != 'B' )
+      return;
+    
+    if ( value[1] == '?' )
+    {
+      baudPending = false;
+      reply( "B" + currentBaud, now );
+      return;
+    }
+    
+    long rate = 0;
+    for ( int i = 1; i < valueIndex; i++ )
+    {
+      if ( value[i] < '0' || value[i] > '9' )
+      {
+        rate = 0;
+        break;
+      }
+      
+      rate = rate * 10 + ( value[i] - '0' );
+    }
+    
+    if ( !isSupported((int)Math.min( rate, Integer.MAX_VALUE )))
+    {
+      reply( "N", now );
+      return;
+    }
+    
+    reply( "B" + rate, now );
+    
+    //..Serial.flush() waits for the reply to leave before changing the rate 
+    busyUntil = Math.max( busyUntil, replyIdleAt );
+    setBaudRate((int)rate, bitsPerByte );
+    baudPending = ( rate != SAFE_BAUD );
+    baudChangedAt = busyUntil;
+  }
+  
+  
+  private void writeValueToLCD( final int address, final long now )
+  {
+    final StringBuilder text = new StringBuilder( DISPLAY_CHARS );
+    for ( int i = 0; i < DISPLAY_CHARS; i++ )
+    {
+      if ( i >= valueIndex || value[i] == 0 )
+        text.append( ' ' );
+      else
+        text.append((char)( value[i] & 0xFF ));
+    }
+    
+    busyUntil = Math.max( busyUntil, now ) + displayNanos;
+    
+    //..The text reader may write the display more than once for a frame.  The first write is when the value appears 
+    if ( inFrame && frameText == null )
+    {
+      applied( address );
+      frameText = text.toString();
+      frameVisible = busyUntil;
+      
+      if ( valueIndex > DISPLAY_CHARS )
+        defect( FrameDefect.CLIPPED );
+    }
+  }
+  
+  
+  /**
+   * Called when the firmware applies the current message.  Compares what was read with what was sent 
+   * @param address address the firmware read 
+   */
+  private void applied( final int address )
+  {
+    if ( !inFrame || frameHandled )
+      return;
+    
+    frameHandled = true;
+    appliedLength = valueIndex;
+    
+    boolean same = ( address == sentAddress );
+    for ( int i = 0; same && i < Math.min( valueIndex, Math.min( sentLength, sent.length )); i++ )
+    {
+      same = value[i] == sent[i];
+    }
+    
+    if ( !same )
+      defect( FrameDefect.MISPARSED );
+  }
+  
+  
+  private void reply( final String line, final long now )
+  {
+    final byte[] bytes = ( line + "\n" ).getBytes( StandardCharsets.US_ASCII );
+    replyIdleAt = Math.max( replyIdleAt, now ) + bytes.length * byteNanos;
+    
+    try {
+      replyHandler.accept( bytes, replyIdleAt );
+    } catch( Exception e ) {
+      Logs.error( LOG, e, "Emulator reply handler failed" );
+    }
+  }
+  
+  
+  private void resetMessageState()
+  {
+    curState = STATE_NONE;
+    readIndex = 0;
+    headerIndex = 0;
+    valueIndex = 0;
+    hardwareAddress = 0;
+    binaryEscape = false;
+    frameHeaderCount = 0;
+    frameCrc = 0;
+    frameChecksum = 0;
+    hasChecksum = false;
+    
+    for ( int i = 0; i < HEADER_BYTES; i++ )
+    {
+      header[i] = 0;
+    }
+    
+    for ( int i = 0; i < VALUE_BYTES; i++ )
+    {
+      value[i] = 0;
+    }
+  }
+  
+  
+  private void defect( final FrameDefect defect )
+  {
+    if ( inFrame )
+      frameDefects.add( defect );
+  }
+  
+  
+  /**
+   * Start tracking a frame sent by the gateway 
+   * @param startNanos When MESSAGE_START started on the wire 
+   */
+  private void beginFrame( final long startNanos )
+  {
+    if ( inFrame )
+      endFrame( busyUntil );
+    
+    inFrame = true;
+    part = PART_HEADER;
+    escape = false;
+    sentHeaderCount = 0;
+    sentAddress = -1;
+    sentLength = 0;
+    frameStart = startNanos;
+    frameDefects.clear();
+    frameHandled = false;
+    appliedLength = 0;
+    frameText = null;
+    frameVisible = 0;
+  }
+  
+  
+  /**
+   * Record a byte of the frame sent by the gateway 
+   * @param input byte 
+   */
+  private void track( final byte input )
+  {
+    if ( !inFrame || ( input == Message.MESSAGE_END && part != PART_HEADER ))
+      return;
+    else if ( stuffed && input == Message.DLE )
+    {
+      escape = true;
+      return;
+    }
+    
+    //..A text header is always one address byte, even when the address is a framing byte 
+    if ( part == PART_HEADER && input == Message.TEXT_START && ( stuffed || sentHeaderCount > 0 ))
+    {
+      part = PART_PAYLOAD;
+      return;
+    }
+    else if ( part == PART_PAYLOAD && input == Message.TEXT_END )
+    {
+      part = PART_TRAILER;
+      return;
+    }
+    
+    final byte b = escape ? (byte)( input ^ Message.STUFF_MASK ) : input;
+    escape = false;
+    
+    if ( part == PART_HEADER )
+    {
+      //..Protocol version 2 sends the sequence number first 
+      sentAddress = b & 0xFF;
+      sentHeaderCount++;
+    }
+    else if ( part == PART_PAYLOAD )
+    {
+      if ( sentLength < sent.length )
+        sent[sentLength] = b;
+      
+      sentLength++;
+    }
+  }
+  
+  
+  /**
+   * Record the outcome of the frame sent by the gateway 
+   * @param endNanos When the firmware is done with the frame 
+   */
+  private void endFrame( final long endNanos )
+  {
+    inFrame = false;
+    
+    if ( !frameHandled && !frameDefects.contains( FrameDefect.BAD_CHECKSUM ))
+      frameDefects.add( FrameDefect.DISCARDED );
+    else if ( frameHandled && frameText != null && sentLength > appliedLength )
+      frameDefects.add( FrameDefect.TRUNCATED );
+    
+    final EmulatedFrame frame = new EmulatedFrame( sentAddress, frameText, frameStart, endNanos, frameVisible, 
+      frameDefects );
+    
+    frameCount++;
+    if ( frame.isDisplayed())
+    {
+      displayCount++;
+      latencyTotal += frame.getLatencyNanos();
+      latencyMax = Math.max( latencyMax, frame.getLatencyNanos());
+    }
+    
+    for ( final FrameDefect d : frameDefects )
+    {
+      defectCounts[d.ordinal()]++;
+    }
+    
+    if ( !frameDefects.isEmpty())
+      Logs.debug( LOG, "Emulated firmware mishandled frame", frame );
+    
+    if ( history > 0 )
+    {
+      if ( frames.size() == history )
+        frames.removeFirst();
+      
+      frames.addLast( frame );
+    }
+  }
+}
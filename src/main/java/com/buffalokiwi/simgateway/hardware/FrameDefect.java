@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+/**
+ * Ways lcdproto.ino mishandles a frame.  Reported by FirmwareEmulator 
+ */
+public enum FrameDefect
+{
+  /**
+   * Bytes arrived while the receive buffer was full and were lost 
+   */
+  OVERRUN( "overrun" ),
+  
+  /**
+   * Payload bytes that did not fit in the firmware value buffer were dropped 
+   */
+  TRUNCATED( "truncated" ),
+  
+  /**
+   * The text reader wrote payload bytes past the end of the value buffer, which corrupts memory on the board 
+   */
+  OVERFLOW( "overflow" ),
+  
+  /**
+   * The text reader reached MAX_BYTES and wrote the display before the frame ended 
+   */
+  EARLY_DISPLAY( "early_display" ),
+  
+  /**
+   * The payload is longer than the characters shown on the display 
+   */
+  CLIPPED( "clipped" ),
+  
+  /**
+   * The frame was read with a different address or payload than was sent, ie: an address byte equal to TEXT_START 
+   * in text encoding 
+   */
+  MISPARSED( "misparsed" ),
+  
+  /**
+   * The frame was incomplete or abandoned and was not applied 
+   */
+  DISCARDED( "discarded" ),
+  
+  /**
+   * Protocol version 2 frame with a bad checksum 
+   */
+  BAD_CHECKSUM( "bad_checksum" );
+
+
+  private final String name;
+
+
+  public static FrameDefect fromName( final String name )
+  {
+    for ( final FrameDefect d : values())
+    {
+      if ( d.getName().equalsIgnoreCase( name ))
+        return d;
+    }
+
+    return null;
+  }
+
+
+  FrameDefect( final String name )
+  {
+    this.name = name;
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.simgateway.state.HistoryRing;
+import com.buffalokiwi.simgateway.state.StateHistory;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Produces smooth values for the gauge components on a device.
+ * 
+ * The sim may only export a few times per second, and writing those values directly to a gauge makes the needle step.
+ * Each time this runs, the last two recorded samples for each gauge are read from the history and a value is linearly 
+ * interpolated between them.  
+ * 
+ * Rendering is delayed by one sample interval.  When the newest sample arrives, the needle is still at the previous 
+ * sample and then travels to the newest sample over the following interval.  If the sim stops sending values, the 
+ * needle stops at the newest sample.
+ * 
+ * History only records changes, so the time between the last two samples can be long when a gauge held a value 
+ * before it moved.  The interval is capped at the maximum interval, so the needle reaches a new value within one 
+ * export period instead of taking as long as the value was held.
+ * 
+ * This is meant to be scheduled with the device at the device output rate, and it only writes a value to the device 
+ * when the interpolated value changes.  This is not thread safe.
+ */
+public class GaugeInterpolator implements Runnable
+{
+  /**
+   * A gauge and its last written value
+   */
+  private static class Gauge
+  {
+    private final IComponent component;
+    private final HistoryRing history;
+    private float lastValue = Float.NaN;
+    
+    Gauge( final IComponent component, final HistoryRing history )
+    {
+      this.component = component;
+      this.history = history;
+    }
+  }
+  
+  
+  /**
+   * Default longest time the needle travels between two samples.  A little over two 100 ms state processor cycles, 
+   * so values exported every cycle are interpolated over their real interval 
+   */
+  public static final long DEFAULT_MAX_INTERVAL_NANOS = 250_000_000L;
+  
+  private final IDevice device;
+  private final Gauge[] gauges;
+  private final long maxIntervalNanos;
+  
+  //..Scratch space for reading the last two samples 
+  private final long[] nanos = new long[2];
+  private final double[] values = new double[2];
+  
+  //..Converts values to bytes 
+  private final IValueEncoder encoder;
+  
+  
+  /**
+   * @param device The device to write to 
+   * @param history Recorded history.  Gauges without history are ignored.
+   */
+  public GaugeInterpolator( final IDevice device, final StateHistory history )
+  {
+    this( device, history, DEFAULT_MAX_INTERVAL_NANOS );
+  }
+  
+  
+  /**
+   * @param device The device to write to 
+   * @param history Recorded history.  Gauges without history are ignored.
+   * @param maxIntervalNanos Longest time the needle travels between two samples.  This should be at least the sim 
+   * export period 
+   */
+  public GaugeInterpolator( final IDevice device, final StateHistory history, final long maxIntervalNanos )
+  {
+    if ( device == null )
+      throw new IllegalArgumentException( "device must not be null" );
+    else if ( history == null )
+      throw new IllegalArgumentException( "history must not be null" );
+    else if ( maxIntervalNanos < 1 )
+      throw new IllegalArgumentException( "maxIntervalNanos must be greater than zero" );
+    
+    this.device = device;
+    this.maxIntervalNanos = maxIntervalNanos;
+    encoder = device.getEncoding().createValueEncoder();
+    
+    final List<Gauge> gaugeList = new ArrayList<>();
+    for ( final IComponent component : device.getComponentList())
+    {
+      if ( component.getType() != ComponentType.GAUGE )
+        continue;
+      
+      final HistoryRing ring = history.getHistory( component.getAddress());
+      if ( ring != null )
+        gaugeList.add( new Gauge( component, ring ));
+    }
+    
+    gauges = gaugeList.toArray( Gauge[]::new );
+  }
+  
+  
+  /**
+   * Test if the device has any gauges to interpolate 
+   * @return has gauges 
+   */
+  public boolean hasGauges()
+  {
+    return gauges.length > 0;
+  }
+  
+  
+  /**
+   * Interpolate every gauge and write changed values to the device 
+   */
+  @Override
+  public void run()
+  {
+    final long now = System.nanoTime();
+    
+    for ( final Gauge gauge : gauges )
+    {
+      final float value = interpolate( gauge.history, now );
+      if ( Float.isNaN( value ) || value == gauge.lastValue )
+        continue;
+      
+      gauge.lastValue = value;
+      final int length = encoder.encodeFloat( gauge.component, value );
+      device.write( gauge.component.getHardwareAddress(), encoder.getBuffer(), 0, length );
+    }
+  }
+  
+  
+  /**
+   * Compute the value of a gauge 
+   * @param history Gauge history 
+   * @param now Current time 
+   * @return value or NaN if there are no samples 
+   */
+  private float interpolate( final HistoryRing history, final long now )
+  {
+    final int count = history.copyLatest( nanos, values );
+    if ( count == 0 )
+      return Float.NaN;
+    else if ( count == 1 )
+      return (float)values[0];
+    
+    //..A value that was held for a long time still moves to the new value within one export period 
+    final long interval = Math.min( nanos[1] - nanos[0], maxIntervalNanos );
+    if ( interval <= 0 )
+      return (float)values[1];
+    
+    //..Render one interval behind the newest sample 
+    final double t = Math.min( 1.0, Math.max( 0.0, (double)( now - nanos[1] ) / interval ));
+    return (float)( values[0] + ( values[1] - values[0] ) * t );
+  }
+}
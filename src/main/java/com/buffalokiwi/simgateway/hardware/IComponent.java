@@ -8,6 +8,7 @@
 package com.buffalokiwi.simgateway.hardware;
 
 import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.simgateway.state.ISmoothingFilter;
 
 
 /**
@@ -61,4 +62,42 @@ public interface IComponent
    * @return 
    */
   public SimType getSimType();
+  
+  
+  /**
+   * The number of samples to keep in the value history for this component.
+   * @return history size or zero if history is disabled
+   */
+  public int getHistorySize();
+  
+  
+  /**
+   * The filter used to smooth numeric values before they are written to the device.
+   * Filters are stateful.  The router updates the filter, and the device timer settles it and writes the output, so
+   * the filter is shared between those threads and is thread safe.
+   * @return filter or null if values are written as is 
+   */
+  public ISmoothingFilter getSmoothingFilter();
+  
+  
+  /**
+   * The number of decimal places kept when numeric values are sent to the device as binary fixed point 
+   * @return decimal places 
+   */
+  public int getScale();
+  
+  
+  /**
+   * The share of the device link this component receives when the link is saturated.  A component with weight 2 is
+   * sent twice as many bytes as a component with weight 1.
+   * @return weight 
+   */
+  public int getWeight();
+  
+  
+  /**
+   * The sim command performed when this input component changes 
+   * @return action or null if the component is not an input or has no action 
+   */
+  public InputAction getAction();
 }
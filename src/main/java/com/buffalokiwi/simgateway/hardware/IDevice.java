@@ -8,7 +8,7 @@
 package com.buffalokiwi.simgateway.hardware;
 
 import com.buffalokiwi.simgateway.SimType;
-import com.fazecast.jSerialComm.SerialPort;
+import com.buffalokiwi.utils.IEventHandlerStack;
 import java.util.List;
 
 
@@ -35,10 +35,10 @@ public interface IDevice extends IDeviceId, AutoCloseable, Runnable
   
   
   /**
-   * The serial port that the device is currently connected
-   * @return 
+   * The link the device writes to.  A SerialLink for serial port devices 
+   * @return link 
    */
-  public SerialPort getSerialPort();
+  public IDeviceLink getLink();
   
   
   /**
@@ -55,5 +55,93 @@ public interface IDevice extends IDeviceId, AutoCloseable, Runnable
    * @param bytes The bytes to write 
    */
   public void write( final int hardwareAddress, final byte[] bytes );
+  
+  
+  /**
+   * Write a new hardware value to the device for a specific component.  The bytes are copied before this returns.
+   * @param hardwareAddress This is the device-defined hardware address 
+   * @param bytes source 
+   * @param offset start of the value in bytes 
+   * @param length value length 
+   */
+  public void write( final int hardwareAddress, final byte[] bytes, final int offset, final int length );
+  
+  
+  /**
+   * Write a batch of hardware values to the device at once.  The bytes are copied before this returns, and the batch
+   * may be reused.
+   * @param batch batch 
+   */
+  public void write( final MessageBatch batch );
+  
+  
+  /**
+   * The number of times per second the device message queue is written to the device.
+   * This is also the rate interpolated gauge values are produced for this device.
+   * @return rate in hz 
+   */
+  public int getOutputRate();
+  
+  
+  /**
+   * How the device message queue is written to the device.
+   * SCHEDULED devices are written by calling run() at the output rate.  BLOCKING devices are written by calling 
+   * service() each time the device signals it is ready, and when the time service() returns elapses.
+   * @return mode 
+   */
+  public OutputMode getOutputMode();
+  
+  
+  /**
+   * How values are encoded for this device.  Values written to the device must be encoded with an encoder 
+   * created by this encoding.
+   * @return encoding 
+   */
+  public ValueEncoding getEncoding();
+  
+  
+  /**
+   * Protocol version 2 sequencing and acknowledgements 
+   * @return link or null when the device uses protocol version 1 
+   */
+  public ReliableLink getReliableLink();
+  
+  
+  /**
+   * Handlers called for each value sent by an input component.  Handlers run on the link event thread as 
+   * soon as the message is read, and must not block 
+   * @return handlers 
+   */
+  public IEventHandlerStack<InputEvent> getInputHandlers();
+  
+  
+  /**
+   * The serial port parameters this device was opened with.  The link scheduler reports the negotiated baud rate.
+   * @return settings 
+   */
+  public SerialSettings getSerialSettings();
+  
+  
+  /**
+   * The scheduler sharing the serial link between the components on this device.  Used to report link utilization.
+   * @return scheduler 
+   */
+  public LinkScheduler getLinkScheduler();
+  
+  
+  /**
+   * Set the handler called when the device has something new to write, ie: a message was queued for an address or 
+   * acknowledgements made room in the window.  The handler is called while holding device locks and must not block 
+   * @param readyHandler handler or null 
+   */
+  public void setReadyHandler( final Runnable readyHandler );
+  
+  
+  /**
+   * Writes as much of the message queue as the link can carry to the device without waiting for messages.
+   * @return nanoseconds until service() must be called again if the device does not signal it is ready first.  
+   * Messages waiting for bandwidth and retransmissions are due after this time.  At most one second 
+   */
+  public long service();
 }
         
\ No newline at end of file
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * The connection a device writes to and reads lines from.  
+ * 
+ * The output stream is only used by the device writer thread.  Lines are delivered to the line handler on a thread 
+ * owned by the link.
+ */
+public interface IDeviceLink extends AutoCloseable
+{
+  /**
+   * @return Human readable description of the link, ie: the port name 
+   */
+  public String getDescription();
+  
+  
+  /**
+   * @return if the link is open 
+   */
+  public boolean isOpen();
+  
+  
+  /**
+   * Open the link 
+   * @param settings port settings 
+   * @return true if the link is open 
+   */
+  public boolean open( final SerialSettings settings );
+  
+  
+  /**
+   * Negotiate a faster baud rate.  Called after open() when SerialSettings.getNegotiatedBaudRate() is greater than 
+   * zero 
+   * @param settings port settings 
+   * @param encoder Encoder used to frame control messages 
+   * @return The baud rate in use 
+   */
+  public int negotiateBaudRate( final SerialSettings settings, final IMessageEncoder encoder );
+  
+  
+  /**
+   * Sets the handler for lines sent by the device.  Replaces any previous handler 
+   * @param handler handler 
+   * @return false if lines can not be read from the link 
+   */
+  public boolean setLineHandler( final ISerialLineHandler handler );
+  
+  
+  /**
+   * @return The stream written by the device 
+   * @throws IOException if the link is not open 
+   */
+  public OutputStream getOutputStream() throws IOException;
+  
+  
+  /**
+   * Retrieve if writes to the link block in native code.  A blocked native call pins the carrier of a virtual thread, 
+   * so these links are written from platform threads 
+   * @return true if writes block in native code 
+   */
+  public default boolean hasNativeWrites()
+  {
+    return false;
+  }
+  
+  
+  /**
+   * Close the link 
+   * @throws IOException 
+   */
+  @Override
+  public void close() throws IOException;
+}
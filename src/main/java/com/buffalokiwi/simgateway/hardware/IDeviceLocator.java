@@ -14,9 +14,16 @@ package com.buffalokiwi.simgateway.hardware;
 public interface IDeviceLocator 
 {
   /**
-   * Locates a device by the unique software address (control id)
+   * Locates a device by the software address (control id)
    * @param address
    * @return device or null
    */
   public IDevice findDeviceBySoftwareAddress( final int address );
+  
+  
+  /**
+   * Retrieve the current routing table.  The table is replaced when devices are connected or disconnected 
+   * @return table 
+   */
+  public RoutingTable getRoutingTable();
 }
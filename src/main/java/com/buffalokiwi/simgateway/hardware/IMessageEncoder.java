@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Frames a payload for the wire by writing it directly into an output buffer 
+ */
+public interface IMessageEncoder 
+{
+  /**
+   * Retrieve the largest number of bytes encode() can write for a payload 
+   * @param payloadLength payload length 
+   * @return maximum encoded length 
+   */
+  public int getMaxLength( final int payloadLength );
+  
+  
+  /**
+   * Retrieve the exact number of bytes encode() will write for a payload 
+   * @param payload payload bytes 
+   * @param length Number of payload bytes to use 
+   * @return encoded length 
+   */
+  public default int getLength( final byte[] payload, final int length )
+  {
+    return getMaxLength( length );
+  }
+  
+  
+  /**
+   * Write a framed message to out.  out must have at least getMaxLength( length ) bytes remaining.
+   * @param hardwareAddress Component hardware address 
+   * @param payload payload bytes 
+   * @param length Number of payload bytes to use 
+   * @param out Destination 
+   */
+  public void encode( final int hardwareAddress, final byte[] payload, final int length, final ByteBuffer out );
+}
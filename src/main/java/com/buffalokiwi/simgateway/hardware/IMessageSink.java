@@ -0,0 +1,23 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+
+/**
+ * Receives payloads drained from a device message queue 
+ */
+@FunctionalInterface
+public interface IMessageSink 
+{
+  /**
+   * @param hardwareAddress Component hardware address 
+   * @param payload payload bytes.  This buffer is reused and is only valid during the call 
+   * @param length Number of payload bytes 
+   */
+  public void accept( final int hardwareAddress, final byte[] payload, final int length );
+}
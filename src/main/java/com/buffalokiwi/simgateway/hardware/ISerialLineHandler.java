@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+
+/**
+ * Receives lines read from a device 
+ */
+@FunctionalInterface
+public interface ISerialLineHandler 
+{
+  /**
+   * @param line line bytes without the line ending.  This buffer is reused and is only valid during the call 
+   * @param length Number of bytes in the line 
+   */
+  public void accept( final byte[] line, final int length );
+}
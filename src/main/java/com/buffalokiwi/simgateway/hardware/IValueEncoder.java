@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+
+/**
+ * Converts state values into the bytes sent to a component.
+ * 
+ * Values are written to a reusable buffer.  Encoded bytes are valid until the next call to encode, and 
+ * implementations are meant to be used by a single thread.
+ */
+public interface IValueEncoder 
+{
+  /**
+   * Retrieve the buffer holding the most recently encoded value
+   * @return buffer
+   */
+  public byte[] getBuffer();
+  
+  
+  /**
+   * Encode a state value for a component 
+   * @param component Destination component 
+   * @param value value 
+   * @return number of bytes written to the buffer
+   */
+  public int encode( final IComponent component, final Object value );
+  
+  
+  /**
+   * Encode a float for a component 
+   * @param component Destination component 
+   * @param value value 
+   * @return number of bytes written to the buffer
+   */
+  public int encodeFloat( final IComponent component, final float value );
+  
+  
+  /**
+   * Test if two components always receive the same bytes for the same value.  Used to encode a value once when it 
+   * is sent to several components 
+   * @param a component 
+   * @param b component 
+   * @return true if the encoded bytes are the same 
+   */
+  public boolean isEquivalent( final IComponent a, final IComponent b );
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+
+package com.buffalokiwi.simgateway.hardware;
+
+
+/**
+ * The sim command performed when an input component changes.  For DCS this is 
+ * GetDevice( device ):performClickableAction( command, value ) 
+ * 
+ * Values sent depend on the component type:
+ *   toggle, momentary: step when on or pressed, 0 when off or released 
+ *   rotary: step for each detent turned.  Detents turned before the command is sent are added together 
+ */
+public class InputAction 
+{
+  /**
+   * Default value sent per detent or when a switch is on 
+   */
+  public static final double DEFAULT_STEP = 1;
+  
+  private final int device;
+  private final int command;
+  private final double step;
+  
+  
+  /**
+   * @param device Sim device id 
+   * @param command Sim command id 
+   * @param step Value sent per detent or when a switch is on 
+   */
+  public InputAction( final int device, final int command, final double step )
+  {
+    if ( device < 0 )
+      throw new IllegalArgumentException( "action device must be an unsigned integer" );
+    else if ( command < 0 )
+      throw new IllegalArgumentException( "action command must be an unsigned integer" );
+    else if ( step == 0 || !Double.isFinite( step ))
+      throw new IllegalArgumentException( "action step must be a non-zero number" );
+    
+    this.device = device;
+    this.command = command;
+    this.step = step;
+  }
+  
+  
+  public int getDevice()
+  {
+    return device;
+  }
+  
+  
+  public int getCommand()
+  {
+    return command;
+  }
+  
+  
+  public double getStep()
+  {
+    return step;
+  }
+  
+  
+  /**
+   * Convert an input value to the value sent to the sim 
+   * @param value InputEvent value, or the sum of rotary detents 
+   * @return value 
+   */
+  public double getValue( final int value )
+  {
+    return step * value;
+  }
+}
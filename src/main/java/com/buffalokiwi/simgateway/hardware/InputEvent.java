@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+
+package com.buffalokiwi.simgateway.hardware;
+
+
+/**
+ * A value sent by an input component on a panel 
+ * 
+ * Values depend on the component type:
+ *   toggle: 1 when on, 0 when off 
+ *   momentary: 1 when pressed, 0 when released 
+ *   rotary: signed number of detents turned since the last event.  Positive is clockwise
+ */
+public class InputEvent 
+{
+  private final IDevice device;
+  private final IComponent component;
+  private final int value;
+  private final long receivedNanos;
+  
+  
+  /**
+   * @param device Device the event was read from 
+   * @param component Input component 
+   * @param value value 
+   * @param receivedNanos System.nanoTime() when the message was read from the port 
+   */
+  public InputEvent( final IDevice device, final IComponent component, final int value, final long receivedNanos )
+  {
+    if ( device == null )
+      throw new IllegalArgumentException( "device must not be null" );
+    else if ( component == null )
+      throw new IllegalArgumentException( "component must not be null" );
+    
+    this.device = device;
+    this.component = component;
+    this.value = value;
+    this.receivedNanos = receivedNanos;
+  }
+  
+  
+  public IDevice getDevice()
+  {
+    return device;
+  }
+  
+  
+  public IComponent getComponent()
+  {
+    return component;
+  }
+  
+  
+  public int getValue()
+  {
+    return value;
+  }
+  
+  
+  /**
+   * @return System.nanoTime() when the message was read from the port 
+   */
+  public long getReceivedNanos()
+  {
+    return receivedNanos;
+  }
+  
+  
+  @Override
+  public String toString()
+  {
+    return component.getType() + " " + component.getAddress() + " (hw " + component.getHardwareAddress() + ") = " 
+      + value;
+  }
+}
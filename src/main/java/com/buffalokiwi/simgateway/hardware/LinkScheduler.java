@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.util.List;
+
+
+/**
+ * Shares the bandwidth of a serial link between the components on a device.
+ *
+ * Bytes are metered with a token bucket that refills at the link rate (baud / bits per byte bytes per second) and
+ * holds up to one output interval worth of bytes.  When the bucket is empty, the remaining messages wait in the
+ * device queue for the next write, where newer values for the same address replace them.
+ *
+ * Waiting messages are sent in weighted fair queuing order (self-clocked fair queuing).  Each message is tagged
+ * with a virtual finish time of the current virtual time plus its encoded length divided by the component weight,
+ * and the smallest tag is sent first.  A busy LCD therefore cannot starve the other components on the board, and a
+ * component with weight 2 receives twice the bytes of a component with weight 1 when both always have data waiting.
+ *
+ * Scheduling methods are called by ConflatingMessageQueue while holding the queue lock.  Statistics may be read
+ * from any thread.
+ */
+public class LinkScheduler
+{
+  /**
+   * Length of the utilization measurement window
+   */
+  private static final long WINDOW_NANOS = 1_000_000_000L;
+
+  private final int bitsPerByte;
+  private final int outputRate;
+  private volatile int baudRate;
+  private int bytesPerSecond;
+
+  /**
+   * Bucket size in bytes
+   */
+  private double capacity;
+
+  private final IMessageEncoder encoder;
+
+  /**
+   * hardware address => weight
+   */
+  private final int[] weights = new int[ConflatingMessageQueue.SLOTS];
+
+  /**
+   * hardware address => start tag of the pending message
+   */
+  private final double[] starts = new double[ConflatingMessageQueue.SLOTS];
+
+  /**
+   * hardware address => finish tag of the pending message
+   */
+  private final double[] tags = new double[ConflatingMessageQueue.SLOTS];
+
+  /**
+   * Finish tag of the last message sent
+   */
+  private double virtualTime = 0;
+
+  /**
+   * Bytes available to send
+   */
+  private double tokens;
+  private long lastRefill;
+
+  /**
+   * Encoded length of the message that did not fit in the bucket
+   */
+  private int blockedLength = 0;
+
+  private long windowStart;
+  private long windowBytes = 0;
+
+  private volatile double utilization = 0;
+  private volatile long bytesSent = 0;
+  private volatile long messagesSent = 0;
+  private volatile int backlog = 0;
+
+
+  /**
+   * @param baudRate Link speed in bits per second
+   * @param bitsPerByte Bit times used to send one data byte.  See SerialSettings.getBitsPerByte()
+   * @param outputRate Device output rate in hz.  The bucket holds one output interval of bytes
+   * @param encoder Encoder used to frame messages for the device
+   * @param componentList Components on the device.  Weights are taken from each hardware address
+   */
+  public LinkScheduler( final int baudRate, final int bitsPerByte, final int outputRate, 
+    final IMessageEncoder encoder, final List<IComponent> componentList )
+  {
+    if ( bitsPerByte < 1 )
+      throw new IllegalArgumentException( "bitsPerByte must be greater than zero" );
+    else if ( baudRate < bitsPerByte )
+      throw new IllegalArgumentException( "baudRate must be at least bitsPerByte" );
+    else if ( outputRate < 1 )
+      throw new IllegalArgumentException( "outputRate must be greater than zero" );
+    else if ( encoder == null )
+      throw new IllegalArgumentException( "encoder must not be null" );
+    else if ( componentList == null )
+      throw new IllegalArgumentException( "componentList must not be null" );
+
+    this.bitsPerByte = bitsPerByte;
+    this.outputRate = outputRate;
+    this.encoder = encoder;
+    applyBaudRate( baudRate );
+
+    for ( int i = 0; i < weights.length; i++ )
+    {
+      weights[i] = Component.DEFAULT_WEIGHT;
+    }
+
+    //..Components sharing a hardware address use the largest weight
+    final boolean[] configured = new boolean[weights.length];
+    for ( final IComponent c : componentList )
+    {
+      final int address = c.getHardwareAddress() & 0xFF;
+      weights[address] = configured[address] ? Math.max( weights[address], c.getWeight()) : c.getWeight();
+      configured[address] = true;
+    }
+
+    tokens = capacity;
+    lastRefill = System.nanoTime();
+    windowStart = lastRefill;
+  }
+
+
+  /**
+   * @return Link speed in bits per second
+   */
+  public int getBaudRate()
+  {
+    return baudRate;
+  }
+
+
+  /**
+   * Change the link speed.  Called by ConflatingMessageQueue while holding the queue lock
+   * @param baudRate Link speed in bits per second
+   */
+  void setBaudRate( final int baudRate )
+  {
+    if ( baudRate < bitsPerByte )
+      throw new IllegalArgumentException( "baudRate must be at least bitsPerByte" );
+    
+    applyBaudRate( baudRate );
+  }
+  
+  
+  private void applyBaudRate( final int baudRate )
+  {
+    this.baudRate = baudRate;
+    bytesPerSecond = baudRate / bitsPerByte;
+    capacity = Math.max( 1, bytesPerSecond / outputRate );
+    tokens = Math.min( tokens, capacity );
+  }
+
+
+  /**
+   * Fraction of the link capacity used during the last measurement window
+   * @return 0-1
+   */
+  public double getUtilization()
+  {
+    return utilization;
+  }
+
+
+  /**
+   * @return Total encoded bytes sent
+   */
+  public long getBytesSent()
+  {
+    return bytesSent;
+  }
+
+
+  /**
+   * @return Total messages sent
+   */
+  public long getMessagesSent()
+  {
+    return messagesSent;
+  }
+
+
+  /**
+   * @return Number of messages left waiting for bandwidth after the last write
+   */
+  public int getBacklog()
+  {
+    return backlog;
+  }
+
+
+  /**
+   * Retrieve the time until the message that did not fit in the bucket can be sent
+   * @return nanoseconds
+   */
+  public long getDelayNanos()
+  {
+    final double needed = Math.min( blockedLength, capacity ) - tokens;
+    if ( needed <= 0 )
+      return 0;
+
+    return (long)( needed * 1_000_000_000L / bytesPerSecond );
+  }
+
+
+  /**
+   * Called when a hardware address without a pending message is added to the queue
+   * @param hardwareAddress hardware address
+   * @param payload payload
+   * @param length payload length
+   */
+  void enqueue( final int hardwareAddress, final byte[] payload, final int length )
+  {
+    //..Each address has at most one pending message, so its previous message was sent and the start time is always
+    //  the current virtual time
+    starts[hardwareAddress] = virtualTime;
+    replace( hardwareAddress, payload, length );
+  }
+
+
+  /**
+   * Called when the pending message for a hardware address is replaced.  The message keeps its start tag and the
+   * finish tag follows the new length
+   * @param hardwareAddress hardware address
+   * @param payload payload
+   * @param length payload length
+   */
+  void replace( final int hardwareAddress, final byte[] payload, final int length )
+  {
+    tags[hardwareAddress] = starts[hardwareAddress] 
+      + (double)encoder.getLength( payload, length ) / weights[hardwareAddress];
+  }
+
+
+  /**
+   * Retrieve the finish tag of the pending message for an address
+   * @param hardwareAddress hardware address
+   * @return tag
+   */
+  double getTag( final int hardwareAddress )
+  {
+    return tags[hardwareAddress];
+  }
+
+
+  /**
+   * Refill the bucket.  Called before each drain
+   * @param now System.nanoTime()
+   */
+  void refill( final long now )
+  {
+    tokens = Math.min( capacity, tokens + (double)( now - lastRefill ) * bytesPerSecond / 1_000_000_000L );
+    lastRefill = now;
+
+    final long elapsed = now - windowStart;
+    if ( elapsed >= WINDOW_NANOS )
+    {
+      utilization = Math.min( 1.0, windowBytes / ( bytesPerSecond * ( elapsed / 1_000_000_000.0 )));
+      windowBytes = 0;
+      windowStart = now;
+    }
+  }
+
+
+  /**
+   * Take bytes from the bucket for a message
+   * @param hardwareAddress hardware address
+   * @param payload payload
+   * @param length payload length
+   * @return true if the message can be sent now
+   */
+  boolean admit( final int hardwareAddress, final byte[] payload, final int length )
+  {
+    final int frameLength = encoder.getLength( payload, length );
+
+    //..A message larger than the bucket is sent when the bucket is full, otherwise it would never be sent
+    if ( frameLength > tokens && tokens < capacity )
+    {
+      blockedLength = frameLength;
+      return false;
+    }
+
+    tokens -= frameLength;
+    virtualTime = tags[hardwareAddress];
+    windowBytes += frameLength;
+    bytesSent += frameLength;
+    messagesSent++;
+    return true;
+  }
+
+
+  /**
+   * Take bytes written outside of the queue from the bucket, ie: retransmitted frames.  Called by 
+   * ConflatingMessageQueue while holding the queue lock
+   * @param bytes encoded bytes
+   */
+  void consume( final int bytes )
+  {
+    tokens -= bytes;
+    windowBytes += bytes;
+    bytesSent += bytes;
+  }
+
+
+  /**
+   * Called after each drain
+   * @param remaining Number of messages still waiting
+   */
+  void endDrain( final int remaining )
+  {
+    backlog = remaining;
+
+    if ( remaining == 0 )
+    {
+      //..Nothing is waiting, so no tag depends on the virtual time
+      virtualTime = 0;
+      blockedLength = 0;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+/**
+ * Where a device writes its output.  Selected per device with "link" in config.json
+ */
+public enum LinkType
+{
+  /**
+   * A USB serial port found by name or serial number.  This is the default
+   */
+  SERIAL( "serial" ),
+
+  /**
+   * An in-memory sink that counts bytes and optionally keeps the newest output.  No hardware is required
+   */
+  MEMORY( "memory" ),
+
+  /**
+   * A file 
+   */
+  FILE( "file" ),
+
+  /**
+   * A serial port opened by path, ie: a Linux pseudo-terminal created with socat 
+   */
+  PTY( "pty" ),
+  
+  /**
+   * An emulated lcdproto.ino board.  See FirmwareEmulator 
+   */
+  EMULATOR( "emulator" ),
+  
+  /**
+   * A network device that accepts TCP connections.  See TcpLink 
+   */
+  TCP( "tcp" ),
+  
+  /**
+   * A network device that receives UDP datagrams.  See UdpLink 
+   */
+  UDP( "udp" );
+
+
+  private final String name;
+
+
+  public static LinkType fromName( final String name )
+  {
+    for ( final LinkType t : values())
+    {
+      if ( t.getName().equalsIgnoreCase( name ))
+        return t;
+    }
+
+    return null;
+  }
+
+
+  LinkType( final String name )
+  {
+    this.name = name;
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+  
+  
+  /**
+   * @return true if the link is found by scanning the serial ports 
+   */
+  public boolean isScanned()
+  {
+    return this == SERIAL;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.io.OutputStream;
+
+
+/**
+ * A link that writes to memory.  
+ * 
+ * Counts the bytes and writes it receives, and keeps the newest capture bytes written so the output can be 
+ * inspected.  Counters may be read from any thread.
+ */
+public class MemoryLink extends VirtualLink
+{
+  /**
+   * Receives the device output 
+   */
+  private final class Sink extends OutputStream
+  {
+    @Override
+    public void write( final int b )
+    {
+      synchronized( MemoryLink.this )
+      {
+        capture( b );
+        bytesWritten++;
+        writes++;
+      }
+    }
+    
+    
+    @Override
+    public void write( final byte[] b, final int off, final int len )
+    {
+      synchronized( MemoryLink.this )
+      {
+        //..Only the newest capture bytes are kept 
+        final int keep = Math.min( len, captureBuffer.length );
+        for ( int i = off + len - keep; i < off + len; i++ )
+        {
+          capture( b[i] );
+        }
+        
+        bytesWritten += len;
+        writes++;
+      }
+    }
+  }
+  
+  
+  /**
+   * Default number of captured bytes 
+   */
+  public static final int DEFAULT_CAPTURE = 4096;
+  
+  private final String name;
+  
+  //..Ring of the newest bytes written.  Guarded by this 
+  private final byte[] captureBuffer;
+  private int captureStart = 0;
+  private int captureLength = 0;
+  
+  private long bytesWritten = 0;
+  private long writes = 0;
+  
+  
+  /**
+   * @param name name used in the description 
+   * @param capture Number of the newest bytes to keep.  0 only counts 
+   * @param throttle Block writes for the time the configured baud rate would take to send them
+   */
+  public MemoryLink( final String name, final int capture, final boolean throttle )
+  {
+    super( throttle );
+    
+    if ( name == null )
+      throw new IllegalArgumentException( "name must not be null" );
+    else if ( capture < 0 )
+      throw new IllegalArgumentException( "capture must be an unsigned integer" );
+    
+    this.name = name;
+    captureBuffer = new byte[capture];
+  }
+  
+  
+  @Override
+  public String getDescription()
+  {
+    return "memory:" + name;
+  }
+  
+  
+  @Override
+  protected OutputStream openStream()
+  {
+    return new Sink();
+  }
+  
+  
+  /**
+   * @return Total bytes written 
+   */
+  public synchronized long getBytesWritten()
+  {
+    return bytesWritten;
+  }
+  
+  
+  /**
+   * @return Total write calls.  The device makes one write per burst 
+   */
+  public synchronized long getWrites()
+  {
+    return writes;
+  }
+  
+  
+  /**
+   * Retrieve the newest bytes written, oldest first
+   * @return bytes 
+   */
+  public synchronized byte[] getCaptured()
+  {
+    final byte[] out = new byte[captureLength];
+    for ( int i = 0; i < captureLength; i++ )
+    {
+      out[i] = captureBuffer[( captureStart + i ) % captureBuffer.length];
+    }
+    
+    return out;
+  }
+  
+  
+  /**
+   * Discard the captured bytes and reset the counters 
+   */
+  public synchronized void clear()
+  {
+    captureStart = 0;
+    captureLength = 0;
+    bytesWritten = 0;
+    writes = 0;
+  }
+  
+  
+  private void capture( final int b )
+  {
+    if ( captureBuffer.length == 0 )
+      return;
+    
+    if ( captureLength < captureBuffer.length )
+    {
+      captureBuffer[( captureStart + captureLength ) % captureBuffer.length] = (byte)b;
+      captureLength++;
+    }
+    else
+    {
+      captureBuffer[captureStart] = (byte)b;
+      captureStart = ( captureStart + 1 ) % captureBuffer.length;
+    }
+  }
+}
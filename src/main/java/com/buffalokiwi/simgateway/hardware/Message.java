@@ -6,8 +6,7 @@
  */
 package com.buffalokiwi.simgateway.hardware;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 
 /**
@@ -49,9 +48,37 @@ public class Message implements IMessage
   public static final byte MESSAGE_END = 0x4;
   
   /**
-   * Message footer 
+   * Data link escape.  When byte stuffing is used, any address or payload byte that is a framing byte or DLE is sent 
+   * as DLE followed by the byte XOR STUFF_MASK 
    */
-  private static final byte[] FOOTER = { TEXT_END, MESSAGE_END };
+  public static final byte DLE = 0x10;
+  
+  /**
+   * XOR mask applied to escaped bytes 
+   */
+  public static final byte STUFF_MASK = 0x20;
+  
+  /**
+   * Number of framing bytes added to each payload 
+   */
+  public static final int OVERHEAD = 5;
+  
+  /**
+   * Frames payloads without creating message objects 
+   */
+  public static final IMessageEncoder ENCODER = new IMessageEncoder() {
+    @Override
+    public int getMaxLength( final int payloadLength )
+    {
+      return payloadLength + OVERHEAD;
+    }
+
+    @Override
+    public void encode( final int hardwareAddress, final byte[] payload, final int length, final ByteBuffer out )
+    {
+      Message.encode( hardwareAddress, payload, length, out );
+    }
+  };
 
   /**
    * The address of the component on the device this message is for 
@@ -77,23 +104,194 @@ public class Message implements IMessage
   }
   
   
-  @Override
-  public byte[] getBytes()
-  {
-    try ( final ByteArrayOutputStream o = new ByteArrayOutputStream( message.length + 5 )) {
-
-      final byte[] header = new byte[3];
-      header[0] = NESSAGE_START;
-      header[1] = hardwareAddress;
-      header[2] = TEXT_START;
+  /**
+   * Frames payloads with byte stuffing.  Used for binary payloads that may contain framing bytes 
+   */
+  public static final IMessageEncoder STUFFED_ENCODER = new IMessageEncoder() {
+    @Override
+    public int getMaxLength( final int payloadLength )
+    {
+      //..Every address and payload byte may be escaped 
+      return ( payloadLength + 1 ) * 2 + OVERHEAD - 1;
+    }
 
-      o.write( header );
-      o.write( message );
-      o.write( FOOTER );
+    @Override
+    public int getLength( final byte[] payload, final int length )
+    {
+      int escaped = 0;
+      for ( int i = 0; i < length; i++ )
+      {
+        if ( isStuffed( payload[i] ))
+          escaped++;
+      }
       
-      return o.toByteArray();
-    } catch( IOException e ) {
-      return new byte[0];
+      //..The address is stuffed too.  Assume it is escaped so the length never comes up short 
+      return length + escaped + OVERHEAD + 1;
+    }
+
+    @Override
+    public void encode( final int hardwareAddress, final byte[] payload, final int length, final ByteBuffer out )
+    {
+      Message.encodeStuffed( hardwareAddress, payload, length, out );
+    }
+  };
+  
+  
+  /**
+   * Write a framed message 
+   * @param hardwareAddress Component hardware address.  Only the least significant byte is used 
+   * @param payload payload 
+   * @param length Number of payload bytes to write 
+   * @param out Destination.  Must have at least length + OVERHEAD bytes remaining 
+   */
+  public static void encode( final int hardwareAddress, final byte[] payload, final int length, final ByteBuffer out )
+  {
+    out.put( NESSAGE_START );
+    out.put((byte)( hardwareAddress & 0xFF ));
+    out.put( TEXT_START );
+    out.put( payload, 0, length );
+    out.put( TEXT_END );
+    out.put( MESSAGE_END );
+  }
+  
+  
+  /**
+   * Write a framed message with the address and payload byte stuffed 
+   * @param hardwareAddress Component hardware address.  Only the least significant byte is used 
+   * @param payload payload 
+   * @param length Number of payload bytes to write 
+   * @param out Destination.  Must have at least STUFFED_ENCODER.getMaxLength( length ) bytes remaining 
+   */
+  public static void encodeStuffed( final int hardwareAddress, final byte[] payload, final int length, 
+    final ByteBuffer out )
+  {
+    out.put( NESSAGE_START );
+    putStuffed((byte)( hardwareAddress & 0xFF ), out );
+    out.put( TEXT_START );
+    
+    for ( int i = 0; i < length; i++ )
+    {
+      putStuffed( payload[i], out );
+    }
+    
+    out.put( TEXT_END );
+    out.put( MESSAGE_END );
+  }
+  
+  
+  private static void putStuffed( final byte b, final ByteBuffer out )
+  {
+    if ( isStuffed( b ))
+    {
+      out.put( DLE );
+      out.put((byte)( b ^ STUFF_MASK ));
+    }
+    else
+    {
+      out.put( b );
     }
   }
+  
+  
+  /**
+   * Write a protocol version 2 frame.  A sequence number and checksum are added, and every byte between the framing 
+   * bytes is stuffed 
+   * {MESSAGE_START sequence hardwareAddress TEXT_START message TEXT_END checksum MESSAGE_END}
+   * 
+   * The checksum is CRC-8 (polynomial 0x07) of the sequence, hardware address and payload before stuffing.
+   * @param sequence sequence number.  Only the least significant byte is used 
+   * @param hardwareAddress Component hardware address.  Only the least significant byte is used 
+   * @param payload payload 
+   * @param length Number of payload bytes to write 
+   * @param out Destination.  Must have at least getMaxSequencedLength( length ) bytes remaining 
+   */
+  public static void encodeSequenced( final int sequence, final int hardwareAddress, final byte[] payload, 
+    final int length, final ByteBuffer out )
+  {
+    final byte seq = (byte)( sequence & 0xFF );
+    final byte address = (byte)( hardwareAddress & 0xFF );
+    
+    int crc = crc8( 0, seq );
+    crc = crc8( crc, address );
+    
+    out.put( NESSAGE_START );
+    putStuffed( seq, out );
+    putStuffed( address, out );
+    out.put( TEXT_START );
+    
+    for ( int i = 0; i < length; i++ )
+    {
+      putStuffed( payload[i], out );
+      crc = crc8( crc, payload[i] );
+    }
+    
+    out.put( TEXT_END );
+    putStuffed((byte)crc, out );
+    out.put( MESSAGE_END );
+  }
+  
+  
+  /**
+   * Retrieve the largest number of bytes encodeSequenced() can write 
+   * @param payloadLength payload length 
+   * @return length 
+   */
+  public static int getMaxSequencedLength( final int payloadLength )
+  {
+    //..Sequence, address, payload and checksum may all be escaped 
+    return ( payloadLength + 3 ) * 2 + 4;
+  }
+  
+  
+  /**
+   * Retrieve the number of bytes encodeSequenced() writes for a payload.  The sequence, address and checksum are 
+   * assumed to be escaped 
+   * @param payload payload 
+   * @param length payload length 
+   * @return length 
+   */
+  public static int getSequencedLength( final byte[] payload, final int length )
+  {
+    int escaped = 0;
+    for ( int i = 0; i < length; i++ )
+    {
+      if ( isStuffed( payload[i] ))
+        escaped++;
+    }
+    
+    return length + escaped + 10;
+  }
+  
+  
+  /**
+   * Update a CRC-8 (polynomial 0x07) with one byte 
+   * @param crc current crc 
+   * @param b byte 
+   * @return crc 
+   */
+  public static int crc8( final int crc, final byte b )
+  {
+    int c = ( crc ^ b ) & 0xFF;
+    for ( int i = 0; i < 8; i++ )
+    {
+      c = (( c & 0x80 ) != 0 ) ? (( c << 1 ) ^ 0x07 ) & 0xFF : ( c << 1 ) & 0xFF;
+    }
+    
+    return c;
+  }
+  
+  
+  private static boolean isStuffed( final byte b )
+  {
+    return ( b >= NESSAGE_START && b <= MESSAGE_END ) || b == DLE;
+  }
+  
+  
+  @Override
+  public byte[] getBytes()
+  {
+    final byte[] bytes = new byte[message.length + OVERHEAD];
+    encode( hardwareAddress, message, message.length, ByteBuffer.wrap( bytes ));
+    return bytes;
+  }
 }
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.util.Arrays;
+
+
+/**
+ * A reusable set of payloads for a single device, one per hardware address, that is added to the device message
+ * queue at once.
+ *
+ * Putting a payload for an address that is already in the batch replaces the payload and keeps its position.
+ * Payload bytes are copied into buffers owned by the batch, which are kept between uses.
+ *
+ * This is not thread safe.
+ */
+public class MessageBatch
+{
+  /**
+   * hardware address => position in the batch or -1
+   */
+  private final int[] index = new int[ConflatingMessageQueue.SLOTS];
+
+  private final int[] addresses = new int[ConflatingMessageQueue.SLOTS];
+  private final byte[][] payloads = new byte[ConflatingMessageQueue.SLOTS][];
+  private final int[] lengths = new int[ConflatingMessageQueue.SLOTS];
+  private int size = 0;
+
+
+  public MessageBatch()
+  {
+    Arrays.fill( index, -1 );
+  }
+
+
+  /**
+   * Add or replace the payload for a hardware address
+   * @param hardwareAddress hardware address.  Only the least significant byte is used
+   * @param bytes source
+   * @param offset start of the payload in bytes
+   * @param length payload length
+   */
+  public void put( final int hardwareAddress, final byte[] bytes, final int offset, final int length )
+  {
+    final int address = hardwareAddress & 0xFF;
+
+    int i = index[address];
+    if ( i < 0 )
+    {
+      i = size++;
+      index[address] = i;
+      addresses[i] = address;
+    }
+
+    if ( payloads[i] == null || payloads[i].length < length )
+      payloads[i] = new byte[Math.max( length, 16 )];
+
+    System.arraycopy( bytes, offset, payloads[i], 0, length );
+    lengths[i] = length;
+  }
+
+
+  public int size()
+  {
+    return size;
+  }
+
+
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+
+  public int getAddress( final int i )
+  {
+    return addresses[i];
+  }
+
+
+  public byte[] getPayload( final int i )
+  {
+    return payloads[i];
+  }
+
+
+  public int getLength( final int i )
+  {
+    return lengths[i];
+  }
+
+
+  /**
+   * Remove every entry.  Buffers are kept for reuse
+   */
+  public void clear()
+  {
+    for ( int i = 0; i < size; i++ )
+    {
+      index[addresses[i]] = -1;
+    }
+
+    size = 0;
+  }
+}
@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.utils.Logs;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * A link to a device on the network, ie: an ESP32 panel on Wi-Fi.
+ * 
+ * Frames are the same as on a serial link.  Everything written between flushes is sent at once, and Device flushes 
+ * once per write, so a write is a single send.  Lines sent by the device are read on a virtual thread and passed to 
+ * the line handler as they arrive.
+ * 
+ * When a send or read fails, the connection is closed and the link reports that it is not open.  The device opens 
+ * the link again on its next write, and connection attempts are made at most once per reconnect delay.  The host 
+ * name is resolved on every attempt.
+ * 
+ * Sockets block, and are meant to be used from virtual threads, which release their carrier while they wait.  The
+ * connection is guarded by a ReentrantLock instead of synchronized, which would pin the carrier while connecting.
+ */
+public abstract class NetworkLink implements IDeviceLink
+{
+  /**
+   * A connected socket 
+   */
+  protected interface IConnection extends Closeable
+  {
+    /**
+     * Read bytes sent by the device.  Blocks until bytes arrive 
+     * @param buffer destination 
+     * @return number of bytes read or -1 if the connection was closed 
+     * @throws IOException 
+     */
+    public int read( final byte[] buffer ) throws IOException;
+    
+    
+    /**
+     * Send bytes to the device 
+     * @param bytes bytes 
+     * @param length number of bytes 
+     * @throws IOException 
+     */
+    public void send( final byte[] bytes, final int length ) throws IOException;
+  }
+  
+  
+  /**
+   * Buffers writes until flush 
+   */
+  private final class LinkStream extends OutputStream
+  {
+    private final IConnection connection;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int size = 0;
+    
+    
+    private LinkStream( final IConnection connection )
+    {
+      this.connection = connection;
+    }
+    
+    
+    @Override
+    public void write( final int b ) throws IOException
+    {
+      ensureCapacity( 1 );
+      buffer[size++] = (byte)b;
+    }
+
+
+    @Override
+    public void write( final byte[] b, final int off, final int len ) throws IOException
+    {
+      ensureCapacity( len );
+      System.arraycopy( b, off, buffer, size, len );
+      size += len;
+    }
+    
+    
+    @Override
+    public void flush() throws IOException
+    {
+      if ( size == 0 )
+        return;
+      
+      try {
+        connection.send( buffer, size );
+      } catch( IOException e ) {
+        disconnect( connection );
+        throw e;
+      } finally {
+        size = 0;
+      }
+    }
+    
+    
+    private void ensureCapacity( final int required )
+    {
+      if ( buffer.length - size < required )
+        buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, size + required ));
+    }
+  }
+  
+  
+  /**
+   * Default milliseconds between connection attempts 
+   */
+  public static final int DEFAULT_RECONNECT = 1000;
+  
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+  
+  /**
+   * Holds a whole datagram of lines 
+   */
+  private static final int READ_BUFFER_SIZE = 2048;
+  
+  private static final Logger LOG = LogManager.getLogger( NetworkLink.class );
+  
+  private final String host;
+  private final int port;
+  private final long reconnectNanos;
+  
+  /**
+   * Guards opening and closing the connection 
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  
+  private volatile IConnection connection = null;
+  private volatile LinkStream out = null;
+  private volatile SerialLineReader lineReader = null;
+  
+  //..System.nanoTime() of the last failed connection attempt 
+  private long failedAt = 0;
+  private boolean failed = false;
+  
+  
+  /**
+   * @param host Host name or address 
+   * @param port port 
+   * @param reconnect Milliseconds between connection attempts 
+   */
+  protected NetworkLink( final String host, final int port, final int reconnect )
+  {
+    if ( host == null || host.isBlank())
+      throw new IllegalArgumentException( "host must not be null or empty" );
+    else if ( port < 1 || port > 65535 )
+      throw new IllegalArgumentException( "port must be between 1 and 65535" );
+    else if ( reconnect < 0 )
+      throw new IllegalArgumentException( "reconnect must be an unsigned integer" );
+    
+    this.host = host;
+    this.port = port;
+    reconnectNanos = reconnect * 1_000_000L;
+  }
+  
+  
+  /**
+   * Connect to the device 
+   * @param address Resolved device address 
+   * @return connection 
+   * @throws IOException 
+   */
+  protected abstract IConnection connect( final InetSocketAddress address ) throws IOException;
+  
+  
+  /**
+   * @return Link scheme, ie: "tcp" 
+   */
+  protected abstract String getScheme();
+  
+  
+  @Override
+  public String getDescription()
+  {
+    return getScheme() + "://" + host + ":" + port;
+  }
+  
+  
+  @Override
+  public boolean isOpen()
+  {
+    return out != null;
+  }
+  
+  
+  @Override
+  public boolean open( final SerialSettings settings )
+  {
+    lock.lock();
+    try {
+      if ( out != null )
+        return true;
+      else if ( failed && System.nanoTime() - failedAt < reconnectNanos )
+        return false;
+
+      final IConnection c;
+      try {
+        final InetSocketAddress address = new InetSocketAddress( host, port );
+        if ( address.isUnresolved())
+          throw new IOException( "Unknown host " + host );
+
+        c = connect( address );
+      } catch( IOException e ) {
+        //..The device reports the failure 
+        Logs.debug( LOG, "Failed to connect to", getDescription(), e.getMessage());
+        failed = true;
+        failedAt = System.nanoTime();
+        return false;
+      }
+
+      Logs.info( LOG, "Connected to", getDescription());
+      failed = false;
+      connection = c;
+      out = new LinkStream( c );
+      Thread.ofVirtual().name( getDescription() + " reader" ).start(() -> read( c ));
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  
+  /**
+   * Network devices are not limited by a baud rate.  The requested rate is used as the link budget 
+   */
+  @Override
+  public int negotiateBaudRate( final SerialSettings settings, final IMessageEncoder encoder )
+  {
+    return settings.getNegotiatedBaudRate();
+  }
+  
+  
+  @Override
+  public boolean setLineHandler( final ISerialLineHandler handler )
+  {
+    lineReader = new SerialLineReader( handler );
+    return true;
+  }
+  
+  
+  @Override
+  public OutputStream getOutputStream() throws IOException
+  {
+    final OutputStream stream = out;
+    if ( stream == null )
+      throw new IOException( getDescription() + " is not connected" );
+    
+    return stream;
+  }
+  
+  
+  @Override
+  public void close() throws IOException
+  {
+    lock.lock();
+    try {
+      final IConnection c = connection;
+      if ( c == null )
+        return;
+
+      connection = null;
+      out = null;
+      c.close();
+    } finally {
+      lock.unlock();
+    }
+  }
+  
+  
+  /**
+   * Read lines from a connection until it is closed 
+   * @param c connection 
+   */
+  private void read( final IConnection c )
+  {
+    final byte[] buffer = new byte[READ_BUFFER_SIZE];
+    try {
+      int n;
+      while (( n = c.read( buffer )) >= 0 )
+      {
+        final SerialLineReader reader = lineReader;
+        if ( reader != null && n > 0 )
+          reader.accept( buffer, n );
+      }
+    } catch( IOException e ) {
+      if ( connection == c )
+        Logs.debug( LOG, "Read from", getDescription(), "failed:", e.getMessage());
+    }
+    
+    disconnect( c );
+  }
+  
+  
+  /**
+   * Close a connection that failed.  The link is opened again by the next write 
+   * @param c connection 
+   */
+  private void disconnect( final IConnection c )
+  {
+    lock.lock();
+    try {
+      if ( connection != c )
+        return;
+
+      Logs.info( LOG, "Disconnected from", getDescription());
+      try {
+        close();
+      } catch( IOException e ) {
+        Logs.debug( LOG, "Failed to close", getDescription(), e.getMessage());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+/**
+ * How the device message queue is written to the device
+ */
+public enum OutputMode
+{
+  /**
+   * The queue is written at the device output rate
+   */
+  SCHEDULED( "scheduled" ),
+
+  /**
+   * Messages are written as soon as they are queued
+   */
+  BLOCKING( "blocking" );
+
+
+  private final String name;
+
+
+  public static OutputMode fromName( final String name )
+  {
+    for ( final OutputMode m : values())
+    {
+      if ( m.getName().equalsIgnoreCase( name ))
+        return m;
+    }
+
+    return null;
+  }
+
+
+  OutputMode( final String name )
+  {
+    this.name = name;
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.fazecast.jSerialComm.SerialPort;
+
+/**
+ * Serial port parity 
+ */
+public enum Parity
+{
+  NONE( "none", SerialPort.NO_PARITY ),
+  ODD( "odd", SerialPort.ODD_PARITY ),
+  EVEN( "even", SerialPort.EVEN_PARITY ),
+  MARK( "mark", SerialPort.MARK_PARITY ),
+  SPACE( "space", SerialPort.SPACE_PARITY );
+
+
+  private final String name;
+  private final int value;
+
+
+  public static Parity fromName( final String name )
+  {
+    for ( final Parity p : values())
+    {
+      if ( p.getName().equalsIgnoreCase( name ))
+        return p;
+    }
+
+    return null;
+  }
+
+
+  Parity( final String name, final int value )
+  {
+    this.name = name;
+    this.value = value;
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+
+
+  /**
+   * @return jSerialComm parity constant 
+   */
+  public int getValue()
+  {
+    return value;
+  }
+
+
+  /**
+   * @return Number of parity bits sent with each byte 
+   */
+  public int getBits()
+  {
+    return ( this == NONE ) ? 0 : 1;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+}
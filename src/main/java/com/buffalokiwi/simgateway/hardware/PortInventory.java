@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.fazecast.jSerialComm.SerialPort;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * A cached list of the serial ports attached to the system.
+ * 
+ * Enumerating USB serial ports is slow, so the ports are only enumerated when refresh() is called.  Everything else 
+ * reads the last snapshot.  Safe to use from any thread.
+ */
+public class PortInventory 
+{
+  private volatile List<SerialPort> portList = Collections.emptyList();
+  private volatile long refreshedAt = 0;
+  
+  
+  /**
+   * Enumerate the serial ports 
+   * @return ports 
+   */
+  public List<SerialPort> refresh()
+  {
+    final List<SerialPort> ports = Collections.unmodifiableList( Arrays.asList( SerialPort.getCommPorts()));
+    portList = ports;
+    refreshedAt = System.currentTimeMillis();
+    return ports;
+  }
+  
+  
+  /**
+   * @return ports found by the last refresh 
+   */
+  public List<SerialPort> getPortList()
+  {
+    return portList;
+  }
+  
+  
+  /**
+   * @return System.currentTimeMillis() of the last refresh, or 0 if the ports were never enumerated 
+   */
+  public long getRefreshedAt()
+  {
+    return refreshedAt;
+  }
+  
+  
+  /**
+   * Find the port for a device in the last snapshot
+   * @param dev device id 
+   * @return port or null 
+   */
+  public SerialPort find( final IDeviceId dev )
+  {
+    for ( final SerialPort port : portList )
+    {
+      if ( matches( port, dev ))
+        return port;
+    }
+    
+    return null;
+  }
+  
+  
+  /**
+   * Test if a port belongs to a device.  Devices with a serial number are matched by serial number, and the others by 
+   * the descriptive port name 
+   * @param port port 
+   * @param dev device id 
+   * @return 
+   */
+  public static boolean matches( final SerialPort port, final IDeviceId dev )
+  {
+    if ( dev.hasSerial())
+      return port.getSerialNumber().equals( dev.getSerial());
+    
+    return port.getDescriptivePortName().equals( dev.getName());
+  }
+}
@@ -0,0 +1,470 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Protocol version 2.  Frames carry a sequence number and checksum, and the firmware acknowledges them.
+ *
+ * This is the message encoder for version 2 devices.  Each encoded frame is given the next sequence number and a
+ * copy is kept until it is acknowledged.  Up to the window size of frames may be in flight at once.
+ *
+ * The firmware replies to every valid frame with an ASCII line "A[next],[bits]\n".  next is the first sequence number
+ * not yet received (a cumulative ACK) and bits is a hex bitmap of frames received after it, where bit 0 is next + 1.
+ *
+ * A frame that is not acknowledged within the retransmit timeout is sent again with the same sequence number.  When a
+ * newer frame was already sent for the same hardware address, the old value is stale, so an empty control frame is
+ * sent in its place to fill the sequence gap.  The retransmit timeout follows RFC 6298.  Round trip samples are
+ * only taken from frames that were never retransmitted (Karn's algorithm), and the timeout doubles after each
+ * retransmission.
+ *
+ * A sync frame (control address, payload "S") resets the firmware sequence to the sync frame sequence.  One is sent
+ * every time the port is opened.
+ *
+ * This is thread safe.
+ */
+public class ReliableLink implements IMessageEncoder
+{
+  /**
+   * Default number of frames in flight
+   */
+  public static final int DEFAULT_WINDOW = 8;
+
+  /**
+   * Maximum number of frames in flight.  The firmware acknowledges at most this many frames after the cumulative ACK
+   */
+  public static final int MAX_WINDOW = 32;
+
+  /**
+   * Sync frame payload
+   */
+  private static final byte[] SYNC = { 'S' };
+
+  private static final int SEQUENCE_SPACE = 256;
+  private static final long INITIAL_RTO_NANOS = TimeUnit.MILLISECONDS.toNanos( 250 );
+  private static final long MIN_RTO_NANOS = TimeUnit.MILLISECONDS.toNanos( 20 );
+  private static final long MAX_RTO_NANOS = TimeUnit.SECONDS.toNanos( 2 );
+
+  /**
+   * Clock granularity used in the RTO calculation
+   */
+  private static final long CLOCK_GRANULARITY_NANOS = TimeUnit.MILLISECONDS.toNanos( 1 );
+
+  private final int window;
+
+  //..Frames in flight by sequence number
+  private final int[] addresses = new int[SEQUENCE_SPACE];
+  private final byte[][] payloads = new byte[SEQUENCE_SPACE][];
+  private final int[] lengths = new int[SEQUENCE_SPACE];
+  private final long[] sentAt = new long[SEQUENCE_SPACE];
+  private final boolean[] retransmitted = new boolean[SEQUENCE_SPACE];
+  private final boolean[] acked = new boolean[SEQUENCE_SPACE];
+
+  /**
+   * hardware address => sequence number of the newest frame sent
+   */
+  private final int[] latest = new int[ConflatingMessageQueue.SLOTS];
+
+  /**
+   * Oldest unacknowledged sequence number
+   */
+  private int base = 0;
+
+  /**
+   * Next sequence number
+   */
+  private int next = 0;
+
+  private double srtt = 0;
+  private double rttvar = 0;
+  private boolean hasRtt = false;
+  private long rto = INITIAL_RTO_NANOS;
+
+  //..Called when acknowledgements open the window 
+  private volatile Runnable availableHandler = null;
+
+  private volatile double lastRtt = 0;
+  private volatile long retransmits = 0;
+  private volatile long staleSkipped = 0;
+
+
+  /**
+   * @param window Maximum frames in flight.  1 - MAX_WINDOW
+   */
+  public ReliableLink( final int window )
+  {
+    if ( window < 1 || window > MAX_WINDOW )
+      throw new IllegalArgumentException( "window must be between 1 and " + MAX_WINDOW );
+
+    this.window = window;
+  }
+
+
+  public int getWindow()
+  {
+    return window;
+  }
+
+
+  /**
+   * @return Smoothed round trip time in milliseconds, or 0 before the first sample
+   */
+  public synchronized double getSmoothedRtt()
+  {
+    return srtt / 1_000_000.0;
+  }
+
+
+  /**
+   * @return Most recent round trip sample in milliseconds
+   */
+  public double getLastRtt()
+  {
+    return lastRtt;
+  }
+
+
+  /**
+   * @return Current retransmit timeout in milliseconds
+   */
+  public synchronized double getRetransmitTimeout()
+  {
+    return rto / 1_000_000.0;
+  }
+
+
+  /**
+   * @return Number of frames sent again
+   */
+  public long getRetransmits()
+  {
+    return retransmits;
+  }
+
+
+  /**
+   * @return Number of lost frames replaced by an empty frame because a newer value was already sent
+   */
+  public long getStaleSkipped()
+  {
+    return staleSkipped;
+  }
+
+
+  /**
+   * @return Number of frames that may be sent before the window is full
+   */
+  public synchronized int getAvailable()
+  {
+    return window - inFlight();
+  }
+
+
+  /**
+   * Set the handler called when acknowledgements make room in the window.  The handler is called while holding the 
+   * link lock and must not block
+   * @param availableHandler handler or null
+   */
+  public void setAvailableHandler( final Runnable availableHandler )
+  {
+    this.availableHandler = availableHandler;
+  }
+
+
+  /**
+   * Wait until the window has room
+   * @param timeoutNanos maximum time to wait
+   * @throws InterruptedException
+   */
+  public synchronized void awaitAvailable( final long timeoutNanos ) throws InterruptedException
+  {
+    final long deadline = System.nanoTime() + timeoutNanos;
+    long remaining = timeoutNanos;
+    while ( inFlight() >= window && remaining > 0 )
+    {
+      TimeUnit.NANOSECONDS.timedWait( this, remaining );
+      remaining = deadline - System.nanoTime();
+    }
+  }
+
+
+  /**
+   * Retrieve the time until the next retransmission is due
+   * @param now System.nanoTime()
+   * @return nanoseconds, or Long.MAX_VALUE when nothing is in flight
+   */
+  public synchronized long getTimeoutNanos( final long now )
+  {
+    long min = Long.MAX_VALUE;
+    for ( int seq = base; seq != next; seq = ( seq + 1 ) % SEQUENCE_SPACE )
+    {
+      if ( !acked[seq] )
+        min = Math.min( min, Math.max( 0, sentAt[seq] + rto - now ));
+    }
+
+    return min;
+  }
+
+
+  @Override
+  public int getMaxLength( final int payloadLength )
+  {
+    return Message.getMaxSequencedLength( payloadLength );
+  }
+
+
+  @Override
+  public int getLength( final byte[] payload, final int length )
+  {
+    return Message.getSequencedLength( payload, length );
+  }
+
+
+  /**
+   * Assign the next sequence number, keep a copy of the frame and write it to out.  The caller must check
+   * getAvailable() first
+   */
+  @Override
+  public synchronized void encode( final int hardwareAddress, final byte[] payload, final int length,
+    final ByteBuffer out )
+  {
+    final int seq = next;
+    next = ( next + 1 ) % SEQUENCE_SPACE;
+
+    final int address = hardwareAddress & 0xFF;
+    if ( payloads[seq] == null || payloads[seq].length < length )
+      payloads[seq] = new byte[Math.max( length, 16 )];
+
+    System.arraycopy( payload, 0, payloads[seq], 0, length );
+    addresses[seq] = address;
+    lengths[seq] = length;
+    sentAt[seq] = System.nanoTime();
+    retransmitted[seq] = false;
+    acked[seq] = false;
+    latest[address] = seq;
+
+    Message.encodeSequenced( seq, address, payload, length, out );
+  }
+
+
+  /**
+   * Retrieve the largest number of bytes retransmit() can write
+   * @return bytes
+   */
+  public synchronized int getMaxRetransmitLength()
+  {
+    int total = 0;
+    for ( int seq = base; seq != next; seq = ( seq + 1 ) % SEQUENCE_SPACE )
+    {
+      if ( !acked[seq] )
+        total += Message.getMaxSequencedLength( lengths[seq] );
+    }
+
+    return total;
+  }
+
+
+  /**
+   * Write every frame whose retransmit timeout has elapsed to out
+   * @param now System.nanoTime()
+   * @param out Destination.  Must have at least getMaxRetransmitLength() bytes remaining
+   * @return number of frames written
+   */
+  public synchronized int retransmit( final long now, final ByteBuffer out )
+  {
+    int n = 0;
+    for ( int seq = base; seq != next; seq = ( seq + 1 ) % SEQUENCE_SPACE )
+    {
+      if ( acked[seq] || now - sentAt[seq] < rto )
+        continue;
+
+      if ( addresses[seq] != BaudNegotiator.CONTROL_ADDRESS && latest[addresses[seq]] != seq )
+      {
+        //..A newer value for this address was sent.  Fill the gap with an empty control frame instead
+        addresses[seq] = BaudNegotiator.CONTROL_ADDRESS;
+        lengths[seq] = 0;
+        staleSkipped++;
+      }
+
+      Message.encodeSequenced( seq, addresses[seq], payloads[seq], lengths[seq], out );
+      sentAt[seq] = now;
+      retransmitted[seq] = true;
+      retransmits++;
+      n++;
+    }
+
+    if ( n > 0 )
+      rto = Math.min( MAX_RTO_NANOS, rto * 2 );
+
+    return n;
+  }
+
+
+  /**
+   * Forget every frame in flight and start over at sequence 0.  Frames that were not acknowledged and are still the
+   * newest value for their address are added back to queue.  Call sync() before writing anything else.
+   * This takes the queue lock while holding the link lock, so it must only be called by the device writer.
+   * @param queue Device message queue
+   */
+  public synchronized void reset( final ConflatingMessageQueue queue )
+  {
+    for ( int seq = base; seq != next; seq = ( seq + 1 ) % SEQUENCE_SPACE )
+    {
+      final int address = addresses[seq];
+      if ( !acked[seq] && address != BaudNegotiator.CONTROL_ADDRESS && latest[address] == seq )
+        queue.offer( address, payloads[seq], 0, lengths[seq] );
+    }
+
+    base = 0;
+    next = 0;
+    notifyAll();
+  }
+
+
+  /**
+   * Write a sync frame.  The firmware restarts its sequence at the sync frame
+   * @param out Destination.  Must have at least getMaxLength( 1 ) bytes remaining
+   */
+  public void sync( final ByteBuffer out )
+  {
+    encode( BaudNegotiator.CONTROL_ADDRESS, SYNC, SYNC.length, out );
+  }
+
+
+  /**
+   * Handle a line sent by the firmware.  Lines that are not ACKs are ignored
+   * @param line line
+   * @param length length
+   * @return true if the line was an ACK
+   */
+  public boolean onLine( final byte[] line, final int length )
+  {
+    if ( length < 2 || line[0] != 'A' )
+      return false;
+
+    int i = 1;
+    int cumulative = 0;
+    for ( ; i < length && line[i] != ','; i++ )
+    {
+      final int d = line[i] - '0';
+      if ( d < 0 || d > 9 )
+        return false;
+
+      cumulative = cumulative * 10 + d;
+    }
+
+    long bits = 0;
+    for ( i++; i < length; i++ )
+    {
+      final int d = Character.digit( line[i], 16 );
+      if ( d < 0 )
+        return false;
+
+      bits = ( bits << 4 ) | d;
+    }
+
+    onAck( cumulative % SEQUENCE_SPACE, bits, System.nanoTime());
+    return true;
+  }
+
+
+  /**
+   * Handle an acknowledgement
+   * @param cumulative First sequence number the firmware has not received
+   * @param bits Frames received after cumulative.  Bit 0 is cumulative + 1
+   * @param now System.nanoTime()
+   */
+  public synchronized void onAck( final int cumulative, final long bits, final long now )
+  {
+    //..Ignore acknowledgements from before the last reset or for frames never sent
+    if (( cumulative - base + SEQUENCE_SPACE ) % SEQUENCE_SPACE > inFlight())
+      return;
+
+    long sample = -1;
+    for ( int seq = base; seq != cumulative; seq = ( seq + 1 ) % SEQUENCE_SPACE )
+    {
+      sample = ack( seq, now, sample );
+    }
+
+    for ( int i = 0; i < MAX_WINDOW && bits >>> i != 0; i++ )
+    {
+      final int seq = ( cumulative + 1 + i ) % SEQUENCE_SPACE;
+      if (( bits & ( 1L << i )) != 0 && ( seq - base + SEQUENCE_SPACE ) % SEQUENCE_SPACE < inFlight())
+        sample = ack( seq, now, sample );
+    }
+
+    if ( sample >= 0 )
+      updateRto( sample );
+
+    final int before = base;
+    while ( base != next && acked[base] )
+    {
+      base = ( base + 1 ) % SEQUENCE_SPACE;
+    }
+
+    if ( base != before )
+    {
+      notifyAll();
+
+      final Runnable handler = availableHandler;
+      if ( handler != null )
+        handler.run();
+    }
+  }
+
+
+  /**
+   * Mark a frame acknowledged
+   * @return The round trip sample to use.  The newest sample from a frame that was never retransmitted
+   */
+  private long ack( final int seq, final long now, final long sample )
+  {
+    if ( acked[seq] )
+      return sample;
+
+    acked[seq] = true;
+
+    //..Karn's algorithm.  An ACK for a retransmitted frame could be for either copy
+    if ( retransmitted[seq] )
+      return sample;
+
+    return now - sentAt[seq];
+  }
+
+
+  /**
+   * RFC 6298
+   */
+  private void updateRto( final long sample )
+  {
+    if ( !hasRtt )
+    {
+      srtt = sample;
+      rttvar = sample / 2.0;
+      hasRtt = true;
+    }
+    else
+    {
+      rttvar = 0.75 * rttvar + 0.25 * Math.abs( srtt - sample );
+      srtt = 0.875 * srtt + 0.125 * sample;
+    }
+
+    lastRtt = sample / 1_000_000.0;
+    rto = Math.max( MIN_RTO_NANOS, Math.min( MAX_RTO_NANOS,
+      (long)( srtt + Math.max( CLOCK_GRANULARITY_NANOS, 4 * rttvar ))));
+  }
+
+
+  private int inFlight()
+  {
+    return ( next - base + SEQUENCE_SPACE ) % SEQUENCE_SPACE;
+  }
+}
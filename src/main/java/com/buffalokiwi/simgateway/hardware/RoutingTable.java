@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Maps software addresses to the connected components that display them.
+ * 
+ * Routes are held in a dense array indexed by software address, so finding the device, hardware address, component 
+ * type and value encoder for an event is a single array load.  Addresses above the largest configured address and 
+ * addresses without a connected component have no routes.
+ * 
+ * A software address may be mapped to any number of components on any number of devices, ie: the same control on 
+ * the pilot and copilot panels.  The routes for an address are ordered so components that receive the same bytes 
+ * are next to each other, and each route records if it can reuse the bytes encoded for the previous route.  A value 
+ * mirrored to several panels is then encoded once per distinct encoding.
+ * 
+ * Tables are immutable.  The device factory builds a new table when a device is attached or detached and replaces 
+ * the old one, so readers always see a complete table.  The value encoders are reused buffers and must only be used 
+ * by the routing thread.
+ */
+public final class RoutingTable 
+{
+  /**
+   * A component on a connected device 
+   */
+  public static final class Route
+  {
+    private final IDevice device;
+    private final IComponent component;
+    private final int hardwareAddress;
+    private final ComponentType type;
+    private final IValueEncoder encoder;
+    private boolean sharedEncoding = false;
+    
+    
+    private Route( final IDevice device, final IComponent component, final IValueEncoder encoder )
+    {
+      this.device = device;
+      this.component = component;
+      this.encoder = encoder;
+      hardwareAddress = component.getHardwareAddress();
+      type = component.getType();
+    }
+    
+    
+    /**
+     * Test if the bytes encoded for the previous route in the list can be sent to this component without encoding 
+     * the value again.  The previous route uses the same encoder and an equivalent component, and neither component 
+     * has a smoothing filter 
+     * @return true to reuse the previous bytes 
+     */
+    public boolean isSharedEncoding()
+    {
+      return sharedEncoding;
+    }
+    
+    
+    /**
+     * @return The device the component is on 
+     */
+    public IDevice getDevice()
+    {
+      return device;
+    }
+    
+    
+    /**
+     * @return The component 
+     */
+    public IComponent getComponent()
+    {
+      return component;
+    }
+    
+    
+    /**
+     * @return Component hardware address 
+     */
+    public int getHardwareAddress()
+    {
+      return hardwareAddress;
+    }
+    
+    
+    /**
+     * @return Component type 
+     */
+    public ComponentType getType()
+    {
+      return type;
+    }
+    
+    
+    /**
+     * @return Encoder for the device value encoding 
+     */
+    public IValueEncoder getEncoder()
+    {
+      return encoder;
+    }
+  }
+  
+  
+  /**
+   * A table without routes 
+   */
+  public static final RoutingTable EMPTY = new RoutingTable( List.of());
+  
+  /**
+   * Routes are grouped by encoding, then unfiltered components first, then by component type and scale 
+   */
+  private static final Comparator<Route> ROUTE_ORDER = Comparator
+    .comparingInt(( Route r ) -> r.getDevice().getEncoding().ordinal())
+    .thenComparing( r -> r.getComponent().getSmoothingFilter() != null )
+    .thenComparingInt( r -> r.getType().ordinal())
+    .thenComparingInt( r -> r.getComponent().getScale());
+  
+  /**
+   * software address => routes or null 
+   */
+  private final List<Route>[] routes;
+  
+  
+  /**
+   * @param deviceList Connected devices 
+   */
+  public RoutingTable( final List<IDevice> deviceList )
+  {
+    if ( deviceList == null )
+      throw new IllegalArgumentException( "deviceList must not be null" );
+    
+    int maxAddress = -1;
+    for ( final IDevice device : deviceList )
+    {
+      for ( final IComponent c : device.getComponentList())
+      {
+        maxAddress = Math.max( maxAddress, c.getAddress());
+      }
+    }
+    
+    //..One encoder per ValueEncoding, indexed by ordinal 
+    final IValueEncoder[] encoders = new IValueEncoder[ValueEncoding.values().length];
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    final List<Route>[] targets = new List[maxAddress + 1];
+    for ( final IDevice device : deviceList )
+    {
+      final int encoding = device.getEncoding().ordinal();
+      if ( encoders[encoding] == null )
+        encoders[encoding] = device.getEncoding().createValueEncoder();
+      
+      for ( final IComponent c : device.getComponentList())
+      {
+        if ( targets[c.getAddress()] == null )
+          targets[c.getAddress()] = new ArrayList<>( 1 );
+        
+        targets[c.getAddress()].add( new Route( device, c, encoders[encoding] ));
+      }
+    }
+    
+    for ( int i = 0; i < targets.length; i++ )
+    {
+      if ( targets[i] == null )
+        continue;
+      
+      final List<Route> list = targets[i];
+      list.sort( ROUTE_ORDER );
+      
+      for ( int j = 1; j < list.size(); j++ )
+      {
+        final Route prev = list.get( j - 1 );
+        final Route route = list.get( j );
+        route.sharedEncoding = prev.getEncoder() == route.getEncoder() 
+          && prev.getComponent().getSmoothingFilter() == null 
+          && route.getComponent().getSmoothingFilter() == null 
+          && route.getEncoder().isEquivalent( prev.getComponent(), route.getComponent());
+      }
+      
+      targets[i] = List.copyOf( list );
+    }
+    
+    routes = targets;
+  }
+  
+  
+  /**
+   * Retrieve the routes for a software address 
+   * @param address software address 
+   * @return routes.  Empty if the address is not mapped 
+   */
+  public List<Route> get( final int address )
+  {
+    if ( address < 0 || address >= routes.length || routes[address] == null )
+      return List.of();
+    
+    return routes[address];
+  }
+  
+  
+  /**
+   * @return Number of slots in the table.  One more than the largest routed software address 
+   */
+  public int size()
+  {
+    return routes.length;
+  }
+}
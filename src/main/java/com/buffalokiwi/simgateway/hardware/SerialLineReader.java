@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
+
+
+/**
+ * Reads ASCII lines sent by a device and passes each one to a handler.
+ * 
+ * Lines end with \n.  \r is ignored.  Lines longer than MAX_LINE are discarded.
+ * Events are delivered on the jSerialComm event thread, and buffers are reused, so reading does not allocate.
+ */
+public class SerialLineReader implements SerialPortDataListener
+{
+  /**
+   * Longest line accepted 
+   */
+  public static final int MAX_LINE = 128;
+  
+  private final ISerialLineHandler handler;
+  private final byte[] readBuffer = new byte[256];
+  private final byte[] line = new byte[MAX_LINE];
+  private int length = 0;
+  private boolean overflow = false;
+  
+  
+  public SerialLineReader( final ISerialLineHandler handler )
+  {
+    if ( handler == null )
+      throw new IllegalArgumentException( "handler must not be null" );
+    
+    this.handler = handler;
+  }
+  
+  
+  @Override
+  public int getListeningEvents()
+  {
+    return SerialPort.LISTENING_EVENT_DATA_AVAILABLE;
+  }
+  
+  
+  @Override
+  public void serialEvent( final SerialPortEvent event )
+  {
+    if ( event.getEventType() != SerialPort.LISTENING_EVENT_DATA_AVAILABLE )
+      return;
+    
+    final SerialPort port = event.getSerialPort();
+    int available;
+    while (( available = port.bytesAvailable()) > 0 )
+    {
+      final int n = port.readBytes( readBuffer, Math.min( available, readBuffer.length ));
+      if ( n <= 0 )
+        return;
+      
+      accept( readBuffer, n );
+    }
+  }
+  
+  
+  /**
+   * Add received bytes 
+   * @param bytes bytes 
+   * @param count number of bytes 
+   */
+  public void accept( final byte[] bytes, final int count )
+  {
+    for ( int i = 0; i < count; i++ )
+    {
+      final byte b = bytes[i];
+      if ( b == '\n' )
+      {
+        if ( !overflow )
+          handler.accept( line, length );
+        
+        length = 0;
+        overflow = false;
+      }
+      else if ( b == '\r' )
+      {
+        continue;
+      }
+      else if ( length < line.length )
+      {
+        line[length++] = b;
+      }
+      else
+      {
+        overflow = true;
+      }
+    }
+  }
+}
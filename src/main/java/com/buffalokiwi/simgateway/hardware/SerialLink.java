@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.fazecast.jSerialComm.SerialPort;
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * A link over a jSerialComm serial port.
+ * 
+ * This is used for USB serial devices and for pseudo-terminals opened by path.  Pseudo-terminals have no baud rate, 
+ * so writes can be throttled to emulate one.
+ */
+public class SerialLink implements IDeviceLink
+{
+  private final SerialPort port;
+  private final boolean throttle;
+  private ThrottledOutputStream throttledStream = null;
+  
+  
+  /**
+   * @param port port 
+   */
+  public SerialLink( final SerialPort port )
+  {
+    this( port, false );
+  }
+  
+  
+  /**
+   * @param port port 
+   * @param throttle Block writes for the time the configured baud rate would take to send them
+   */
+  public SerialLink( final SerialPort port, final boolean throttle )
+  {
+    if ( port == null )
+      throw new IllegalArgumentException( "port must not be null" );
+    
+    this.port = port;
+    this.throttle = throttle;
+  }
+  
+  
+  /**
+   * @return port 
+   */
+  public SerialPort getSerialPort()
+  {
+    return port;
+  }
+  
+  
+  @Override
+  public String getDescription()
+  {
+    return port.getPortDescription() + " (" + port.getSystemPortPath() + ")";
+  }
+  
+  
+  @Override
+  public boolean isOpen()
+  {
+    return port.isOpen();
+  }
+  
+  
+  @Override
+  public boolean open( final SerialSettings settings )
+  {
+    if ( !settings.open( port ))
+      return false;
+    
+    throttledStream = ( throttle ) 
+      ? new ThrottledOutputStream( port.getOutputStream(), settings.getBaudRate(), settings.getBitsPerByte()) 
+      : null;
+    
+    return true;
+  }
+  
+  
+  @Override
+  public int negotiateBaudRate( final SerialSettings settings, final IMessageEncoder encoder )
+  {
+    final int baudRate = new BaudNegotiator( port, settings, encoder ).negotiate();
+    if ( throttledStream != null )
+      throttledStream.setBaudRate( baudRate );
+    
+    return baudRate;
+  }
+  
+  
+  @Override
+  public boolean setLineHandler( final ISerialLineHandler handler )
+  {
+    //..Lines are read on the jSerialComm event thread as soon as they arrive 
+    port.removeDataListener();
+    return port.addDataListener( new SerialLineReader( handler ));
+  }
+  
+  
+  @Override
+  public OutputStream getOutputStream() throws IOException
+  {
+    if ( !port.isOpen())
+      throw new IOException( "Port " + port.getSystemPortPath() + " is not open" );
+    
+    return ( throttledStream != null ) ? throttledStream : port.getOutputStream();
+  }
+  
+  
+  /**
+   * jSerialComm writes through JNI 
+   */
+  @Override
+  public boolean hasNativeWrites()
+  {
+    return true;
+  }
+  
+  
+  @Override
+  public void close() throws IOException
+  {
+    if ( !port.closePort())
+      throw new IOException( "Failed to close port " + port.getSystemPortPath());
+  }
+}
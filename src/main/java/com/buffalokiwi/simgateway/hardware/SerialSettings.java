@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.fazecast.jSerialComm.SerialPort;
+
+
+/**
+ * Serial port parameters for a device 
+ * 
+ * Defaults to 9600 8N1 with blocking writes, which every Arduino sketch supports.  When a negotiated baud rate is 
+ * set, the port is opened at the configured baud rate and BaudNegotiator asks the firmware to switch to a faster rate.
+ * 
+ * This is immutable.
+ */
+public class SerialSettings
+{
+  public static class Builder
+  {
+    private int baudRate = DEFAULT_BAUD_RATE;
+    private int dataBits = DEFAULT_DATA_BITS;
+    private Parity parity = Parity.NONE;
+    private StopBits stopBits = StopBits.ONE;
+    private int writeTimeout = 0;
+    private int sendBufferSize = 0;
+    private int receiveBufferSize = 0;
+    private int negotiatedBaudRate = 0;
+    
+    
+    /**
+     * Sets the baud rate the port is opened at 
+     * @param baudRate bits per second 
+     * @return 
+     */
+    public Builder setBaudRate( final int baudRate )
+    {
+      this.baudRate = baudRate;
+      return this;
+    }
+    
+    
+    /**
+     * @param dataBits 5-8 
+     * @return 
+     */
+    public Builder setDataBits( final int dataBits )
+    {
+      this.dataBits = dataBits;
+      return this;
+    }
+    
+    
+    public Builder setParity( final Parity parity )
+    {
+      this.parity = parity;
+      return this;
+    }
+    
+    
+    public Builder setStopBits( final StopBits stopBits )
+    {
+      this.stopBits = stopBits;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the write timeout.  0 blocks until every byte is written 
+     * @param ms milliseconds 
+     * @return 
+     */
+    public Builder setWriteTimeout( final int ms )
+    {
+      this.writeTimeout = ms;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the operating system send buffer size.  0 uses the driver default 
+     * @param size bytes 
+     * @return 
+     */
+    public Builder setSendBufferSize( final int size )
+    {
+      this.sendBufferSize = size;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the operating system receive buffer size.  0 uses the driver default 
+     * @param size bytes 
+     * @return 
+     */
+    public Builder setReceiveBufferSize( final int size )
+    {
+      this.receiveBufferSize = size;
+      return this;
+    }
+    
+    
+    /**
+     * Sets the highest baud rate to negotiate with the firmware after the port is opened.  0 disables negotiation 
+     * @param baudRate bits per second 
+     * @return 
+     */
+    public Builder setNegotiatedBaudRate( final int baudRate )
+    {
+      this.negotiatedBaudRate = baudRate;
+      return this;
+    }
+    
+    
+    public SerialSettings build() throws IllegalArgumentException
+    {
+      return new SerialSettings( this );
+    }
+  }
+  
+  
+  /**
+   * Default baud rate 
+   */
+  public static final int DEFAULT_BAUD_RATE = 9600;
+  
+  /**
+   * Default data bits 
+   */
+  public static final int DEFAULT_DATA_BITS = 8;
+  
+  /**
+   * 9600 8N1 with blocking writes 
+   */
+  public static final SerialSettings DEFAULT = new Builder().build();
+  
+  private final int baudRate;
+  private final int dataBits;
+  private final Parity parity;
+  private final StopBits stopBits;
+  private final int writeTimeout;
+  private final int sendBufferSize;
+  private final int receiveBufferSize;
+  private final int negotiatedBaudRate;
+  
+  
+  protected SerialSettings( final Builder b )
+  {
+    if ( b.baudRate < 300 )
+      throw new IllegalArgumentException( "baud rate must be at least 300" );
+    else if ( b.dataBits < 5 || b.dataBits > 8 )
+      throw new IllegalArgumentException( "data bits must be between 5 and 8" );
+    else if ( b.parity == null )
+      throw new IllegalArgumentException( "parity must not be null" );
+    else if ( b.stopBits == null )
+      throw new IllegalArgumentException( "stop bits must not be null" );
+    else if ( b.writeTimeout < 0 )
+      throw new IllegalArgumentException( "write timeout must be an unsigned integer" );
+    else if ( b.sendBufferSize < 0 || b.receiveBufferSize < 0 )
+      throw new IllegalArgumentException( "buffer sizes must be unsigned integers" );
+    else if ( b.negotiatedBaudRate != 0 && b.negotiatedBaudRate <= b.baudRate )
+      throw new IllegalArgumentException( "negotiated baud rate must be 0 or greater than the baud rate" );
+    
+    baudRate = b.baudRate;
+    dataBits = b.dataBits;
+    parity = b.parity;
+    stopBits = b.stopBits;
+    writeTimeout = b.writeTimeout;
+    sendBufferSize = b.sendBufferSize;
+    receiveBufferSize = b.receiveBufferSize;
+    negotiatedBaudRate = b.negotiatedBaudRate;
+  }
+  
+  
+  public int getBaudRate()
+  {
+    return baudRate;
+  }
+  
+  
+  public int getDataBits()
+  {
+    return dataBits;
+  }
+  
+  
+  public Parity getParity()
+  {
+    return parity;
+  }
+  
+  
+  public StopBits getStopBits()
+  {
+    return stopBits;
+  }
+  
+  
+  public int getWriteTimeout()
+  {
+    return writeTimeout;
+  }
+  
+  
+  public int getSendBufferSize()
+  {
+    return sendBufferSize;
+  }
+  
+  
+  public int getReceiveBufferSize()
+  {
+    return receiveBufferSize;
+  }
+  
+  
+  /**
+   * @return The highest baud rate to negotiate, or 0 when negotiation is disabled 
+   */
+  public int getNegotiatedBaudRate()
+  {
+    return negotiatedBaudRate;
+  }
+  
+  
+  /**
+   * Retrieve the number of bit times used to send one data byte.  Start bit, data bits, parity bit and stop bits 
+   * @return bits 
+   */
+  public int getBitsPerByte()
+  {
+    return 1 + dataBits + parity.getBits() + stopBits.getBits();
+  }
+  
+  
+  /**
+   * Apply these settings to a port and open it 
+   * @param port port 
+   * @return true if the port was opened 
+   */
+  public boolean open( final SerialPort port )
+  {
+    port.setComPortParameters( baudRate, dataBits, stopBits.getValue(), parity.getValue());
+    applyTimeouts( port );
+    
+    if ( sendBufferSize > 0 || receiveBufferSize > 0 )
+    {
+      //..-1 keeps the driver default 
+      return port.openPort( 0, ( sendBufferSize > 0 ) ? sendBufferSize : -1, 
+        ( receiveBufferSize > 0 ) ? receiveBufferSize : -1 );
+    }
+    
+    return port.openPort();
+  }
+  
+  
+  /**
+   * Apply the configured timeouts to a port.  Reads do not block 
+   * @param port port 
+   */
+  public void applyTimeouts( final SerialPort port )
+  {
+    port.setComPortTimeouts( SerialPort.TIMEOUT_WRITE_BLOCKING, 0, writeTimeout );
+  }
+  
+  
+  @Override
+  public String toString()
+  {
+    return String.valueOf( baudRate ) + " " + dataBits + parity.getName().substring( 0, 1 ).toUpperCase() 
+      + stopBits.getName();
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.simgateway.state.ISmoothingFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Writes the smoothed values of components with a smoothing filter.
+ * 
+ * The router adds each value from the sim to the filter.  Sims often stop sending a value once it stops changing, 
+ * which would leave the smoothed output part of the way to the new value.  Each time this runs, filters that did not 
+ * receive a value since the last run are given the last value again, so the output keeps moving until it reaches 
+ * the value from the sim.
+ * 
+ * This is meant to be scheduled with the device at the device output rate, and it only writes a value to the device 
+ * when the smoothed value changes.  This is not thread safe.
+ */
+public class SmoothingSettler implements Runnable
+{
+  /**
+   * A smoothed component and its last written value 
+   */
+  private static class Smoothed
+  {
+    private final IComponent component;
+    private final ISmoothingFilter filter;
+    private float lastValue = Float.NaN;
+    
+    Smoothed( final IComponent component )
+    {
+      this.component = component;
+      filter = component.getSmoothingFilter();
+    }
+  }
+  
+  
+  private final IDevice device;
+  private final Smoothed[] components;
+  
+  //..Converts values to bytes 
+  private final IValueEncoder encoder;
+  
+  
+  /**
+   * @param device The device to write to 
+   */
+  public SmoothingSettler( final IDevice device )
+  {
+    if ( device == null )
+      throw new IllegalArgumentException( "device must not be null" );
+    
+    this.device = device;
+    encoder = device.getEncoding().createValueEncoder();
+    
+    //..Gauges are written by the GaugeInterpolator 
+    final List<Smoothed> smoothedList = new ArrayList<>();
+    for ( final IComponent component : device.getComponentList())
+    {
+      if ( component.getSmoothingFilter() != null && component.getType() != ComponentType.GAUGE )
+        smoothedList.add( new Smoothed( component ));
+    }
+    
+    components = smoothedList.toArray( Smoothed[]::new );
+  }
+  
+  
+  /**
+   * Test if the device has any smoothed components 
+   * @return has components 
+   */
+  public boolean hasComponents()
+  {
+    return components.length > 0;
+  }
+  
+  
+  /**
+   * Settle every filter and write changed values to the device 
+   */
+  @Override
+  public void run()
+  {
+    for ( final Smoothed c : components )
+    {
+      c.filter.settle();
+      final float value = (float)c.filter.get();
+      if ( Float.isNaN( value ) || value == c.lastValue )
+        continue;
+      
+      c.lastValue = value;
+      final int length = encoder.encodeFloat( c.component, value );
+      device.write( c.component.getHardwareAddress(), encoder.getBuffer(), 0, length );
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.fazecast.jSerialComm.SerialPort;
+
+/**
+ * Serial port stop bits 
+ */
+public enum StopBits
+{
+  ONE( "1", SerialPort.ONE_STOP_BIT, 1 ),
+  ONE_POINT_FIVE( "1.5", SerialPort.ONE_POINT_FIVE_STOP_BITS, 2 ),
+  TWO( "2", SerialPort.TWO_STOP_BITS, 2 );
+
+
+  private final String name;
+  private final int value;
+  private final int bits;
+
+
+  public static StopBits fromName( final String name )
+  {
+    for ( final StopBits s : values())
+    {
+      if ( s.getName().equals( name ))
+        return s;
+    }
+
+    return null;
+  }
+
+
+  StopBits( final String name, final int value, final int bits )
+  {
+    this.name = name;
+    this.value = value;
+    this.bits = bits;
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+
+
+  /**
+   * @return jSerialComm stop bits constant 
+   */
+  public int getValue()
+  {
+    return value;
+  }
+
+
+  /**
+   * @return Whole number of bit times used by the stop bits.  1.5 stop bits is rounded up 
+   */
+  public int getBits()
+  {
+    return bits;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+}
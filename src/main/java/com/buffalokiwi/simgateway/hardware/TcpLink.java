@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+
+/**
+ * A link to a network device over a TCP connection.
+ * 
+ * The device listens and the gateway connects.  Nagle's algorithm is disabled so each write is sent immediately.
+ */
+public class TcpLink extends NetworkLink
+{
+  /**
+   * Default milliseconds to wait for a connection 
+   */
+  public static final int DEFAULT_CONNECT_TIMEOUT = 1000;
+  
+  private final int connectTimeout;
+  
+  
+  /**
+   * @param host Host name or address 
+   * @param port port 
+   * @param reconnect Milliseconds between connection attempts 
+   * @param connectTimeout Milliseconds to wait for a connection 
+   */
+  public TcpLink( final String host, final int port, final int reconnect, final int connectTimeout )
+  {
+    super( host, port, reconnect );
+    
+    if ( connectTimeout < 1 )
+      throw new IllegalArgumentException( "connectTimeout must be greater than zero" );
+    
+    this.connectTimeout = connectTimeout;
+  }
+  
+  
+  @Override
+  protected String getScheme()
+  {
+    return LinkType.TCP.getName();
+  }
+  
+  
+  @Override
+  protected IConnection connect( final InetSocketAddress address ) throws IOException
+  {
+    final Socket socket = new Socket();
+    try {
+      socket.setTcpNoDelay( true );
+      socket.connect( address, connectTimeout );
+    } catch( IOException e ) {
+      socket.close();
+      throw e;
+    }
+    
+    final InputStream in = socket.getInputStream();
+    final OutputStream out = socket.getOutputStream();
+    
+    return new IConnection() {
+      @Override
+      public int read( final byte[] buffer ) throws IOException
+      {
+        return in.read( buffer );
+      }
+
+      @Override
+      public void send( final byte[] bytes, final int length ) throws IOException
+      {
+        out.write( bytes, 0, length );
+      }
+
+      @Override
+      public void close() throws IOException
+      {
+        socket.close();
+      }
+    };
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Blocks writes for as long as a serial link at the emulated baud rate would take to send the bytes.
+ * 
+ * Used by virtual links so the link scheduler and queue see the same back pressure as a real port.
+ */
+public class ThrottledOutputStream extends OutputStream
+{
+  private final OutputStream out;
+  private final int bitsPerByte;
+  private volatile int baudRate;
+  
+  //..System.nanoTime() when the last byte written leaves the emulated link 
+  private long idleAt = 0;
+  
+  
+  /**
+   * @param out stream 
+   * @param baudRate Emulated link speed in bits per second 
+   * @param bitsPerByte Bit times used to send one data byte 
+   */
+  public ThrottledOutputStream( final OutputStream out, final int baudRate, final int bitsPerByte )
+  {
+    if ( out == null )
+      throw new IllegalArgumentException( "out must not be null" );
+    else if ( bitsPerByte < 1 )
+      throw new IllegalArgumentException( "bitsPerByte must be greater than zero" );
+    else if ( baudRate < bitsPerByte )
+      throw new IllegalArgumentException( "baudRate must be at least bitsPerByte" );
+    
+    this.out = out;
+    this.bitsPerByte = bitsPerByte;
+    this.baudRate = baudRate;
+  }
+  
+  
+  /**
+   * @param baudRate Emulated link speed in bits per second 
+   */
+  public void setBaudRate( final int baudRate )
+  {
+    if ( baudRate < bitsPerByte )
+      throw new IllegalArgumentException( "baudRate must be at least bitsPerByte" );
+    
+    this.baudRate = baudRate;
+  }
+  
+  
+  public int getBaudRate()
+  {
+    return baudRate;
+  }
+  
+  
+  @Override
+  public void write( final int b ) throws IOException
+  {
+    out.write( b );
+    await( 1 );
+  }
+  
+  
+  @Override
+  public void write( final byte[] b, final int off, final int len ) throws IOException
+  {
+    out.write( b, off, len );
+    await( len );
+  }
+  
+  
+  @Override
+  public void flush() throws IOException
+  {
+    out.flush();
+  }
+  
+  
+  @Override
+  public void close() throws IOException
+  {
+    out.close();
+  }
+  
+  
+  /**
+   * Wait until the bytes would have been sent 
+   * @param bytes bytes written 
+   */
+  private void await( final int bytes )
+  {
+    final long now = System.nanoTime();
+    idleAt = Math.max( idleAt, now ) + (long)bytes * bitsPerByte * 1_000_000_000L / baudRate;
+    
+    long remaining;
+    while (( remaining = idleAt - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted())
+    {
+      LockSupport.parkNanos( remaining );
+    }
+  }
+}
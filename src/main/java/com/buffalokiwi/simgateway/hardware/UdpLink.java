@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+
+
+/**
+ * A link to a network device over UDP.
+ * 
+ * Each write is sent as one datagram holding every frame in the write.  Writes larger than the datagram size are 
+ * split into several datagrams, and a frame may then be split between two of them.  The link scheduler limits a 
+ * write to about baud / 10 / output_rate bytes, so keeping that below the datagram size keeps frames whole.
+ * 
+ * UDP does not detect a device that went away, so the link is only reopened after the operating system reports an 
+ * error, ie: port unreachable.  Use protocol 2 to recover lost datagrams.  The device replies to the address and 
+ * port the datagrams came from.
+ */
+public class UdpLink extends NetworkLink
+{
+  /**
+   * Default largest datagram.  Fits an ethernet frame without fragmentation 
+   */
+  public static final int DEFAULT_DATAGRAM = 1400;
+  
+  /**
+   * Largest UDP payload 
+   */
+  public static final int MAX_DATAGRAM = 65507;
+  
+  private final int datagramSize;
+  
+  
+  /**
+   * @param host Host name or address 
+   * @param port port 
+   * @param reconnect Milliseconds between connection attempts 
+   * @param datagramSize Largest datagram in bytes 
+   */
+  public UdpLink( final String host, final int port, final int reconnect, final int datagramSize )
+  {
+    super( host, port, reconnect );
+    
+    if ( datagramSize < 1 || datagramSize > MAX_DATAGRAM )
+      throw new IllegalArgumentException( "datagramSize must be between 1 and " + MAX_DATAGRAM );
+    
+    this.datagramSize = datagramSize;
+  }
+  
+  
+  @Override
+  protected String getScheme()
+  {
+    return LinkType.UDP.getName();
+  }
+  
+  
+  @Override
+  protected IConnection connect( final InetSocketAddress address ) throws IOException
+  {
+    //..A connected socket only receives from the device, and receives port unreachable errors 
+    final DatagramSocket socket = new DatagramSocket();
+    try {
+      socket.connect( address );
+    } catch( IOException e ) {
+      socket.close();
+      throw e;
+    }
+    
+    return new IConnection() {
+      private final DatagramPacket sent = new DatagramPacket( new byte[0], 0 );
+      
+      @Override
+      public int read( final byte[] buffer ) throws IOException
+      {
+        final DatagramPacket received = new DatagramPacket( buffer, buffer.length );
+        socket.receive( received );
+        return received.getLength();
+      }
+
+      @Override
+      public void send( final byte[] bytes, final int length ) throws IOException
+      {
+        for ( int offset = 0; offset < length; offset += datagramSize )
+        {
+          sent.setData( bytes, offset, Math.min( datagramSize, length - offset ));
+          socket.send( sent );
+        }
+      }
+
+      @Override
+      public void close() throws IOException
+      {
+        socket.close();
+      }
+    };
+  }
+}
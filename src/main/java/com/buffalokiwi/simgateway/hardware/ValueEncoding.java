@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+/**
+ * How values are encoded on the wire for a device.  The device firmware must use the same encoding.
+ */
+public enum ValueEncoding
+{
+  /**
+   * Every value is sent as ASCII text
+   */
+  TEXT( "text" ),
+
+  /**
+   * Values are sent in a compact binary form chosen by component type, and messages are byte stuffed 
+   * @see BinaryValueEncoder 
+   */
+  BINARY( "binary" );
+
+
+  private final String name;
+
+
+  public static ValueEncoding fromName( final String name )
+  {
+    for ( final ValueEncoding e : values())
+    {
+      if ( e.getName().equalsIgnoreCase( name ))
+        return e;
+    }
+
+    return null;
+  }
+
+
+  ValueEncoding( final String name )
+  {
+    this.name = name;
+  }
+
+
+  public String getName()
+  {
+    return name;
+  }
+  
+  
+  /**
+   * Retrieve the encoder used to frame messages 
+   * @return encoder 
+   */
+  public IMessageEncoder getMessageEncoder()
+  {
+    return ( this == BINARY ) ? Message.STUFFED_ENCODER : Message.ENCODER;
+  }
+  
+  
+  /**
+   * Create a value encoder.  Value encoders are not thread safe 
+   * @return encoder 
+   */
+  public IValueEncoder createValueEncoder()
+  {
+    return ( this == BINARY ) ? new BinaryValueEncoder() : new AsciiValueEncoder();
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * A link that does not need a serial port.  
+ * 
+ * Writes can be throttled to the configured baud rate, and baud rate negotiation succeeds at the requested rate 
+ * unless a subclass limits it.  Lines can be injected with receive() as if the device sent them, which is how tests 
+ * and benchmarks drive the input path.
+ */
+public abstract class VirtualLink implements IDeviceLink
+{
+  private final boolean throttle;
+  private volatile OutputStream out = null;
+  private ThrottledOutputStream throttledStream = null;
+  private volatile SerialLineReader lineReader = null;
+  
+  
+  /**
+   * @param throttle Block writes for the time the configured baud rate would take to send them
+   */
+  protected VirtualLink( final boolean throttle )
+  {
+    this.throttle = throttle;
+  }
+  
+  
+  /**
+   * Open the underlying stream 
+   * @return stream 
+   * @throws IOException 
+   */
+  protected abstract OutputStream openStream() throws IOException;
+  
+  
+  @Override
+  public boolean isOpen()
+  {
+    return out != null;
+  }
+  
+  
+  @Override
+  public synchronized boolean open( final SerialSettings settings )
+  {
+    if ( out != null )
+      return true;
+    
+    final OutputStream stream;
+    try {
+      stream = openStream();
+    } catch( IOException e ) {
+      return false;
+    }
+    
+    if ( throttle )
+    {
+      throttledStream = new ThrottledOutputStream( stream, settings.getBaudRate(), settings.getBitsPerByte());
+      out = throttledStream;
+    }
+    else
+    {
+      out = stream;
+    }
+    
+    return true;
+  }
+  
+  
+  @Override
+  public int negotiateBaudRate( final SerialSettings settings, final IMessageEncoder encoder )
+  {
+    final int rate = getSupportedBaudRate( settings );
+    if ( throttledStream != null )
+      throttledStream.setBaudRate( rate );
+    
+    return rate;
+  }
+  
+  
+  /**
+   * Retrieve the rate baud rate negotiation settles on.  Defaults to the requested rate 
+   * @param settings port settings 
+   * @return rate 
+   */
+  protected int getSupportedBaudRate( final SerialSettings settings )
+  {
+    return settings.getNegotiatedBaudRate();
+  }
+  
+  
+  @Override
+  public boolean setLineHandler( final ISerialLineHandler handler )
+  {
+    lineReader = new SerialLineReader( handler );
+    return true;
+  }
+  
+  
+  /**
+   * Deliver bytes to the line handler as if the device sent them.  Lines end with \n 
+   * @param bytes bytes 
+   * @param count number of bytes 
+   */
+  public synchronized void receive( final byte[] bytes, final int count )
+  {
+    final SerialLineReader reader = lineReader;
+    if ( reader != null )
+      reader.accept( bytes, count );
+  }
+  
+  
+  @Override
+  public OutputStream getOutputStream() throws IOException
+  {
+    final OutputStream stream = out;
+    if ( stream == null )
+      throw new IOException( getDescription() + " is not open" );
+    
+    return stream;
+  }
+  
+  
+  @Override
+  public synchronized void close() throws IOException
+  {
+    if ( out == null )
+      return;
+    
+    try {
+      out.close();
+    } finally {
+      out = null;
+      throttledStream = null;
+    }
+  }
+}
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.simgateway.dcs.Control;
+import com.buffalokiwi.simgateway.state.FloatState;
+import com.buffalokiwi.simgateway.state.ISimControl;
+import com.buffalokiwi.simgateway.state.IStateEventManager;
+import com.buffalokiwi.utils.Logs;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Decodes packed delta frames sent by the SimGateway export script.
+ * 
+ * A frame contains a sequence number followed by only the controls that changed since the previous frame:
+ * 
+ *   seq;address=value;address=value 
+ * 
+ * Sequence 0 is a full frame containing every exported control.  The exporter sends one on connect and whenever 
+ * a resync is requested.  Every other frame must be numbered one higher than the previous frame.  When a frame is 
+ * missing, the values in the frame are still applied and FRAME_GAP is returned so the caller can request a full frame.
+ * 
+ * Every value in a frame is committed as a single state frame.  By default, state cells are created the first time an 
+ * address is seen.  A different IValueSink can be supplied to store values elsewhere.
+ * 
+ * This is thread safe.
+ */
+public class FrameDecoder 
+{
+  /**
+   * The frame was applied 
+   */
+  public static final int FRAME_OK = 0;
+  
+  /**
+   * The frame was applied, but one or more frames were missed.  A full frame is required 
+   */
+  public static final int FRAME_GAP = 1;
+  
+  /**
+   * The frame is malformed.  Any valid pairs were applied.  A full frame is required 
+   */
+  public static final int FRAME_INVALID = 2;
+  
+  /**
+   * The highest accepted software address 
+   */
+  public static final int MAX_ADDRESS = 0xFFFF;
+  
+  /**
+   * Default number of decimal places kept for frame values 
+   */
+  public static final int DEFAULT_SCALE = 4;
+  
+  private static final Logger LOG = LogManager.getLogger( FrameDecoder.class );
+  
+  private final SimType sim;
+  private final IStateEventManager stateManager;
+  private final IValueSink sink;
+  private final int maxAddress;
+  private final PayloadParser parser = new PayloadParser( ';' );
+  
+  /**
+   * software address => cell.  Guarded by this 
+   */
+  private final Map<Integer,FloatState> cellMap = new HashMap<>();
+  
+  /**
+   * Value scratch space.  Guarded by this 
+   */
+  private final float[] value = new float[1];
+  
+  /**
+   * Last sequence number received or -1.  Guarded by this 
+   */
+  private long lastSequence = -1;
+  
+  
+  /**
+   * @param sim The sim the controls belong to 
+   * @param stateManager State changes are registered here 
+   */
+  public FrameDecoder( final SimType sim, final IStateEventManager stateManager )
+  {
+    if ( sim == null )
+      throw new IllegalArgumentException( "sim must not be null" );
+    else if ( stateManager == null )
+      throw new IllegalArgumentException( "stateManager must not be null" );
+    
+    this.sim = sim;
+    this.stateManager = stateManager;
+    this.sink = ( address, v ) -> getCell( address ).set( v );
+    this.maxAddress = MAX_ADDRESS;
+  }
+  
+  
+  /**
+   * @param stateManager Frames are committed here 
+   * @param maxAddress The highest accepted address 
+   * @param sink Decoded values are written here 
+   */
+  public FrameDecoder( final IStateEventManager stateManager, final int maxAddress, final IValueSink sink )
+  {
+    if ( stateManager == null )
+      throw new IllegalArgumentException( "stateManager must not be null" );
+    else if ( maxAddress < 0 )
+      throw new IllegalArgumentException( "maxAddress must be an unsigned integer" );
+    else if ( sink == null )
+      throw new IllegalArgumentException( "sink must not be null" );
+    
+    this.sim = null;
+    this.stateManager = stateManager;
+    this.sink = sink;
+    this.maxAddress = maxAddress;
+  }
+  
+  
+  /**
+   * Decode a frame and update state 
+   * @param frame frame 
+   * @return FRAME_OK, FRAME_GAP or FRAME_INVALID 
+   */
+  public synchronized int update( final CharSequence frame )
+  {
+    final int end = frame.length();
+    
+    //..Sequence number 
+    int i = 0;
+    long sequence = 0;
+    int digits = 0;
+    for ( ; i < end; i++ )
+    {
+      final int d = frame.charAt( i ) - '0';
+      if ( d < 0 || d > 9 )
+        break;
+      
+      sequence = sequence * 10 + d;
+      digits++;
+    }
+    
+    if ( digits == 0 || digits > 18 || ( i < end && frame.charAt( i ) != ';' ))
+    {
+      Logs.error( LOG, "Frame is missing a sequence number" );
+      return FRAME_INVALID;
+    }
+    
+    int result = FRAME_OK;
+    if ( sequence != 0 && sequence != lastSequence + 1 )
+    {
+      Logs.debug( LOG, "Frame sequence gap.  Expected", lastSequence + 1, "got", sequence );
+      result = FRAME_GAP;
+    }
+    
+    lastSequence = sequence;
+    
+    //..address=value pairs 
+    stateManager.beginFrame();
+    try {
+      while ( i < end )
+      {
+        //..Skip the delimiter 
+        final int pairStart = ++i;
+        int address = 0;
+        for ( ; i < end; i++ )
+        {
+          final int d = frame.charAt( i ) - '0';
+          if ( d < 0 || d > 9 )
+            break;
+          
+          address = address * 10 + d;
+          if ( address > maxAddress )
+            break;
+        }
+        
+        if ( i == pairStart || i == end || frame.charAt( i ) != '=' )
+        {
+          if ( i == pairStart && i == end )
+            break; //..Trailing delimiter 
+          
+          result = FRAME_INVALID;
+          i = skipPair( frame, i );
+          continue;
+        }
+        
+        final int valueStart = ++i;
+        i = skipPair( frame, i );
+        
+        if ( parser.parseField( frame, valueStart, i, value, 0 ) != PayloadParser.FIELD_OK )
+        {
+          result = FRAME_INVALID;
+          continue;
+        }
+        
+        sink.set( address, value[0] );
+      }
+    } finally {
+      stateManager.commitFrame();
+    }
+    
+    if ( result == FRAME_INVALID )
+      Logs.error( LOG, "Frame", sequence, "contained malformed pairs" );
+    
+    return result;
+  }
+  
+  
+  /**
+   * Retrieve or create the cell for an address 
+   * @param address software address 
+   * @return cell 
+   */
+  private FloatState getCell( final int address )
+  {
+    FloatState cell = cellMap.get( address );
+    if ( cell == null )
+    {
+      cell = new FloatState( createControl( address ), stateManager, DEFAULT_SCALE );
+      cellMap.put( address, cell );
+    }
+    
+    return cell;
+  }
+  
+  
+  /**
+   * Use the Control constant for the address when there is one 
+   * @param address software address 
+   * @return control 
+   */
+  private ISimControl createControl( final int address )
+  {
+    final Control control = Control.byId( address );
+    if ( control != Control.NONE )
+      return control;
+    
+    return new PayloadControl( sim, address, "frame." + address );
+  }
+  
+  
+  /**
+   * Advance to the next pair delimiter 
+   * @param frame frame 
+   * @param i current position 
+   * @return position of the next delimiter or the end of the frame 
+   */
+  private int skipPair( final CharSequence frame, int i )
+  {
+    final int end = frame.length();
+    while ( i < end && frame.charAt( i ) != ';' )
+    {
+      i++;
+    }
+    
+    return i;
+  }
+}
@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+
+/**
+ * Receives address/value pairs decoded from a frame 
+ */
+@FunctionalInterface
+public interface IValueSink 
+{
+  /**
+   * Store a decoded value 
+   * @param address Address from the frame 
+   * @param value value 
+   */
+  public void set( final int address, final float value );
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.simgateway.state.IStateEventManager;
+import com.buffalokiwi.simgateway.state.StringState;
+import java.util.Arrays;
+import java.util.Map;
+
+
+/**
+ * Decodes the text block returned by list_indication() for a single display and diffs each field against the
+ * previous block.
+ *
+ * The block is a series of fields in the following format:
+ *
+ * -----------------------------------------
+ * field name
+ * field value
+ *
+ * Lines after the value up to the next separator (ie: closing braces for child elements) are ignored.
+ *
+ * Only fields listed in the schema are decoded.  A state change event is registered only when the field text changes,
+ * and a mapped field missing from the block is treated as blank.  Unchanged fields are compared in place and
+ * allocate nothing.  All changes from a block are committed as a single frame.
+ */
+public class IndicationDecoder
+{
+  /**
+   * Number of dashes in a field separator line
+   */
+  public static final int SEPARATOR_LENGTH = 41;
+
+  private final int display;
+  private final IStateEventManager stateManager;
+
+  /**
+   * Mapped field names.  Looked up by index
+   */
+  private final String[] names;
+
+  /**
+   * Field state for each name
+   */
+  private final StringState[] states;
+
+  /**
+   * Fields found in the current block
+   */
+  private final boolean[] seen;
+
+
+  /**
+   * @param sim The sim
+   * @param stateManager State changes are registered here
+   * @param schema Display schema
+   */
+  public IndicationDecoder( final SimType sim, final IStateEventManager stateManager, final IndicationSchema schema )
+  {
+    if ( sim == null )
+      throw new IllegalArgumentException( "sim must not be null" );
+    else if ( stateManager == null )
+      throw new IllegalArgumentException( "stateManager must not be null" );
+    else if ( schema == null )
+      throw new IllegalArgumentException( "schema must not be null" );
+
+    this.display = schema.getDisplay();
+    this.stateManager = stateManager;
+
+    final int size = schema.getFieldMap().size();
+    names = new String[size];
+    states = new StringState[size];
+    seen = new boolean[size];
+
+    int i = 0;
+    for ( final Map.Entry<String,Integer> entry : schema.getFieldMap().entrySet())
+    {
+      names[i] = entry.getKey();
+      states[i] = new StringState( new PayloadControl( sim, entry.getValue(), entry.getKey()), stateManager );
+      i++;
+    }
+  }
+
+
+  /**
+   * Retrieve the list_indication() display id
+   * @return id
+   */
+  public int getDisplay()
+  {
+    return display;
+  }
+
+
+  /**
+   * Decode a list_indication() block
+   * @param text text containing the block
+   * @param offset Start of the block within text
+   */
+  public synchronized void update( final CharSequence text, final int offset )
+  {
+    final int end = text.length();
+
+    Arrays.fill( seen, false );
+
+    stateManager.beginFrame();
+    try {
+      //..0 = looking for a separator, 1 = next line is a name, 2 = next line is a value
+      int expect = 0;
+      int field = -1;
+      int lineStart = offset;
+      while ( lineStart < end )
+      {
+        int lineEnd = lineStart;
+        while ( lineEnd < end && text.charAt( lineEnd ) != '\n' )
+        {
+          lineEnd++;
+        }
+
+        final int next = lineEnd + 1;
+        if ( lineEnd > lineStart && text.charAt( lineEnd - 1 ) == '\r' )
+          lineEnd--;
+
+        if ( isSeparator( text, lineStart, lineEnd ))
+        {
+          //..A name without a value line is blank 
+          if ( expect == 2 && field >= 0 )
+          {
+            seen[field] = true;
+            setField( field, text, lineStart, lineStart );
+          }
+
+          expect = 1;
+        }
+        else if ( expect == 2 )
+        {
+          if ( field >= 0 )
+          {
+            seen[field] = true;
+            setField( field, text, lineStart, lineEnd );
+          }
+
+          expect = 0;
+        }
+        else if ( expect == 1 )
+        {
+          field = findField( text, lineStart, lineEnd );
+          expect = 2;
+        }
+
+        lineStart = next;
+      }
+
+      //..Fields that are no longer displayed are blank
+      for ( int i = 0; i < seen.length; i++ )
+      {
+        if ( !seen[i] )
+          states[i].set( "" );
+      }
+    } finally {
+      stateManager.commitFrame();
+    }
+  }
+
+
+  /**
+   * Update a field if the text changed
+   */
+  private void setField( final int field, final CharSequence text, final int start, final int end )
+  {
+    if ( regionEquals( states[field].get(), text, start, end ))
+      return;
+
+    states[field].set( text.subSequence( start, end ).toString());
+  }
+
+
+  /**
+   * Find a mapped field by name
+   * @return index or -1
+   */
+  private int findField( final CharSequence text, final int start, final int end )
+  {
+    for ( int i = 0; i < names.length; i++ )
+    {
+      if ( regionEquals( names[i], text, start, end ))
+        return i;
+    }
+
+    return -1;
+  }
+
+
+  private static boolean isSeparator( final CharSequence text, final int start, final int end )
+  {
+    if ( end - start != SEPARATOR_LENGTH )
+      return false;
+
+    for ( int i = start; i < end; i++ )
+    {
+      if ( text.charAt( i ) != '-' )
+        return false;
+    }
+
+    return true;
+  }
+
+
+  private static boolean regionEquals( final String s, final CharSequence text, final int start, final int end )
+  {
+    if ( s == null || s.length() != end - start )
+      return false;
+
+    for ( int i = 0; i < s.length(); i++ )
+    {
+      if ( s.charAt( i ) != text.charAt( start + i ))
+        return false;
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * An immutable description of a cockpit text display read with list_indication().
+ * Maps named display fields to software addresses.
+ */
+public class IndicationSchema
+{
+  private final int display;
+  private final Map<String,Integer> fieldMap;
+
+
+  /**
+   * @param display list_indication() display id
+   * @param fieldMap field name => software address
+   */
+  public IndicationSchema( final int display, final Map<String,Integer> fieldMap )
+  {
+    if ( display < 0 )
+      throw new IllegalArgumentException( "display must be an unsigned integer" );
+    else if ( fieldMap == null || fieldMap.isEmpty())
+      throw new IllegalArgumentException( "fieldMap must not be null or empty" );
+
+    for ( final Map.Entry<String,Integer> entry : fieldMap.entrySet())
+    {
+      if ( entry.getKey() == null || entry.getKey().isEmpty())
+        throw new IllegalArgumentException( "field name must not be null or empty" );
+      else if ( entry.getValue() == null || entry.getValue() < 0 )
+        throw new IllegalArgumentException( "field " + entry.getKey() + " address must be an unsigned integer" );
+    }
+
+    this.display = display;
+    this.fieldMap = Collections.unmodifiableMap( new LinkedHashMap<>( fieldMap ));
+  }
+
+
+  public int getDisplay()
+  {
+    return display;
+  }
+
+
+  /**
+   * Retrieve the mapped fields
+   * @return field name => software address
+   */
+  public Map<String,Integer> getFieldMap()
+  {
+    return fieldMap;
+  }
+}
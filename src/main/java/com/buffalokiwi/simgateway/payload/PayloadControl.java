@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.simgateway.dcs.Control;
+import com.buffalokiwi.simgateway.state.ISimControl;
+
+
+/**
+ * A control declared by a payload schema in the configuration file instead of by the Control enum.
+ * getControl() returns the matching Control constant when one exists for the address, or Control.NONE.
+ */
+public class PayloadControl implements ISimControl<Control>
+{
+  private final SimType sim;
+  private final int address;
+  private final String caption;
+  private final Control control;
+  
+  
+  /**
+   * @param sim The sim this control is for
+   * @param address Software address
+   * @param caption Display name 
+   */
+  public PayloadControl( final SimType sim, final int address, final String caption )
+  {
+    if ( sim == null )
+      throw new IllegalArgumentException( "sim must not be null" );
+    else if ( address < 0 )
+      throw new IllegalArgumentException( "address must be an unsigned integer" );
+    else if ( caption == null )
+      throw new IllegalArgumentException( "caption must not be null" );
+    
+    this.sim = sim;
+    this.address = address;
+    this.caption = caption;
+    control = Control.byId( address );
+  }
+  
+  
+  @Override
+  public SimType getSimType()
+  {
+    return sim;
+  }
+  
+  
+  @Override
+  public int getSoftwareAddress()
+  {
+    return address;
+  }
+  
+  
+  @Override
+  public String getCaption()
+  {
+    return caption;
+  }
+  
+  
+  @Override
+  public Control getControl()
+  {
+    return control;
+  }
+  
+  
+  @Override
+  public String toString()
+  {
+    return caption;
+  }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.simgateway.state.BooleanState;
+import com.buffalokiwi.simgateway.state.FloatState;
+import com.buffalokiwi.simgateway.state.IStateEventManager;
+import com.buffalokiwi.simgateway.state.IntState;
+import com.buffalokiwi.utils.Logs;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * A payload schema compiled into a parser and a set of state cells.
+ * 
+ * The field types are flattened into an array at construction, and one state object is created per field.  Decoding 
+ * a payload is a single parser pass followed by a loop over the plan, and every value in the payload is committed as 
+ * a single frame.  Fields that fail to parse keep their current value.
+ * 
+ * This is thread safe.
+ */
+public class PayloadDecoder 
+{
+  private static final Logger LOG = LogManager.getLogger( PayloadDecoder.class );
+  
+  private final PayloadSchema schema;
+  private final IStateEventManager stateManager;
+  private final PayloadParser parser;
+  
+  /**
+   * Field type by index 
+   */
+  private final PayloadFieldType[] plan;
+  
+  /**
+   * State cells by field index.  Only the array matching the field type has an entry for each index.
+   */
+  private final FloatState[] floatCells;
+  private final IntState[] intCells;
+  private final BooleanState[] booleanCells;
+  
+  //..Scratch space.  Guarded by this 
+  private final float[] values;
+  private final byte[] status;
+  
+  
+  /**
+   * @param schema The schema to compile 
+   * @param sim The sim the controls belong to 
+   * @param stateManager State changes are registered here 
+   */
+  public PayloadDecoder( final PayloadSchema schema, final SimType sim, final IStateEventManager stateManager )
+  {
+    if ( schema == null )
+      throw new IllegalArgumentException( "schema must not be null" );
+    else if ( sim == null )
+      throw new IllegalArgumentException( "sim must not be null" );
+    else if ( stateManager == null )
+      throw new IllegalArgumentException( "stateManager must not be null" );
+    
+    this.schema = schema;
+    this.stateManager = stateManager;
+    parser = new PayloadParser( schema.getDelimiter());
+    
+    final List<PayloadField> fieldList = schema.getFieldList();
+    final int size = fieldList.size();
+    
+    plan = new PayloadFieldType[size];
+    floatCells = new FloatState[size];
+    intCells = new IntState[size];
+    booleanCells = new BooleanState[size];
+    values = new float[size];
+    status = new byte[size];
+    
+    for ( int i = 0; i < size; i++ )
+    {
+      final PayloadField field = fieldList.get( i );
+      plan[i] = field.getType();
+      
+      if ( field.getType() == PayloadFieldType.SKIP )
+        continue;
+      
+      final PayloadControl control = new PayloadControl( sim, field.getAddress(), 
+        ( field.getName().isEmpty()) ? schema.getCommand() + "." + i : field.getName());
+      
+      switch( field.getType())
+      {
+        case FLOAT:
+          floatCells[i] = new FloatState( control, stateManager, field.getScale());
+        break;
+        
+        case INT:
+          intCells[i] = new IntState( control, stateManager );
+        break;
+        
+        case BOOLEAN:
+          booleanCells[i] = new BooleanState( control, stateManager );
+        break;
+      }
+    }
+  }
+  
+  
+  /**
+   * Retrieve the schema 
+   * @return schema 
+   */
+  public PayloadSchema getSchema()
+  {
+    return schema;
+  }
+  
+  
+  /**
+   * Decode a payload and update state 
+   * @param payload payload 
+   * @return true if the payload had the expected number of fields 
+   */
+  public synchronized boolean update( final String payload )
+  {
+    if ( payload == null || payload.isEmpty())
+      return false;
+    
+    final int fields = parser.parse( payload, values, status );
+    if ( fields != plan.length )
+    {
+      Logs.error( LOG, "Payload for", schema.getCommand(), "contained an invalid number of elements.  Expected", plan.length, "got", fields );
+      return false;
+    }
+    
+    stateManager.beginFrame();
+    try {
+      for ( int i = 0; i < plan.length; i++ )
+      {
+        if ( status[i] != PayloadParser.FIELD_OK )
+          continue;
+        
+        switch( plan[i] )
+        {
+          case FLOAT:
+            floatCells[i].set( values[i] );
+          break;
+          
+          case INT:
+            intCells[i].set((int)values[i] );
+          break;
+          
+          case BOOLEAN:
+            booleanCells[i].set( values[i] == 1f );
+          break;
+        }
+      }
+    } finally {
+      stateManager.commitFrame();
+    }
+    
+    return true;
+  }
+}
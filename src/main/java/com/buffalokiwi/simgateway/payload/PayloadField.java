@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+
+/**
+ * An immutable field in a payload schema 
+ */
+public class PayloadField 
+{
+  private final String name;
+  private final PayloadFieldType type;
+  private final int address;
+  private final int scale;
+  
+  
+  /**
+   * @param name Human friendly name.  This is used as the control caption 
+   * @param type Field type
+   * @param address Target software address.  Ignored for SKIP fields
+   * @param scale Number of decimal places to keep for FLOAT fields 
+   */
+  public PayloadField( final String name, final PayloadFieldType type, final int address, final int scale )
+  {
+    if ( name == null )
+      throw new IllegalArgumentException( "field name must not be null" );
+    else if ( type == null )
+      throw new IllegalArgumentException( "field type must not be null" );
+    else if ( type != PayloadFieldType.SKIP && address < 0 )
+      throw new IllegalArgumentException( "field address must be an unsigned integer" );
+    else if ( scale < 0 )
+      throw new IllegalArgumentException( "field scale must be an unsigned integer" );
+    
+    this.name = name;
+    this.type = type;
+    this.address = address;
+    this.scale = scale;
+  }
+  
+  
+  public String getName()
+  {
+    return name;
+  }
+  
+  
+  public PayloadFieldType getType()
+  {
+    return type;
+  }
+  
+  
+  public int getAddress()
+  {
+    return address;
+  }
+  
+  
+  public int getScale()
+  {
+    return scale;
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+
+/**
+ * Types of fields in a payload schema 
+ */
+public enum PayloadFieldType 
+{
+  /**
+   * A float rounded to the field scale 
+   */
+  FLOAT( "float" ),
+  
+  /**
+   * An integer.  Fractions are truncated.  Fields are parsed as a float, so integers larger than 2^24 (16777216) in 
+   * magnitude lose precision 
+   */
+  INT( "int" ),
+  
+  /**
+   * A boolean.  True when the field is the number 1
+   */
+  BOOLEAN( "boolean" ),
+  
+  /**
+   * The field is ignored 
+   */
+  SKIP( "skip" );
+  
+  
+  private final String name;
+  
+  
+  public static PayloadFieldType fromName( final String name )
+  {
+    for ( final PayloadFieldType t : values())
+    {
+      if ( t.getName().equalsIgnoreCase( name ))
+        return t;
+    }
+    
+    return null;
+  }
+  
+  
+  PayloadFieldType( final String name )
+  {
+    this.name = name;
+  }
+  
+  
+  public String getName()
+  {
+    return name;
+  }
+  
+  
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+
+/**
+ * A single pass parser for delimited numeric payloads sent by the sim.
+ * 
+ * Fields are read straight from the input characters into a primitive array.  Nothing is allocated, and malformed 
+ * fields are reported with a status code instead of an exception.
+ * 
+ * Accepted numbers: optional sign, digits, optional fraction and an optional exponent.  ie: -12, 0.5, .5, 1e-3.
+ * Surrounding spaces are ignored.  Anything else in a field (nan, inf, etc) is FIELD_INVALID.
+ * 
+ * This is not thread safe.
+ * 
+ * @author John Quinn
+ */
+public class PayloadParser 
+{
+  /**
+   * The field was parsed 
+   */
+  public static final byte FIELD_OK = 0;
+  
+  /**
+   * The field was empty.  The value is NaN 
+   */
+  public static final byte FIELD_EMPTY = 1;
+  
+  /**
+   * The field is not a number.  The value is NaN 
+   */
+  public static final byte FIELD_INVALID = 2;
+  
+  /**
+   * Exact powers of ten representable by a double 
+   */
+  private static final double[] POW10 = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  
+  /**
+   * Largest mantissa that can be converted to a double without rounding 
+   */
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  
+  /**
+   * Digits past this are dropped from the mantissa and added to the exponent 
+   */
+  private static final int MAX_MANTISSA_DIGITS = 18;
+  
+  private final char delimiter;
+  
+  
+  /**
+   * @param delimiter Field delimiter 
+   */
+  public PayloadParser( final char delimiter )
+  {
+    this.delimiter = delimiter;
+  }
+  
+  
+  /**
+   * Parse an entire payload 
+   * @param in payload 
+   * @param values Field values are written here.  Fields that are not FIELD_OK are set to NaN 
+   * @param status Field status codes are written here 
+   * @return The number of fields in the payload.  This may be larger than the supplied arrays, and fields that do not 
+   * fit are counted but not parsed.
+   */
+  public int parse( final CharSequence in, final float[] values, final byte[] status )
+  {
+    return parse( in, 0, in.length(), values, status );
+  }
+  
+  
+  /**
+   * Parse part of a payload 
+   * @param in payload 
+   * @param start First character to read 
+   * @param end One past the last character to read 
+   * @param values Field values are written here.  Fields that are not FIELD_OK are set to NaN 
+   * @param status Field status codes are written here 
+   * @return The number of fields in the payload.  This may be larger than the supplied arrays, and fields that do not 
+   * fit are counted but not parsed.
+   */
+  public int parse( final CharSequence in, final int start, final int end, final float[] values, final byte[] status )
+  {
+    final int max = Math.min( values.length, status.length );
+    
+    int field = 0;
+    int fieldStart = start;
+    for ( int i = start; i <= end; i++ )
+    {
+      if ( i < end && in.charAt( i ) != delimiter )
+        continue;
+      
+      if ( field < max )
+      {
+        final byte result = parseField( in, fieldStart, i, values, field );
+        status[field] = result;
+        if ( result != FIELD_OK )
+          values[field] = Float.NaN;
+      }
+      
+      field++;
+      fieldStart = i + 1;
+    }
+    
+    return field;
+  }
+  
+  
+  /**
+   * Parse a single field.  
+   * On success the value is written to values[index].  Otherwise this does not write values[index], and parse() sets 
+   * it to NaN.
+   * @param in payload 
+   * @param start first character 
+   * @param end one past the last character 
+   * @param values output 
+   * @param index output index 
+   * @return status 
+   */
+  public byte parseField( final CharSequence in, int start, int end, final float[] values, final int index )
+  {
+    //..Trim 
+    while ( start < end && in.charAt( start ) == ' ' )
+    {
+      start++;
+    }
+    
+    while ( end > start && in.charAt( end - 1 ) == ' ' )
+    {
+      end--;
+    }
+    
+    if ( start == end )
+      return FIELD_EMPTY;
+    
+    int i = start;
+    boolean negative = false;
+    
+    final char sign = in.charAt( i );
+    if ( sign == '-' || sign == '+' )
+    {
+      negative = sign == '-';
+      i++;
+    }
+    
+    long mantissa = 0;
+    int mantissaDigits = 0;
+    int exponent = 0;
+    int digits = 0;
+    
+    //..Integer part 
+    for ( ; i < end; i++ )
+    {
+      final int d = in.charAt( i ) - '0';
+      if ( d < 0 || d > 9 )
+        break;
+      
+      digits++;
+      if ( mantissaDigits < MAX_MANTISSA_DIGITS )
+      {
+        mantissa = mantissa * 10 + d;
+        if ( mantissa != 0 )
+          mantissaDigits++;
+      }
+      else
+      {
+        exponent++;
+      }
+    }
+    
+    //..Fraction 
+    if ( i < end && in.charAt( i ) == '.' )
+    {
+      for ( i++; i < end; i++ )
+      {
+        final int d = in.charAt( i ) - '0';
+        if ( d < 0 || d > 9 )
+          break;
+        
+        digits++;
+        if ( mantissaDigits < MAX_MANTISSA_DIGITS )
+        {
+          mantissa = mantissa * 10 + d;
+          if ( mantissa != 0 )
+            mantissaDigits++;
+          exponent--;
+        }
+      }
+    }
+    
+    if ( digits == 0 )
+      return FIELD_INVALID;
+    
+    //..Exponent 
+    if ( i < end && ( in.charAt( i ) == 'e' || in.charAt( i ) == 'E' ))
+    {
+      i++;
+      boolean negativeExp = false;
+      if ( i < end && ( in.charAt( i ) == '-' || in.charAt( i ) == '+' ))
+      {
+        negativeExp = in.charAt( i ) == '-';
+        i++;
+      }
+      
+      int exp = 0;
+      int expDigits = 0;
+      for ( ; i < end; i++ )
+      {
+        final int d = in.charAt( i ) - '0';
+        if ( d < 0 || d > 9 )
+          break;
+        
+        expDigits++;
+        if ( exp < 10000 )
+          exp = exp * 10 + d;
+      }
+      
+      if ( expDigits == 0 )
+        return FIELD_INVALID;
+      
+      exponent += ( negativeExp ) ? -exp : exp;
+    }
+    
+    //..Trailing garbage 
+    if ( i != end )
+      return FIELD_INVALID;
+    
+    double value;
+    if ( mantissa == 0 )
+      value = 0;
+    else if ( exponent == 0 )
+      value = mantissa;
+    else if ( mantissa < MAX_EXACT_MANTISSA && exponent > 0 && exponent < POW10.length )
+      value = mantissa * POW10[exponent];
+    else if ( mantissa < MAX_EXACT_MANTISSA && exponent < 0 && -exponent < POW10.length )
+      value = mantissa / POW10[-exponent];
+    else
+      value = mantissa * Math.pow( 10, exponent );
+    
+    values[index] = (float)(( negative ) ? -value : value );
+    return FIELD_OK;
+  }
+}
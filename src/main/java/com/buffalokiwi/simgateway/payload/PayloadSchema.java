@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * An immutable description of a delimited payload sent by the sim.
+ * The schema names the socket command the payload arrives on and lists the fields in the order they are sent.
+ */
+public class PayloadSchema 
+{
+  /**
+   * A builder for making immutable schemas 
+   */
+  public static class Builder
+  {
+    private String command = "";
+    private char delimiter = ',';
+    private final List<PayloadField> fieldList = new ArrayList<>();
+    
+    
+    public Builder setCommand( final String command )
+    {
+      this.command = command;
+      return this;
+    }
+    
+    
+    public Builder setDelimiter( final char delimiter )
+    {
+      this.delimiter = delimiter;
+      return this;
+    }
+    
+    
+    public Builder addField( final PayloadField field )
+    {
+      fieldList.add( field );
+      return this;
+    }
+    
+    
+    public PayloadSchema build() throws IllegalArgumentException
+    {
+      return new PayloadSchema( this );
+    }
+  }
+  
+  
+  private final String command;
+  private final char delimiter;
+  private final List<PayloadField> fieldList;
+  
+  
+  protected PayloadSchema( final Builder b )
+  {
+    if ( b.command == null || b.command.trim().isEmpty())
+      throw new IllegalArgumentException( "schema command must not be null or empty" );
+    else if ( b.command.trim().contains( " " ))
+      throw new IllegalArgumentException( "schema command must not contain spaces" );
+    else if ( b.fieldList.isEmpty())
+      throw new IllegalArgumentException( "schema must contain at least one field" );
+    else if ( b.fieldList.contains( null ))
+      throw new IllegalArgumentException( "schema fields must not be null" );
+    
+    command = b.command.trim();
+    delimiter = b.delimiter;
+    fieldList = Collections.unmodifiableList( new ArrayList<>( b.fieldList ));
+  }
+  
+  
+  /**
+   * The socket command used to send this payload 
+   * @return command 
+   */
+  public String getCommand()
+  {
+    return command;
+  }
+  
+  
+  /**
+   * The field delimiter 
+   * @return delimiter 
+   */
+  public char getDelimiter()
+  {
+    return delimiter;
+  }
+  
+  
+  /**
+   * Fields in the order they appear in the payload 
+   * @return fields 
+   */
+  public List<PayloadField> getFieldList()
+  {
+    return fieldList;
+  }
+}
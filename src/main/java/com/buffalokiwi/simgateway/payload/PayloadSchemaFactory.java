@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.payload;
+
+import com.buffalokiwi.utils.Logs;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+
+/**
+ * Converts the payloads and indications sections of the json configuration file into payload and indication schemas 
+ */
+public class PayloadSchemaFactory 
+{
+  private static final Logger LOG = LogManager.getLogger( PayloadSchemaFactory.class );
+  
+  /**
+   * Default scale for float fields 
+   */
+  private static final int DEFAULT_SCALE = 4;
+  
+  private final List<PayloadSchema> schemaList = new ArrayList<>();
+  
+  private final List<IndicationSchema> indicationList = new ArrayList<>();
+  
+  
+  /**
+   * Retrieve the schemas loaded so far 
+   * @return schemas 
+   */
+  public List<PayloadSchema> getSchemaList()
+  {
+    return new ArrayList<>( schemaList );
+  }
+  
+  
+  /**
+   * Retrieve the indication schemas loaded so far 
+   * @return schemas 
+   */
+  public List<IndicationSchema> getIndicationList()
+  {
+    return new ArrayList<>( indicationList );
+  }
+  
+  
+  /**
+   * Adds schemas from a json array 
+   * 
+   * "payloads": [
+   *   {
+   *     "command": "dcsEngineInfo",                  socket command the payload is sent with 
+   *     "delimiter": ",",                            optional field delimiter.  defaults to comma
+   *     "fields": [                                  fields in the order they are sent 
+   *       { "name": "Fuel Internal", "type": "float", "address": 2, "scale": 4 },     type is float, int, boolean or skip
+   *       { "type": "skip" }
+   *     ]
+   *   }
+   * ]
+   * 
+   * @param payloadList 
+   */
+  public void addSchemaList( final JsonArray payloadList )
+  {
+    int schemaIndex = -1;
+    
+    for ( final JsonValue entry : payloadList )
+    {
+      schemaIndex++;
+      
+      if ( !( entry instanceof JsonObject ))
+      {
+        Logs.error( LOG, "config.json payloads array entries must be objects.  Got", entry.getValueType().toString(), "at payload index", schemaIndex );
+        continue;
+      }
+      
+      final JsonObject o = (JsonObject)entry;
+      
+      if ( !( o.get( "fields" ) instanceof JsonArray ))
+      {
+        Logs.error( LOG, "Config section error: payloads at index", schemaIndex, "- fields must be an array" );
+        continue;
+      }
+      
+      try {
+        final String delimiter = o.getString( "delimiter", "," );
+        if ( delimiter.length() != 1 )
+          throw new IllegalArgumentException( "delimiter must be a single character" );
+        
+        final PayloadSchema.Builder b = new PayloadSchema.Builder()
+          .setCommand( o.getString( "command", "" ))
+          .setDelimiter( delimiter.charAt( 0 ));
+        
+        int fieldIndex = -1;
+        for ( final JsonValue f : o.getJsonArray( "fields" ))
+        {
+          fieldIndex++;
+          if ( !( f instanceof JsonObject ))
+            throw new IllegalArgumentException( "field at index " + fieldIndex + " must be an object" );
+          
+          final JsonObject field = (JsonObject)f;
+          final PayloadFieldType type = PayloadFieldType.fromName( field.getString( "type", "" ));
+          if ( type == null )
+            throw new IllegalArgumentException( "field at index " + fieldIndex + " type must be one of float, int, boolean or skip" );
+          
+          b.addField( new PayloadField( 
+            field.getString( "name", "" ), 
+            type, 
+            field.getInt( "address", -1 ),
+            field.getInt( "scale", DEFAULT_SCALE )));
+        }
+        
+        final PayloadSchema schema = b.build();
+        schemaList.add( schema );
+        Logs.info( LOG, "Found payload schema", schema.getCommand(), "with", schema.getFieldList().size(), "fields" );
+        
+      } catch( IllegalArgumentException | ClassCastException e ) {
+        Logs.error( LOG, e, "Config section error: payloads at index", schemaIndex );
+      }
+    }
+  }
+  
+  
+  /**
+   * Adds list_indication() display schemas from a json array 
+   * 
+   * "indications": [
+   *   {
+   *     "display": 5,                                list_indication() display id 
+   *     "fields": {                                  field name => software address 
+   *       "UFC_ScratchPadNumberDisplay": 201
+   *     }
+   *   }
+   * ]
+   * 
+   * @param displayList 
+   */
+  public void addIndicationList( final JsonArray displayList )
+  {
+    int displayIndex = -1;
+    
+    for ( final JsonValue entry : displayList )
+    {
+      displayIndex++;
+      
+      if ( !( entry instanceof JsonObject ))
+      {
+        Logs.error( LOG, "config.json indications array entries must be objects.  Got", entry.getValueType().toString(), "at indication index", displayIndex );
+        continue;
+      }
+      
+      final JsonObject o = (JsonObject)entry;
+      
+      if ( !( o.get( "fields" ) instanceof JsonObject ))
+      {
+        Logs.error( LOG, "Config section error: indications at index", displayIndex, "- fields must be an object" );
+        continue;
+      }
+      
+      try {
+        final Map<String,Integer> fieldMap = new LinkedHashMap<>();
+        for ( final Map.Entry<String,JsonValue> field : o.getJsonObject( "fields" ).entrySet())
+        {
+          if ( !( field.getValue() instanceof JsonNumber ))
+            throw new IllegalArgumentException( "field " + field.getKey() + " address must be an unsigned integer" );
+          
+          fieldMap.put( field.getKey(), ((JsonNumber)field.getValue()).intValue());
+        }
+        
+        final IndicationSchema schema = new IndicationSchema( o.getInt( "display", -1 ), fieldMap );
+        indicationList.add( schema );
+        Logs.info( LOG, "Found indication schema for display", schema.getDisplay(), "with", fieldMap.size(), "fields" );
+        
+      } catch( IllegalArgumentException | ClassCastException e ) {
+        Logs.error( LOG, e, "Config section error: indications at index", displayIndex );
+      }
+    }
+  }
+}
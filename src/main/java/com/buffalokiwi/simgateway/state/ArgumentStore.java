@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.state;
+
+import java.util.Arrays;
+
+
+/**
+ * Stores cockpit draw argument values in a dense primitive array indexed by argument id.
+ * 
+ * Every argument received is stored, but only arguments that were mapped to a control produce state change events, 
+ * and only when the rounded value changes.  Arguments are addressed by software address ADDRESS_BASE + argument id, 
+ * which keeps them out of the range used by the Control enum and payload schemas.
+ * 
+ * Values are written by a single thread (the frame decoder) and may be read by any thread.
+ * Mapping must be completed before values are written.
+ * 
+ * @author John Quinn
+ */
+public class ArgumentStore 
+{
+  /**
+   * Software address of argument 0 
+   */
+  public static final int ADDRESS_BASE = 0x10000;
+  
+  /**
+   * Default number of arguments 
+   */
+  public static final int DEFAULT_SIZE = 4096;
+  
+  /**
+   * Argument values are rounded to this many decimal places before comparing 
+   */
+  public static final int DEFAULT_SCALE = 3;
+  
+  private final IStateEventManager stateManager;
+  
+  /**
+   * Rounded argument values.  NaN until the argument is received 
+   */
+  private final float[] values;
+  
+  /**
+   * Controls for mapped arguments.  null when the argument is not mapped 
+   */
+  private final ISimControl[] controls;
+  
+  /**
+   * 10^scale 
+   */
+  private final double factor;
+  
+  
+  /**
+   * Convert an argument id into a software address 
+   * @param argument argument id 
+   * @return software address 
+   */
+  public static int toSoftwareAddress( final int argument )
+  {
+    return ADDRESS_BASE + argument;
+  }
+  
+  
+  /**
+   * @param stateManager State changes are registered here 
+   */
+  public ArgumentStore( final IStateEventManager stateManager )
+  {
+    this( stateManager, DEFAULT_SIZE, DEFAULT_SCALE );
+  }
+  
+  
+  /**
+   * @param stateManager State changes are registered here 
+   * @param size Number of arguments 
+   * @param scale Number of decimal places compared when detecting changes 
+   */
+  public ArgumentStore( final IStateEventManager stateManager, final int size, final int scale )
+  {
+    if ( stateManager == null )
+      throw new IllegalArgumentException( "stateManager must not be null" );
+    else if ( size < 1 )
+      throw new IllegalArgumentException( "size must be greater than zero" );
+    else if ( scale < 0 )
+      throw new IllegalArgumentException( "scale must be unsigned" );
+    
+    this.stateManager = stateManager;
+    values = new float[size];
+    controls = new ISimControl[size];
+    factor = Math.pow( 10, scale );
+    
+    Arrays.fill( values, Float.NaN );
+  }
+  
+  
+  /**
+   * Retrieve the number of arguments 
+   * @return size 
+   */
+  public int size()
+  {
+    return values.length;
+  }
+  
+  
+  /**
+   * Test if a software address belongs to an argument in this store 
+   * @param address software address
+   * @return is argument 
+   */
+  public boolean isArgumentAddress( final int address )
+  {
+    return address >= ADDRESS_BASE && address - ADDRESS_BASE < values.length;
+  }
+  
+  
+  /**
+   * Publish state change events for an argument 
+   * @param argument argument id 
+   * @param control control used for events.  The software address should be toSoftwareAddress( argument )
+   * @throws IllegalArgumentException if the argument is out of range 
+   */
+  public void map( final int argument, final ISimControl control ) throws IllegalArgumentException
+  {
+    if ( argument < 0 || argument >= values.length )
+      throw new IllegalArgumentException( "argument must be between 0 and " + String.valueOf( values.length - 1 ));
+    else if ( control == null )
+      throw new IllegalArgumentException( "control must not be null" );
+    
+    controls[argument] = control;
+  }
+  
+  
+  /**
+   * Retrieve an argument value 
+   * @param argument argument id
+   * @return value or NaN if the argument has not been received or is out of range 
+   */
+  public float get( final int argument )
+  {
+    if ( argument < 0 || argument >= values.length )
+      return Float.NaN;
+    
+    return values[argument];
+  }
+  
+  
+  /**
+   * Store an argument value.  Values for arguments out of range are ignored.
+   * @param argument argument id 
+   * @param value value 
+   */
+  public void set( final int argument, final float value )
+  {
+    if ( argument < 0 || argument >= values.length )
+      return;
+    
+    //..Adding zero turns -0.0 into 0.0
+    final float rounded = (float)( Math.rint( value * factor ) / factor ) + 0.0f;
+    final float old = values[argument];
+    if ( Float.compare( old, rounded ) == 0 )
+      return;
+    
+    values[argument] = rounded;
+    
+    final ISimControl control = controls[argument];
+    if ( control != null )
+      stateManager.registerEvent( control, rounded, Float.isNaN( old ) ? 0f : old );
+  }
+}
@@ -19,6 +19,12 @@ public class BooleanStateEvent extends GenericStateEvent<Boolean>
   }
   
   
+  public BooleanStateEvent( final ISimControl control, final boolean value, final boolean oldValue, final long sequence )
+  {
+    super( control, value, oldValue, sequence );
+  }
+  
+  
   @Override
   public String toString()
   {
@@ -16,7 +16,8 @@ public interface EventFactoryFunction<T extends IStateEvent, U>
    * @param control Control being update
    * @param value The current value
    * @param oldValue The former value 
+   * @param sequence The sequence number of the frame this event belongs to 
    * @return 
    */
-  T create( final ISimControl control, final U value, final U oldValue );
+  T create( final ISimControl control, final U value, final U oldValue, final long sequence );
 }
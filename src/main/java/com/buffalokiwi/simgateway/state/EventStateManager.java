@@ -6,20 +6,49 @@
  */
 package com.buffalokiwi.simgateway.state;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
  * Registers state change events and puts them into a queue
+ * 
+ * Events registered outside of a frame are published immediately, each with its own sequence number.
+ * Events registered inside of a frame are buffered per thread and added to the queue together on commit.
+ * The queue monitor is held while a frame is added, and the StateChangeProcessor drains while holding the same monitor, 
+ * which keeps a frame from being split across two processor cycles.
+ * 
  * @author John Quinn
  */
 public class EventStateManager implements IStateEventManager
 {
+  /**
+   * Events buffered for an open frame 
+   */
+  private static class Frame
+  {
+    private final ArrayList<IStateEvent> events = new ArrayList<>();
+    private long sequence = 0;
+    private int depth = 0;
+  }
+  
+  
   private final LinkedBlockingQueue<IStateEvent> eventQueue;
     
   private final Map<Class, EventFactoryFunction<IStateEvent,Object>> factoryMap;
   
+  /**
+   * Frame sequence numbers 
+   */
+  private final AtomicLong sequence = new AtomicLong();
+  
+  /**
+   * The open frame for each thread.  
+   */
+  private final ThreadLocal<Frame> frame = ThreadLocal.withInitial( Frame::new );
+  
   
   /**
    * @param eventQueue Where to write the component update events.  This queue is read by the StateChangeProcessor
@@ -43,14 +72,72 @@ public class EventStateManager implements IStateEventManager
   @Override
   public <T> void registerEvent( final ISimControl control, final T value, final T oldValue )
   {
-    //..Check for specific type and use that 
-    if ( factoryMap.containsKey( value.getClass()))
+    final Frame f = frame.get();
+    if ( f.depth > 0 )
     {
-      eventQueue.add( factoryMap.get( value.getClass()).create( control, value, oldValue ));
+      f.events.add( createEvent( control, value, oldValue, f.sequence ));
+      return;
+    }
+    
+    eventQueue.add( createEvent( control, value, oldValue, sequence.incrementAndGet()));
+  }
+  
+  
+  /**
+   * Start a frame on the calling thread.
+   */
+  @Override
+  public void beginFrame()
+  {
+    final Frame f = frame.get();
+    if ( f.depth++ == 0 )
+      f.sequence = sequence.incrementAndGet();
+  }
+  
+  
+  /**
+   * Publish every event registered since the matching beginFrame() call.
+   * @throws IllegalStateException if no frame is open on the calling thread 
+   */
+  @Override
+  public void commitFrame() throws IllegalStateException
+  {
+    final Frame f = frame.get();
+    if ( f.depth == 0 )
+      throw new IllegalStateException( "commitFrame() called without beginFrame()" );
+    else if ( --f.depth > 0 )
       return;
+    
+    if ( f.events.isEmpty())
+      return;
+    
+    try {
+      synchronized( eventQueue ) {
+        eventQueue.addAll( f.events );
+      }
+    } finally {
+      f.events.clear();
     }
+  }
+  
+  
+  /**
+   * Create the event instance 
+   * @param <T> The value data type
+   * @param control Control the value is for
+   * @param value The current value
+   * @param oldValue The former value  
+   * @param sequence Frame sequence number 
+   * @return event 
+   */
+  private <T> IStateEvent createEvent( final ISimControl control, final T value, final T oldValue, final long sequence )
+  {
+    //..Check for specific type and use that 
+    final EventFactoryFunction<IStateEvent,Object> factory = factoryMap.get( value.getClass());
+    if ( factory != null )
+      return factory.create( control, value, oldValue, sequence );
     
     //..Use the generic type 
-    eventQueue.add( new GenericStateEvent<>( control, value, oldValue ));
+    return new GenericStateEvent<>( control, value, oldValue, sequence );
   }
 }
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.state;
+
+
+/**
+ * Exponential moving average.
+ * 
+ * The first sample seeds the average.  After that, output = output + alpha * ( sample - output ).
+ * Smaller alpha values are smoother and slower to respond.
+ * 
+ * @author John Quinn
+ */
+public class ExponentialMovingAverageFilter extends SmoothingFilter
+{
+  private final double alpha;
+  private double average = 0;
+  private boolean seeded = false;
+  
+  
+  /**
+   * @param alpha Smoothing factor.  0 < alpha <= 1
+   * @param scale Number of decimal places to keep 
+   */
+  public ExponentialMovingAverageFilter( final double alpha, final int scale )
+  {
+    super( scale );
+    
+    if ( !( alpha > 0 && alpha <= 1 ))
+      throw new IllegalArgumentException( "alpha must be greater than zero and less than or equal to one" );
+    
+    this.alpha = alpha;
+  }
+  
+  
+  @Override
+  protected double smooth( final double value )
+  {
+    if ( !seeded )
+    {
+      average = value;
+      seeded = true;
+    }
+    else
+    {
+      average += alpha * ( value - average );
+    }
+    
+    return average;
+  }
+  
+  
+  @Override
+  protected void clear()
+  {
+    average = 0;
+    seeded = false;
+  }
+}
@@ -6,15 +6,16 @@
  */
 package com.buffalokiwi.simgateway.state;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 /**
- * 
+ * A float data point rounded to a fixed number of decimal places
  */
 public class FloatState extends VariableState<Float>
 {
-  private int scale;
+  /**
+   * 10^scale
+   */
+  private final double factor;
 
   public FloatState( final ISimControl control, final IStateEventManager stateEventManager )
   {
@@ -29,12 +30,41 @@ public class FloatState extends VariableState<Float>
     if ( scale < 0 )
       throw new IllegalArgumentException( "scale must be unsigned" );
     
-    this.scale = scale;
+    factor = Math.pow( 10, scale );
   }
   
+  
+  /**
+   * Sets the value from a primitive.
+   * The value is only boxed when it differs from the current value after rounding 
+   * @param value value 
+   */
+  public void set( final float value )
+  {
+    final float rounded = round( value );
+    final Float current = get();
+    if ( current != null && Float.compare( current, rounded ) == 0 )
+      return;
+    
+    super.set( rounded );
+  }
+  
+  
   @Override
   protected Float formatValue( Float value )
   {
-    return BigDecimal.valueOf( value ).setScale( scale, RoundingMode.HALF_EVEN ).floatValue();
+    return round( value );
   }  
+  
+  
+  /**
+   * Round half even to scale decimal places 
+   * @param value value
+   * @return rounded value 
+   */
+  private float round( final float value )
+  {
+    //..Adding zero turns -0.0 into 0.0
+    return (float)( Math.rint( value * factor ) / factor ) + 0.0f;
+  }
 }
@@ -15,9 +15,11 @@ package com.buffalokiwi.simgateway.state;
 public class GenericStateEvent<T> implements IStateEvent<T>
 {
   private final long eventTime;
+  private final long eventTimeNanos;
   private final ISimControl control;
   private final T value;
   private final T oldValue;
+  private final long sequence;
   
   
   /**
@@ -26,11 +28,25 @@ public class GenericStateEvent<T> implements IStateEvent<T>
    * @param oldValue 
    */
   public GenericStateEvent( final ISimControl control, final T value, final T oldValue )
+  {
+    this( control, value, oldValue, 0L );
+  }
+  
+  
+  /**
+   * @param control
+   * @param value
+   * @param oldValue 
+   * @param sequence Frame sequence number 
+   */
+  public GenericStateEvent( final ISimControl control, final T value, final T oldValue, final long sequence )
   {
     eventTime = System.currentTimeMillis();
+    eventTimeNanos = System.nanoTime();
     this.control = control;
     this.value = value;
     this.oldValue = oldValue;
+    this.sequence = sequence;
   }
     
     
@@ -90,4 +106,26 @@ public class GenericStateEvent<T> implements IStateEvent<T>
   {
     return eventTime;
   }
+  
+  
+  /**
+   * Retrieve the event time from System.nanoTime()
+   * @return time 
+   */
+  @Override
+  public long getEventTimeNanos()
+  {
+    return eventTimeNanos;
+  }
+  
+  
+  /**
+   * Retrieve the sequence number of the frame this event was published with 
+   * @return sequence 
+   */
+  @Override
+  public long getSequence()
+  {
+    return sequence;
+  }
 }
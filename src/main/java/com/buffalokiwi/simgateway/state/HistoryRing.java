@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.state;
+
+
+/**
+ * A fixed size ring buffer of (nanoTime, value) samples for a single control.
+ * 
+ * Samples are stored in primitive arrays allocated once at construction.  Recording a sample never allocates, and 
+ * once the buffer is full the oldest sample is overwritten.
+ * 
+ * This is thread safe.
+ * 
+ * @author John Quinn
+ */
+public class HistoryRing 
+{
+  private final long[] nanos;
+  private final double[] values;
+  
+  /**
+   * Index of the next write 
+   */
+  private int head = 0;
+  
+  /**
+   * Number of samples stored 
+   */
+  private int size = 0;
+  
+  
+  /**
+   * @param capacity Maximum number of samples to keep 
+   */
+  public HistoryRing( final int capacity )
+  {
+    if ( capacity < 1 )
+      throw new IllegalArgumentException( "capacity must be greater than zero" );
+    
+    nanos = new long[capacity];
+    values = new double[capacity];
+  }
+  
+  
+  /**
+   * Retrieve the maximum number of samples 
+   * @return capacity 
+   */
+  public int getCapacity()
+  {
+    return values.length;
+  }
+  
+  
+  /**
+   * Retrieve the number of samples stored 
+   * @return size 
+   */
+  public synchronized int size()
+  {
+    return size;
+  }
+  
+  
+  /**
+   * Add a sample.  If the buffer is full, this replaces the oldest sample 
+   * @param nanoTime Sample time from System.nanoTime()
+   * @param value Sample value 
+   */
+  public synchronized void record( final long nanoTime, final double value )
+  {
+    nanos[head] = nanoTime;
+    values[head] = value;
+    
+    if ( ++head == values.length )
+      head = 0;
+    
+    if ( size < values.length )
+      size++;
+  }
+  
+  
+  /**
+   * Copy samples recorded at or after sinceNanos into the supplied arrays, oldest first.
+   * If the arrays are smaller than the number of matching samples, the newest samples that fit are copied.
+   * @param sinceNanos Oldest sample time to include (System.nanoTime())
+   * @param nanosOut Sample times are written here
+   * @param valuesOut Sample values are written here 
+   * @return The number of samples copied 
+   */
+  public synchronized int copySince( final long sinceNanos, final long[] nanosOut, final double[] valuesOut )
+  {
+    return copy( false, sinceNanos, nanosOut, valuesOut );
+  }
+  
+  
+  /**
+   * Copy the newest samples into the supplied arrays, oldest first 
+   * @param nanosOut Sample times are written here
+   * @param valuesOut Sample values are written here 
+   * @return The number of samples copied 
+   */
+  public synchronized int copyLatest( final long[] nanosOut, final double[] valuesOut )
+  {
+    return copy( true, 0L, nanosOut, valuesOut );
+  }
+  
+  
+  /**
+   * Copy samples into the supplied arrays, oldest first 
+   * @param all Ignore sinceNanos and copy the newest samples that fit
+   * @param sinceNanos Oldest sample time to include 
+   * @param nanosOut Sample times are written here
+   * @param valuesOut Sample values are written here 
+   * @return The number of samples copied 
+   */
+  private int copy( final boolean all, final long sinceNanos, final long[] nanosOut, final double[] valuesOut )
+  {
+    final int max = Math.min( nanosOut.length, valuesOut.length );
+    
+    //..Walk backwards from the newest sample to find how many samples qualify 
+    int count = 0;
+    while ( count < size && count < max && ( all || nanos[index( count )] - sinceNanos >= 0 ))
+    {
+      count++;
+    }
+    
+    for ( int i = 0; i < count; i++ )
+    {
+      final int src = index( count - 1 - i );
+      nanosOut[i] = nanos[src];
+      valuesOut[i] = values[src];
+    }
+    
+    return count;
+  }
+  
+  
+  /**
+   * Convert an age (0 is the newest sample) into an array index 
+   * @param age age 
+   * @return index 
+   */
+  private int index( final int age )
+  {
+    int i = head - 1 - age;
+    if ( i < 0 )
+      i += values.length;
+    
+    return i;
+  }
+}
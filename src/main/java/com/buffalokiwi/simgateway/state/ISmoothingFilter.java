@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.state;
+
+
+/**
+ * Smooths a stream of numeric samples for a single control.
+ * 
+ * Filters are stateful.  Samples are added by the routing thread and the output is settled by the device writer, so
+ * implementations must be thread safe.
+ * 
+ * @author John Quinn
+ */
+public interface ISmoothingFilter 
+{
+  /**
+   * Add a sample 
+   * @param value sample 
+   * @return true if the smoothed output changed 
+   */
+  public boolean update( final double value );
+  
+  
+  /**
+   * Called once per device output interval.  Sources may stop sending when a value stops changing, so if no sample 
+   * was added since the last call, the last sample is added again until the output reaches it 
+   * @return true if the smoothed output changed 
+   */
+  public boolean settle();
+  
+  
+  /**
+   * Retrieve the current smoothed output 
+   * @return value 
+   */
+  public double get();
+  
+  
+  /**
+   * Clear all samples 
+   */
+  public void reset();
+}
@@ -51,4 +51,21 @@ public interface IStateEvent<T>
    * @return time 
    */
   public long getEventTimeMillis();
+  
+  
+  /**
+   * Retrieve the event time from System.nanoTime().
+   * This is only meaningful when compared to other nanoTime values 
+   * @return time 
+   */
+  public long getEventTimeNanos();
+  
+  
+  /**
+   * Retrieve the sequence number of the frame this event was published with.
+   * Every event committed as part of the same frame shares a sequence number, and sequence numbers increase 
+   * with each frame.
+   * @return sequence 
+   */
+  public long getSequence();
 }
@@ -21,4 +21,22 @@ public interface IStateEventManager
    * @param oldValue 
    */
   public <T> void registerEvent( final ISimControl control, final T value, final T oldValue );  
+  
+  
+  /**
+   * Start a frame on the calling thread.
+   * Events registered by this thread after calling beginFrame() are held back until commitFrame() is called, and 
+   * are then published as a single unit sharing one sequence number.  Consumers will never see part of a frame.
+   * 
+   * Frames may be nested; only the outermost commitFrame() publishes.
+   * Always call commitFrame() in a finally block.
+   */
+  public void beginFrame();
+  
+  
+  /**
+   * Publish every event registered since the matching beginFrame() call.
+   * @throws IllegalStateException if no frame is open on the calling thread 
+   */
+  public void commitFrame() throws IllegalStateException;
 }
@@ -16,4 +16,19 @@ public class IntState extends VariableState<Integer>
   {
     super( control, stateEventManager, 0 );
   }
+  
+  
+  /**
+   * Sets the value from a primitive.
+   * The value is only boxed when it differs from the current value 
+   * @param value value 
+   */
+  public void set( final int value )
+  {
+    final Integer current = get();
+    if ( current != null && current == value )
+      return;
+    
+    super.set( value );
+  }
 }
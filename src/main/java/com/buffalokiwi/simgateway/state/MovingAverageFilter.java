@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.state;
+
+
+/**
+ * Simple moving average over the last n samples 
+ * 
+ * @author John Quinn
+ */
+public class MovingAverageFilter extends SmoothingFilter
+{
+  private final double[] window;
+  private int head = 0;
+  private int size = 0;
+  private double sum = 0;
+  
+  
+  /**
+   * @param windowSize Number of samples to average 
+   * @param scale Number of decimal places to keep 
+   */
+  public MovingAverageFilter( final int windowSize, final int scale )
+  {
+    super( scale );
+    
+    if ( windowSize < 1 )
+      throw new IllegalArgumentException( "windowSize must be greater than zero" );
+    
+    window = new double[windowSize];
+  }
+  
+  
+  @Override
+  protected double smooth( final double value )
+  {
+    if ( size == window.length )
+      sum -= window[head];
+    else
+      size++;
+    
+    window[head] = value;
+    sum += value;
+    
+    if ( ++head == window.length )
+      head = 0;
+    
+    return sum / size;
+  }
+  
+  
+  @Override
+  protected void clear()
+  {
+    head = 0;
+    size = 0;
+    sum = 0;
+  }
+}
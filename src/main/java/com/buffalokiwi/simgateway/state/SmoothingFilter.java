@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.state;
+
+
+/**
+ * Base smoothing filter.
+ * 
+ * The smoothed output is rounded to a fixed number of decimal places, and update() only reports a change when the 
+ * rounded output changes.  This is what keeps a jittery input from producing a new value every cycle.
+ * 
+ * This is thread safe.
+ * 
+ * @author John Quinn
+ */
+public abstract class SmoothingFilter implements ISmoothingFilter
+{
+  /**
+   * 10^scale 
+   */
+  private final double factor;
+  
+  /**
+   * The rounded output 
+   */
+  private double output = Double.NaN;
+  
+  /**
+   * The last sample added by update() 
+   */
+  private double last = Double.NaN;
+  
+  /**
+   * If a sample was added since the last call to settle() 
+   */
+  private boolean sampled = false;
+  
+  
+  /**
+   * Compute the next unrounded output from a sample 
+   * @param value sample 
+   * @return smoothed value 
+   */
+  protected abstract double smooth( final double value );
+  
+  
+  /**
+   * Clear any state held by the subclass 
+   */
+  protected abstract void clear();
+  
+  
+  /**
+   * @param scale Number of decimal places to keep 
+   */
+  protected SmoothingFilter( final int scale )
+  {
+    if ( scale < 0 )
+      throw new IllegalArgumentException( "scale must be unsigned" );
+    
+    factor = Math.pow( 10, scale );
+  }
+  
+  
+  @Override
+  public final synchronized boolean update( final double value )
+  {
+    last = value;
+    sampled = true;
+    return add( value );
+  }
+  
+  
+  @Override
+  public final synchronized boolean settle()
+  {
+    if ( sampled )
+    {
+      sampled = false;
+      return false;
+    }
+    else if ( Double.isNaN( last ) || Math.rint( last * factor ) / factor == output )
+    {
+      return false;
+    }
+    
+    return add( last );
+  }
+  
+  
+  @Override
+  public final synchronized double get()
+  {
+    return output;
+  }
+  
+  
+  @Override
+  public final synchronized void reset()
+  {
+    output = Double.NaN;
+    last = Double.NaN;
+    sampled = false;
+    clear();
+  }
+  
+  
+  /**
+   * Smooth a sample and round the output 
+   * @param value sample 
+   * @return true if the rounded output changed 
+   */
+  private boolean add( final double value )
+  {
+    final double rounded = Math.rint( smooth( value ) * factor ) / factor;
+    if ( rounded == output )
+      return false;
+    
+    output = rounded;
+    return true;
+  }
+}
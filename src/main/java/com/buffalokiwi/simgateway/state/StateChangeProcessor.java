@@ -6,40 +6,100 @@
  */
 package com.buffalokiwi.simgateway.state;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 
 
 /**
- * Reads state changes from the queue and invokes all registered data handlers with the dequeued payload 
+ * Reads state changes from the queue and invokes all registered data handlers with the dequeued payload
+ *
+ * Each cycle drains everything currently in the queue.
+ * Event handlers are called once per event, and batch handlers are called once per cycle with the complete list of
+ * drained events.
+ *
+ * The list passed to batch handlers is a reusable read-only view that is cleared as soon as the cycle completes.
+ * Batch handlers must not hold a reference to it.
+ * 
+ * Events committed as a frame by the IStateEventManager are always delivered within the same batch.
+ *
  * @author John Quinn
  */
 public class StateChangeProcessor<T extends IStateEvent> implements Runnable
 {
-  private final Consumer<T>[] handlerList;
+  private final List<Consumer<T>> handlerList;
+  private final List<Consumer<List<T>>> batchHandlerList;
   private final LinkedBlockingQueue<T> eventQueue;
-  
-  
+
+  /**
+   * Events drained during the current cycle.  This is reused between cycles.
+   */
+  private final ArrayList<T> batch = new ArrayList<>();
+
+  /**
+   * Read only view of batch handed to the batch handlers
+   */
+  private final List<T> batchView = Collections.unmodifiableList( batch );
+
+
   public StateChangeProcessor( final LinkedBlockingQueue<T> eventQueue, final Consumer<T> ...handlerList )
   {
-    this.handlerList = handlerList;
+    this( eventQueue, Arrays.asList( handlerList ), Collections.emptyList());
+  }
+
+
+  /**
+   * @param eventQueue The event queue to drain
+   * @param handlerList Handlers called for each event
+   * @param batchHandlerList Handlers called once per cycle with every event drained during that cycle
+   */
+  public StateChangeProcessor( final LinkedBlockingQueue<T> eventQueue, final List<Consumer<T>> handlerList,
+    final List<Consumer<List<T>>> batchHandlerList )
+  {
+    if ( eventQueue == null )
+      throw new IllegalArgumentException( "eventQueue must not be null" );
+    else if ( handlerList == null )
+      throw new IllegalArgumentException( "handlerList must not be null" );
+    else if ( batchHandlerList == null )
+      throw new IllegalArgumentException( "batchHandlerList must not be null" );
+
+    this.handlerList = new ArrayList<>( handlerList );
+    this.batchHandlerList = new ArrayList<>( batchHandlerList );
     this.eventQueue = eventQueue;
   }
-  
-    
+
+
   @Override
   public void run()
   {
-    while( true )
-    {
-      final T event = eventQueue.poll();
-      if ( event == null )
-        break;
-      
-      for ( final Consumer<T> handler : handlerList )
+    //..EventStateManager adds frames while holding the queue monitor.  Draining under the same monitor ensures a 
+    //  frame is never split between two cycles.
+    synchronized( eventQueue ) {
+      eventQueue.drainTo( batch );
+    }
+    
+    if ( batch.isEmpty())
+      return;
+
+    try {
+      for ( int i = 0; i < batch.size(); i++ )
+      {
+        final T event = batch.get( i );
+        for ( final Consumer<T> handler : handlerList )
+        {
+          handler.accept( event );
+        }
+      }
+
+      for ( final Consumer<List<T>> handler : batchHandlerList )
       {
-        handler.accept( event );
+        handler.accept( batchView );
       }
+    } finally {
+      batch.clear();
     }
   }
 }
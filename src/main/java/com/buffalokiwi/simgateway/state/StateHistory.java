@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+package com.buffalokiwi.simgateway.state;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+
+/**
+ * Keeps a HistoryRing for each control that has history enabled.
+ * 
+ * This is a batch handler for the StateChangeProcessor, so samples are recorded on the processor thread and not by 
+ * whatever thread is parsing the sim payload.  Numeric values are recorded as is, booleans are recorded as 1 or 0 and 
+ * anything else is ignored.
+ * 
+ * The set of controls is fixed at construction, and rings may be read from any thread.
+ * 
+ * @author John Quinn
+ */
+public class StateHistory implements Consumer<List<IStateEvent>>
+{
+  /**
+   * software address => ring 
+   */
+  private final Map<Integer,HistoryRing> historyMap = new HashMap<>();
+  
+  
+  /**
+   * @param capacityMap software address => number of samples to keep 
+   */
+  public StateHistory( final Map<Integer,Integer> capacityMap )
+  {
+    if ( capacityMap == null )
+      throw new IllegalArgumentException( "capacityMap must not be null" );
+    
+    for ( final Map.Entry<Integer,Integer> entry : capacityMap.entrySet())
+    {
+      historyMap.put( entry.getKey(), new HistoryRing( entry.getValue()));
+    }
+  }
+  
+  
+  /**
+   * Retrieve the history for a control 
+   * @param address software address 
+   * @return ring or null if history is not enabled for the control 
+   */
+  public HistoryRing getHistory( final int address )
+  {
+    return historyMap.get( address );
+  }
+  
+  
+  /**
+   * Record a batch of events 
+   * @param events events 
+   */
+  @Override
+  public void accept( final List<IStateEvent> events )
+  {
+    for ( int i = 0; i < events.size(); i++ )
+    {
+      final IStateEvent event = events.get( i );
+      final HistoryRing ring = historyMap.get( event.getControl().getSoftwareAddress());
+      if ( ring == null )
+        continue;
+      
+      final Object value = event.getValue();
+      if ( value instanceof Number )
+        ring.record( event.getEventTimeNanos(), ((Number)value).doubleValue());
+      else if ( value instanceof Boolean )
+        ring.record( event.getEventTimeNanos(), ((Boolean)value) ? 1 : 0 );
+    }
+  }
+}
@@ -6,6 +6,7 @@
  */
 package com.buffalokiwi.simgateway.state;
 
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
 
 
@@ -53,12 +54,12 @@ public class VariableState<T>
   public void set( final T value )
   {
     final T formattedValue = formatValue( value );
-    if ( !this.value.equals( formattedValue ))
+    final T oldValue = this.value.getAndSet( formattedValue );
+    if ( !Objects.equals( oldValue, formattedValue ))
     {
       //..Do state change
-      registerEvent( control, formattedValue, this.value.get());
+      registerEvent( control, formattedValue, oldValue );
     }
-    this.value.getAndSet( formattedValue );
   }
   
   
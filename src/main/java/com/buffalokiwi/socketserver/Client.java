@@ -37,7 +37,8 @@ public class Client implements IClient
   };
   
   /**
-   * String used to terminate multiline input mode 
+   * String used to terminate multiline input mode.  Payload lines starting with this are sent with an extra one in 
+   * front, which is removed 
    */
   private static final String MULTILINE_TERMINATOR = ".";
   
@@ -115,6 +116,8 @@ public class Client implements IClient
     this.promptText = promptText;
     this.socket = socket;
     this.commands = commands;
+    //..Lines pushed to the client are sent immediately 
+    socket.setTcpNoDelay( true );
     outputStream = new PrintWriter( socket.getOutputStream(), true );
     inputStream = new BufferedReader( new InputStreamReader( socket.getInputStream()));
     this.bigEndian = bigEndian;
@@ -185,7 +188,7 @@ public class Client implements IClient
             //..User should be entering some command with optional arguments 
             case COMMAND:
               //..Get the command line 
-              final ICommandInput input = new CommandInput( cmd.trim());
+              final ICommandInput input = new CommandInput( cmd.trim(), true, this );
 
               //..Get the command 
               command = getCommand( input.getCommand());
@@ -212,12 +215,13 @@ public class Client implements IClient
                 inputMode = InputMode.COMMAND;
 
                 //..Execute the command with the multiline buffer 
-                executeCommand( command, new CommandInput( multiBuffer.toString(), false ));
+                executeCommand( command, new CommandInput( multiBuffer.toString(), false, this ));
               }
               else
               {
-                //..Append whatever the user sent to the multiline buffer 
-                multiBuffer.append( cmd );
+                //..Append whatever the user sent to the multiline buffer.  Lines starting with the terminator were 
+                //  stuffed with another one by the sender 
+                multiBuffer.append( cmd, cmd.startsWith( MULTILINE_TERMINATOR ) ? MULTILINE_TERMINATOR.length() : 0, cmd.length());
                 multiBuffer.append( '\n' );
               }
             break;
@@ -266,6 +270,23 @@ public class Client implements IClient
   }
   
   
+  /**
+   * Send a line to the client outside of a command response.  PrintWriter locks each line, so pushed lines never 
+   * interleave with responses
+   * @param line line without the line ending 
+   * @return false if the client is closed or the write failed 
+   */
+  @Override
+  public boolean push( final String line )
+  {
+    if ( !running )
+      return false;
+    
+    outputStream.println( line );
+    return !outputStream.checkError();
+  }
+  
+  
   /**
    * Retrieve the client connection uptime 
    * @return uptime
@@ -15,6 +15,7 @@ public class CommandInput implements ICommandInput
   private final String line;
   private final String command;
   private final String payload;
+  private final IClient client;
   
   public CommandInput( final String line )
   {
@@ -23,11 +24,23 @@ public class CommandInput implements ICommandInput
   
   
   public CommandInput( final String line, final boolean containsCommand )
+  {
+    this( line, containsCommand, null );
+  }
+  
+  
+  /**
+   * @param line input line 
+   * @param containsCommand if the line starts with a command 
+   * @param client client that sent the line or null 
+   */
+  public CommandInput( final String line, final boolean containsCommand, final IClient client )
   {
     if( line == null )
       throw new IllegalArgumentException( "cmd cannot be null");
     
     this.line = line;
+    this.client = client;
     
     if ( containsCommand )
     {
@@ -66,4 +79,11 @@ public class CommandInput implements ICommandInput
   {
     return line;
   }
+  
+  
+  @Override
+  public IClient getClient()
+  {
+    return client;
+  }
 }
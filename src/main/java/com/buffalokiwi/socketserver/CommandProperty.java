@@ -13,7 +13,8 @@ package com.buffalokiwi.socketserver;
 public enum CommandProperty 
 {
   /**
-   * Command accepts multi-line inputs 
+   * Command accepts multi-line inputs.  Input ends with a line containing a single period, and payload lines that 
+   * start with a period are sent with another period in front 
    */
   MULTILINE
 }
@@ -40,6 +40,14 @@ public interface IClient extends AutoCloseable
   public void run() throws Exception;
   
   
+  /**
+   * Send a line to the client outside of a command response.  This may be called from any thread 
+   * @param line line without the line ending 
+   * @return false if the line could not be sent 
+   */
+  public boolean push( final String line );
+  
+  
   public boolean isRunning();
   
   public boolean isExpired();
@@ -14,4 +14,10 @@ public interface ICommandInput
 {
   public String getCommand();
   public String getPayload();
+  
+  /**
+   * Retrieve the client connection that sent the command 
+   * @return client or null 
+   */
+  public IClient getClient();
 }
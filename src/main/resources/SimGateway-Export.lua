@@ -0,0 +1,367 @@
+-- SimGateway Export Script for DCS World
+--
+-- Sends only the controls that changed since the previous frame.  All changes made during a sim frame are sent
+-- as a single packed line:
+--
+--   frame <seq>;<address>=<value>;<address>=<value>
+--
+-- Sequence 0 is a full frame containing every exported control.  A full frame is sent after connecting, and whenever
+-- SimGateway responds with "resync".  Nothing is sent when nothing changed.
+--
+-- Cockpit draw arguments listed in SimGateway.arguments are sent the same way on their own stream:
+--
+--   args <seq>;<argument id>=<value>;<argument id>=<value>
+--
+-- The argument stream is resent in full when SimGateway responds with "resync args".
+--
+-- Text displays listed in SimGateway.indications are sent with the multiline indication command, and only when the
+-- text returned by list_indication() changed.  SimGateway diffs the individual display fields.
+--
+-- Panel input is pushed by SimGateway after the script subscribes with "subscribe input".  Each line holds one or
+-- more clickable actions for components with an "action" in config.json:
+--
+--   input <device>,<command>,<value>;<device>,<command>,<value>
+--
+-- Input is read in LuaExportBeforeNextFrame, so a switch reaches the sim before the next frame is simulated.
+-- Rotary detents that arrive faster than SimGateway can send them are already added together into one value.
+--
+-- Install: copy this file to Saved Games/DCS/Scripts and add the following line to Saved Games/DCS/Scripts/Export.lua
+--
+--   dofile( lfs.writedir() .. [[Scripts\SimGateway-Export.lua]] )
+--
+-- Any export functions defined before this file is loaded are still called.
+
+package.path  = package.path .. ";" .. lfs.currentdir() .. "/LuaSocket/?.lua"
+package.cpath = package.cpath .. ";" .. lfs.currentdir() .. "/LuaSocket/?.dll"
+
+local SimGateway = {
+  host = "127.0.0.1",
+  port = 4201,
+
+  -- Model time in seconds between connection attempts
+  reconnectInterval = 5,
+
+  -- Cockpit draw argument ids to export.  Map components to these with "arg:<id>" in config.json
+  arguments = {},
+
+  -- Decimal places sent for cockpit arguments
+  argumentScale = 3,
+
+  -- list_indication() display ids to export.  Map display fields to software addresses with "indications" in config.json
+  indications = {},
+
+  -- Perform clickable actions sent by SimGateway for switches on the panels
+  input = true
+}
+
+local socket = require( "socket" )
+local conn = nil
+local nextConnect = 0
+local seq = 0
+local fullFrame = true
+
+-- Start of a line received without its end of line
+local pending = ""
+
+-- address => last sent value scaled to an integer
+local lastSent = {}
+
+-- Reused for every frame
+local parts = {}
+
+-- Cockpit argument stream state
+local argSeq = 0
+local argFullFrame = true
+local argFactor = 10 ^ SimGateway.argumentScale
+
+-- argument id => last sent value scaled to an integer
+local argLastSent = {}
+
+-- display id => last sent list_indication() text
+local indicationLastSent = {}
+
+-- Exported controls.  { software address, decimal places, getter }
+-- Addresses match the Control enum in com.buffalokiwi.simgateway.dcs
+local engineExports = {
+  { 1,  4, function( e ) return e.fuel_external end },
+  { 2,  4, function( e ) return e.fuel_internal end },
+  { 3,  1, function( e ) return e.Temperature.left end },
+  { 4,  1, function( e ) return e.Temperature.right end },
+  { 5,  0, function( e ) return e.RPM.left end },
+  { 6,  0, function( e ) return e.RPM.right end },
+  { 7,  4, function( e ) return e.FuelConsumption.left end },
+  { 8,  4, function( e ) return e.FuelConsumption.right end },
+  { 9,  0, function( e ) return e.EngineStart.left end },
+  { 10, 0, function( e ) return e.EngineStart.right end },
+  { 11, 4, function( e ) return e.HydraulicPressure.left end },
+  { 12, 4, function( e ) return e.HydraulicPressure.right end }
+}
+
+-- 10^scale for each export.  Computed once
+for _, export in ipairs( engineExports ) do
+  export[4] = 10 ^ export[2]
+end
+
+
+local function disconnect()
+  if conn then
+    conn:close()
+    conn = nil
+  end
+
+  pending = ""
+end
+
+
+local function connect( t )
+  if conn or t < nextConnect then
+    return
+  end
+
+  nextConnect = t + SimGateway.reconnectInterval
+
+  local c = socket.connect( SimGateway.host, SimGateway.port )
+  if not c then
+    return
+  end
+
+  c:setoption( "tcp-nodelay", true )
+  c:settimeout( 0 )
+  conn = c
+
+  if SimGateway.input and not conn:send( "subscribe input\n" ) then
+    disconnect()
+    return
+  end
+
+  -- The gateway knows nothing about us yet
+  fullFrame = true
+  argFullFrame = true
+  indicationLastSent = {}
+end
+
+
+-- Perform each action in an input line.  <device>,<command>,<value>;...
+local function performInput( line )
+  for device, command, value in string.gmatch( line, "(%d+),(%d+),([%-%d%.]+)" ) do
+    local d = GetDevice( tonumber( device ))
+    if d then
+      d:performClickableAction( tonumber( command ), tonumber( value ))
+    end
+  end
+end
+
+
+-- Read any responses and pushed input without blocking.  Responses may be prefixed with length bytes
+local function readResponses()
+  while conn do
+    -- A line split across segments is kept until the rest arrives
+    local line, err, partial = conn:receive( "*l", pending )
+    if not line then
+      if err == "closed" then
+        disconnect()
+      else
+        pending = partial or pending
+      end
+      return
+    end
+
+    pending = ""
+
+    if string.sub( line, 1, 6 ) == "input " then
+      performInput( string.sub( line, 7 ))
+    elseif string.find( line, "resync args", 1, true ) then
+      argFullFrame = true
+    elseif string.find( line, "resync", 1, true ) then
+      fullFrame = true
+    end
+  end
+end
+
+
+local function clearParts()
+  for i = #parts, 1, -1 do
+    parts[i] = nil
+  end
+end
+
+
+-- Add changed values from a source table to parts
+local function collect( exports, source )
+  if not source then
+    return
+  end
+
+  for _, export in ipairs( exports ) do
+    local value = export[3]( source )
+    if type( value ) == "number" then
+      local address = export[1]
+      local scaled = math.floor( value * export[4] + 0.5 )
+      if fullFrame or lastSent[address] ~= scaled then
+        lastSent[address] = scaled
+        parts[#parts + 1] = address .. "=" .. tostring( scaled / export[4] )
+      end
+    end
+  end
+end
+
+
+local function sendFrame()
+  if fullFrame then
+    seq = 0
+  end
+
+  clearParts()
+
+  collect( engineExports, LoGetEngineInfo())
+
+  if #parts == 0 and not fullFrame then
+    return
+  end
+
+  local ok = conn:send( "frame " .. seq .. ";" .. table.concat( parts, ";" ) .. "\n" )
+  if not ok then
+    disconnect()
+    return
+  end
+
+  fullFrame = false
+  seq = seq + 1
+end
+
+
+-- Cockpit arguments are read directly from the main panel device
+local function sendArguments()
+  if #SimGateway.arguments == 0 then
+    return
+  end
+
+  local panel = GetDevice( 0 )
+  if not panel then
+    return
+  end
+
+  if argFullFrame then
+    argSeq = 0
+  end
+
+  clearParts()
+
+  for _, id in ipairs( SimGateway.arguments ) do
+    local scaled = math.floor( panel:get_argument_value( id ) * argFactor + 0.5 )
+    if argFullFrame or argLastSent[id] ~= scaled then
+      argLastSent[id] = scaled
+      parts[#parts + 1] = id .. "=" .. tostring( scaled / argFactor )
+    end
+  end
+
+  if #parts == 0 and not argFullFrame then
+    return
+  end
+
+  local ok = conn:send( "args " .. argSeq .. ";" .. table.concat( parts, ";" ) .. "\n" )
+  if not ok then
+    disconnect()
+    return
+  end
+
+  argFullFrame = false
+  argSeq = argSeq + 1
+end
+
+
+-- Add a period to the start of every line that starts with one, so a line containing only a period does not end
+-- the indication command early.  The gateway removes it
+local function stuffDots( text )
+  local stuffed = string.gsub( text, "\n%.", "\n.." )
+  if string.sub( stuffed, 1, 1 ) == "." then
+    stuffed = "." .. stuffed
+  end
+
+  return stuffed
+end
+
+
+-- Send text displays that changed since they were last sent
+local function sendIndications()
+  for _, id in ipairs( SimGateway.indications ) do
+    local text = list_indication( id ) or ""
+    if indicationLastSent[id] ~= text then
+      local ok = conn:send( "indication\n" .. id .. "\n" .. stuffDots( text ) .. "\n.\n" )
+      if not ok then
+        disconnect()
+        return
+      end
+
+      indicationLastSent[id] = text
+    end
+  end
+end
+
+
+-- Keep any export functions that were defined before this file
+local previous = {
+  start = LuaExportStart,
+  before = LuaExportBeforeNextFrame,
+  after = LuaExportAfterNextFrame,
+  stop = LuaExportStop
+}
+
+
+function LuaExportStart()
+  if previous.start then
+    previous.start()
+  end
+
+  connect( 0 )
+end
+
+
+-- Panel input is performed before the sim runs the next frame
+function LuaExportBeforeNextFrame()
+  if previous.before then
+    previous.before()
+  end
+
+  if conn then
+    readResponses()
+  end
+end
+
+
+function LuaExportAfterNextFrame()
+  if previous.after then
+    previous.after()
+  end
+
+  connect( LoGetModelTime())
+  if not conn then
+    return
+  end
+
+  readResponses()
+  if conn then
+    sendFrame()
+  end
+
+  if conn then
+    sendArguments()
+  end
+
+  if conn then
+    sendIndications()
+  end
+end
+
+
+function LuaExportStop()
+  if previous.stop then
+    previous.stop()
+  end
+
+  if conn then
+    conn:send( "quit\n" )
+  end
+
+  disconnect()
+end
@@ -22,6 +22,36 @@ const uint8_t TEXT_START = 0x2; //..After 1 byte of hardware, this is expected.
 const uint8_t TEXT_END = 0x3;  //..end of payload 
 const uint8_t SEPARATOR = 0x1F; //..Unused 
 const uint8_t MESSAGE_END = 0x4; //..End of message
+const uint8_t DLE = 0x10; //..Binary encoding only.  The next byte is escaped: original byte = next byte XOR STUFF_MASK 
+const uint8_t STUFF_MASK = 0x20; //..XOR mask for escaped bytes 
+
+//..Must match the device "encoding" in config.json.  false = "text", true = "binary" 
+const bool BINARY_ENCODING = false;
+
+//..Must match the device "protocol" in config.json.  1 is write and forget.  2 adds sequence numbers, checksums and 
+//  acknowledgements.  Version 2 frames are always byte stuffed: 
+//  MESSAGE_START sequence address TEXT_START payload TEXT_END crc8 MESSAGE_END 
+const uint8_t PROTOCOL_VERSION = 1;
+
+//..Baud rate negotiation.  Messages sent to CONTROL_ADDRESS are requests from the gateway and are not displayed.
+//  SAFE_BAUD must match the device port "baud" in config.json.  Rates above MAX_BAUD are refused.
+const uint8_t CONTROL_ADDRESS = 0xFF;
+const unsigned long SAFE_BAUD = 9600;
+const unsigned long MAX_BAUD = 115200;
+const unsigned long BAUD_CONFIRM_MS = 1000; //..Switch back to SAFE_BAUD if the new rate is not confirmed in time 
+
+//..Inputs.  Values are sent to the gateway as "I[hardware address],[value]\n" with decimal numbers.
+//  Each address must match the "address" of a toggle, momentary or rotary component in config.json.
+//  Switches connect the pin to ground.  Toggle and momentary values are 1 when closed and 0 when open.
+const uint8_t SWITCH_COUNT = 1;
+const uint8_t SWITCH_PINS[SWITCH_COUNT] = { 7 };
+const uint8_t SWITCH_ADDRESSES[SWITCH_COUNT] = { 0x20 };
+const unsigned long DEBOUNCE_MS = 5;
+
+//..Rotary encoder quadrature pins.  Values are the signed number of detents turned since the last message 
+const uint8_t ROTARY_PIN_A = 8;
+const uint8_t ROTARY_PIN_B = 9;
+const uint8_t ROTARY_ADDRESS = 0x21;
 
 //Message buffers 
 const uint8_t HEADER_BYTES = 0x3; //..Total bytes in the message header 
@@ -37,6 +67,7 @@ const uint8_t STATE_NONE = 0x1;
 const uint8_t STATE_GET_HARDWARE_ADDRESS = 0x2;
 const uint8_t STATE_GET_PAYLOAD = 0x3;
 const uint8_t STATE_IN_MESSAGE = 0x4;
+const uint8_t STATE_GET_CHECKSUM = 0x5;
 
 
 //..The current message processing state
@@ -54,12 +85,55 @@ volatile uint8_t headerIndex = 0;
 //..Current value read index 
 volatile uint8_t valueIndex = 0;
 
+//..Binary encoding: the previous byte was DLE 
+bool binaryEscape = false;
+
+//..Protocol version 2: unstuffed bytes before TEXT_START.  [sequence, address], or [address] for a version 1 frame 
+uint8_t frameHeader[2];
+uint8_t frameHeaderCount = 0;
+
+//..Protocol version 2: running checksum of the header and payload, and the received checksum 
+uint8_t frameCrc = 0;
+uint8_t frameChecksum = 0;
+bool hasChecksum = false;
+
+//..Protocol version 2: the next sequence number expected, and frames received after it.  Bit 0 is ackBase + 1 
+uint8_t ackBase = 0;
+uint32_t ackBits = 0;
+
+//..The current baud rate 
+unsigned long currentBaud = SAFE_BAUD;
+
+//..A new baud rate is waiting to be confirmed 
+bool baudPending = false;
+unsigned long baudChangedAt = 0;
+
+//..Last reported switch states, and when each switch last changed 
+uint8_t switchState[SWITCH_COUNT];
+unsigned long switchChangedAt[SWITCH_COUNT];
+
+//..Last rotary pin A state, and detents turned since the last message 
+uint8_t rotaryLastA = HIGH;
+int rotaryDelta = 0;
+
 
 
 void setup() 
 {
   pinMode( LED_SERIAL_ACTIVITY, OUTPUT );
-  Serial.begin( 9600 );
+  
+  for ( uint8_t i = 0; i < SWITCH_COUNT; i++ )
+  {
+    pinMode( SWITCH_PINS[i], INPUT_PULLUP );
+    switchState[i] = 0xFF; //..Report the starting position of every switch 
+    switchChangedAt[i] = 0;
+  }
+  
+  pinMode( ROTARY_PIN_A, INPUT_PULLUP );
+  pinMode( ROTARY_PIN_B, INPUT_PULLUP );
+  rotaryLastA = digitalRead( ROTARY_PIN_A );
+  
+  Serial.begin( SAFE_BAUD );
   lcd.begin( 16, 1 );
   lcd.print( "OK" );
 }
@@ -67,11 +141,33 @@ void setup()
 
 void loop() 
 {
+  if ( baudPending && millis() - baudChangedAt > BAUD_CONFIRM_MS )
+  {
+    //..The gateway did not confirm the new rate 
+    setBaud( SAFE_BAUD );
+    baudPending = false;
+    resetMessageState();
+  }
+  
+  readInputs();
+
   if ( !Serial.available())
     return;
 
   uint8_t input = Serial.read();
 
+  if ( PROTOCOL_VERSION == 2 )
+  {
+    readFrame( input );
+    return;
+  }
+
+  if ( BINARY_ENCODING )
+  {
+    readBinary( input );
+    return;
+  }
+
   //..Header 3 bytes:
   //  MESSAGE_START
   //  hardware address 
@@ -104,7 +200,11 @@ void loop()
   }
   else if ( curState == STATE_IN_MESSAGE && input == MESSAGE_END )
   {
-    writeValueToLCD();
+    //..header[1] holds the hardware address byte 
+    if ( header[1] == CONTROL_ADDRESS )
+      handleControlMessage();
+    else
+      writeValueToLCD();
     resetMessageState();
     digitalWrite( LED_SERIAL_ACTIVITY, LOW );
   }
@@ -131,6 +231,379 @@ void loop()
 
 }
 
+/**
+ * Binary encoding message reader 
+ * 
+ * Frames are the same as text encoding, but the address and payload are byte stuffed.  Any of those bytes equal to 
+ * MESSAGE_START, TEXT_START, TEXT_END, MESSAGE_END or DLE is sent as DLE followed by the byte XOR STUFF_MASK, so framing 
+ * bytes only ever appear as framing.
+ */
+void readBinary( uint8_t input )
+{
+  if ( input == MESSAGE_START )
+  {
+    //..Always start over.  A partial message is abandoned 
+    resetMessageState();
+    curState = STATE_GET_HARDWARE_ADDRESS;
+    digitalWrite( LED_SERIAL_ACTIVITY, HIGH );
+    return;
+  }
+  else if ( curState == STATE_NONE )
+    return;
+  else if ( input == TEXT_START && curState == STATE_GET_HARDWARE_ADDRESS )
+  {
+    curState = STATE_GET_PAYLOAD;
+    return;
+  }
+  else if ( input == TEXT_END && curState == STATE_GET_PAYLOAD )
+  {
+    curState = STATE_IN_MESSAGE;
+    return;
+  }
+  else if ( input == MESSAGE_END )
+  {
+    if ( curState == STATE_IN_MESSAGE )
+      applyBinaryMessage();
+
+    resetMessageState();
+    digitalWrite( LED_SERIAL_ACTIVITY, LOW );
+    return;
+  }
+  else if ( input == DLE )
+  {
+    binaryEscape = true;
+    return;
+  }
+
+  if ( binaryEscape )
+  {
+    input ^= STUFF_MASK;
+    binaryEscape = false;
+  }
+
+  if ( curState == STATE_GET_HARDWARE_ADDRESS )
+    hardwareAddress = input;
+  else if ( curState == STATE_GET_PAYLOAD && valueIndex < VALUE_BYTES )
+    value[valueIndex++] = input;
+}
+
+
+/**
+ * Protocol version 2 frame reader.  Frames are byte stuffed like binary encoding, with a sequence number before the 
+ * address and a CRC-8 checksum after TEXT_END.  Every valid frame is acknowledged.
+ * 
+ * Version 1 frames (no sequence number or checksum) are accepted for control messages only, so baud rate 
+ * negotiation works the same for both versions.
+ */
+void readFrame( uint8_t input )
+{
+  if ( input == MESSAGE_START )
+  {
+    resetMessageState();
+    curState = STATE_GET_HARDWARE_ADDRESS;
+    digitalWrite( LED_SERIAL_ACTIVITY, HIGH );
+    return;
+  }
+  else if ( curState == STATE_NONE )
+    return;
+  else if ( input == TEXT_START && curState == STATE_GET_HARDWARE_ADDRESS )
+  {
+    curState = STATE_GET_PAYLOAD;
+    return;
+  }
+  else if ( input == TEXT_END && curState == STATE_GET_PAYLOAD )
+  {
+    curState = STATE_GET_CHECKSUM;
+    return;
+  }
+  else if ( input == MESSAGE_END )
+  {
+    if ( curState == STATE_GET_CHECKSUM )
+      applyFrame();
+
+    resetMessageState();
+    digitalWrite( LED_SERIAL_ACTIVITY, LOW );
+    return;
+  }
+  else if ( input == DLE )
+  {
+    binaryEscape = true;
+    return;
+  }
+
+  if ( binaryEscape )
+  {
+    input ^= STUFF_MASK;
+    binaryEscape = false;
+  }
+
+  if ( curState == STATE_GET_HARDWARE_ADDRESS && frameHeaderCount < 2 )
+  {
+    frameHeader[frameHeaderCount++] = input;
+    frameCrc = crc8( frameCrc, input );
+  }
+  else if ( curState == STATE_GET_PAYLOAD )
+  {
+    //..Payload bytes that do not fit are dropped, but still count toward the checksum 
+    if ( valueIndex < VALUE_BYTES )
+      value[valueIndex++] = input;
+
+    frameCrc = crc8( frameCrc, input );
+  }
+  else if ( curState == STATE_GET_CHECKSUM )
+  {
+    frameChecksum = input;
+    hasChecksum = true;
+  }
+}
+
+
+void applyFrame()
+{
+  if ( frameHeaderCount == 1 && !hasChecksum )
+  {
+    //..Version 1 control message 
+    hardwareAddress = frameHeader[0];
+    if ( hardwareAddress == CONTROL_ADDRESS )
+      handleControlMessage();
+
+    return;
+  }
+
+  //..Corrupt frames are ignored.  The gateway sends them again 
+  if ( frameHeaderCount != 2 || !hasChecksum || frameCrc != frameChecksum )
+    return;
+
+  const uint8_t sequence = frameHeader[0];
+  hardwareAddress = frameHeader[1];
+
+  const bool isSync = ( hardwareAddress == CONTROL_ADDRESS && valueIndex == 1 && value[0] == 'S' );
+
+  if ( acceptSequence( sequence, isSync ) && !isSync )
+  {
+    if ( BINARY_ENCODING )
+      applyBinaryMessage();
+    else if ( hardwareAddress == CONTROL_ADDRESS )
+      handleControlMessage();
+    else
+      writeValueToLCD();
+  }
+
+  sendAck();
+}
+
+
+/**
+ * Record a received sequence number 
+ * @return true if the frame has not been received before 
+ */
+bool acceptSequence( uint8_t sequence, bool isSync )
+{
+  if ( isSync )
+  {
+    ackBase = sequence + 1;
+    ackBits = 0;
+    return true;
+  }
+
+  const uint8_t distance = sequence - ackBase;
+  if ( distance == 0 )
+  {
+    //..Move past this frame and every frame already received after it 
+    bool received;
+    do 
+    {
+      ackBase++;
+      received = ackBits & 1;
+      ackBits >>= 1;
+    } while ( received );
+
+    return true;
+  }
+  else if ( distance <= 32 )
+  {
+    const uint32_t mask = 1UL << ( distance - 1 );
+    if ( ackBits & mask )
+      return false;
+
+    ackBits |= mask;
+    return true;
+  }
+
+  //..Received before the current ackBase 
+  return false;
+}
+
+
+//..Read the switches and the rotary encoder, and send any changes to the gateway 
+void readInputs()
+{
+  const unsigned long now = millis();
+  for ( uint8_t i = 0; i < SWITCH_COUNT; i++ )
+  {
+    const uint8_t closed = ( digitalRead( SWITCH_PINS[i] ) == LOW ) ? 1 : 0;
+    if ( closed != switchState[i] && now - switchChangedAt[i] >= DEBOUNCE_MS )
+    {
+      switchState[i] = closed;
+      switchChangedAt[i] = now;
+      sendInput( SWITCH_ADDRESSES[i], closed );
+    }
+  }
+  
+  //..One detent per falling edge of pin A.  Pin B gives the direction 
+  const uint8_t a = digitalRead( ROTARY_PIN_A );
+  if ( a == LOW && rotaryLastA == HIGH )
+    rotaryDelta += ( digitalRead( ROTARY_PIN_B ) == HIGH ) ? 1 : -1;
+  
+  rotaryLastA = a;
+  
+  //..Detents turned while the last message was being sent are added together 
+  if ( rotaryDelta != 0 && Serial.availableForWrite() > 8 )
+  {
+    sendInput( ROTARY_ADDRESS, rotaryDelta );
+    rotaryDelta = 0;
+  }
+}
+
+
+//..Input value: I[hardware address],[value] 
+void sendInput( uint8_t address, int value )
+{
+  Serial.print( 'I' );
+  Serial.print( address );
+  Serial.print( ',' );
+  Serial.print( value );
+  Serial.print( '\n' );
+}
+
+
+//..Cumulative acknowledgement: A[next sequence expected],[hex bitmap of frames received after it]
+void sendAck()
+{
+  Serial.print( 'A' );
+  Serial.print( ackBase );
+  Serial.print( ',' );
+  Serial.print( ackBits, HEX );
+  Serial.print( '\n' );
+}
+
+
+//..CRC-8 polynomial 0x07 
+uint8_t crc8( uint8_t crc, uint8_t b )
+{
+  crc ^= b;
+  for ( uint8_t i = 0; i < 8; i++ )
+    crc = ( crc & 0x80 ) ? ( crc << 1 ) ^ 0x07 : ( crc << 1 );
+
+  return crc;
+}
+
+
+/**
+ * Apply a complete binary message.  Payloads depend on the component type:
+ *   led, toggle, momentary: 1 byte.  Use decodeSwitch() 
+ *   gauge, rotary: 2 byte signed big endian fixed point.  Use decodeFixed() and divide by 10^scale 
+ *   lcd_character: raw characters 
+ */
+void applyBinaryMessage()
+{
+  switch ( hardwareAddress )
+  {
+    case CONTROL_ADDRESS:
+      handleControlMessage();
+    break;
+
+    //..Add a case for each component on this device.  ie: a gauge at address 2 with scale 1:
+    //  case 2:
+    //    moveNeedle( decodeFixed() / 10.0 );
+    //  break;
+
+    default:
+      writeValueToLCD();
+    break;
+  }
+}
+
+
+//..1 byte switch state 
+bool decodeSwitch()
+{
+  return valueIndex > 0 && value[0] != 0;
+}
+
+
+//..2 byte signed big endian fixed point 
+int16_t decodeFixed()
+{
+  if ( valueIndex < 2 )
+    return 0;
+
+  return (int16_t)((((uint16_t)value[0] ) << 8 ) | value[1] );
+}
+
+
+/**
+ * Handle a request from the gateway.  Replies are ASCII lines ending in \n 
+ *   B?       Reply with B[current baud rate].  Confirms a new rate 
+ *   B[rate]  Reply with B[rate] and switch to the rate, or reply with N if the rate is not supported 
+ */
+void handleControlMessage()
+{
+  if ( valueIndex < 2 || value[0] != 'B' )
+    return;
+
+  if ( value[1] == '?' )
+  {
+    baudPending = false;
+    Serial.print( 'B' );
+    Serial.print( currentBaud );
+    Serial.print( '\n' );
+    
+    //..Switch positions sent while the gateway was negotiating are not used, so send them again at the final rate 
+    for ( uint8_t i = 0; i < SWITCH_COUNT; i++ )
+      switchState[i] = 0xFF;
+    
+    return;
+  }
+
+  unsigned long rate = 0;
+  for ( uint8_t i = 1; i < valueIndex; i++ )
+  {
+    if ( value[i] < '0' || value[i] > '9' )
+    {
+      rate = 0;
+      break;
+    }
+
+    rate = rate * 10 + ( value[i] - '0' );
+  }
+
+  if ( rate < SAFE_BAUD || rate > MAX_BAUD )
+  {
+    Serial.print( "N\n" );
+    return;
+  }
+
+  Serial.print( 'B' );
+  Serial.print( rate );
+  Serial.print( '\n' );
+
+  //..Wait for the reply to leave before changing the rate 
+  Serial.flush();
+  setBaud( rate );
+  baudPending = ( rate != SAFE_BAUD );
+  baudChangedAt = millis();
+}
+
+
+void setBaud( unsigned long rate )
+{
+  Serial.end();
+  Serial.begin( rate );
+  currentBaud = rate;
+}
+
+
 void writeValueToLCD()
 {
   
@@ -158,6 +631,11 @@ void resetMessageState()
 
   //..Reset the hardware address 
   hardwareAddress = 0;
+  binaryEscape = false;
+  frameHeaderCount = 0;
+  frameCrc = 0;
+  frameChecksum = 0;
+  hasChecksum = false;
 
   //..Reset the header
   for ( uint8_t i = 0; i < HEADER_BYTES; i++ )
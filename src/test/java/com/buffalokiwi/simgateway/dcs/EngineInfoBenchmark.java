@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.dcs;
+
+import com.buffalokiwi.simgateway.state.BooleanState;
+import com.buffalokiwi.simgateway.state.ISimControl;
+import com.buffalokiwi.simgateway.state.IStateEventManager;
+import com.buffalokiwi.simgateway.state.VariableState;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.function.Consumer;
+
+
+/**
+ * Times EngineInfo.update() against a copy of the split() and Float.valueOf() parser it replaced.
+ * 
+ * Each case runs the same payloads through both parsers with a state manager that discards events, so only parsing 
+ * and state updates are measured.  Allocation is read from com.sun.management.ThreadMXBean.  Results depend on the 
+ * JVM and the machine, so compare the two parsers within a single run.
+ * 
+ * This is not a unit test.  Run it with:
+ *   mvn test-compile exec:java -Dexec.mainClass=com.buffalokiwi.simgateway.dcs.EngineInfoBenchmark 
+ *     -Dexec.classpathScope=test
+ * 
+ * An optional argument sets the number of payloads per case.
+ */
+public class EngineInfoBenchmark 
+{
+  /**
+   * EngineInfo.update() before the single pass parser.  The parsing is copied from the old method
+   */
+  private static class LegacyEngineInfo
+  {
+    private static final int NUM_VARS = 12;
+    
+    private final IStateEventManager stateManager;
+    private final LegacyFloatState fuelInternal;
+    private final LegacyFloatState fuelExternal;
+    private final LegacyFloatState tempLeft;
+    private final LegacyFloatState tempRight;
+    private final LegacyFloatState rpmLeft;
+    private final LegacyFloatState rpmRight;
+    private final LegacyFloatState fuelConsumptionLeft;
+    private final LegacyFloatState fuelConsumptionRight;
+    private final BooleanState engineStartLeft;
+    private final BooleanState engineStartRight;
+    private final LegacyFloatState pressureLeft;
+    private final LegacyFloatState pressureRight;
+    
+    
+    private LegacyEngineInfo( final IStateEventManager stateManager )
+    {
+      this.stateManager = stateManager;
+      fuelInternal = new LegacyFloatState( Control.ENGINE_INFO_FUEL_INTERNAL, stateManager, 4 );
+      fuelExternal = new LegacyFloatState( Control.ENGINE_INFO_FUEL_EXTERNAL, stateManager, 4 );
+      tempLeft = new LegacyFloatState( Control.ENGINE_INFO_TEMP_LEFT, stateManager, 1 );
+      tempRight = new LegacyFloatState( Control.ENGINE_INFO_TEMP_RIGHT, stateManager, 1 );
+      rpmLeft = new LegacyFloatState( Control.ENGINE_INFO_RPM_LEFT, stateManager, 0 );
+      rpmRight  = new LegacyFloatState( Control.ENGINE_INFO_RPM_RIGHT, stateManager, 0 );
+      fuelConsumptionLeft = new LegacyFloatState( Control.ENGINE_INFO_RPM_LEFT, stateManager, 4 );
+      fuelConsumptionRight = new LegacyFloatState( Control.ENGINE_INFO_RPM_RIGHT, stateManager, 4 );
+      engineStartLeft = new BooleanState( Control.ENGINE_INFO_ENGINE_START_LEFT, stateManager );
+      engineStartRight = new BooleanState( Control.ENGINE_INFO_ENGINE_START_RIGHT, stateManager );
+      pressureLeft = new LegacyFloatState( Control.ENGINE_INFO_HYDRAULIC_PRESSURE_LEFT, stateManager, 4 );
+      pressureRight = new LegacyFloatState( Control.ENGINE_INFO_HYDRAULIC_PRESSURE_RIGHT, stateManager, 4 );
+    }
+    
+    
+    private void update( final String dcsPayload )
+    {
+      if ( dcsPayload == null || dcsPayload.isEmpty())
+        return;
+
+      final String[] data = dcsPayload.split( "," );
+      if ( data.length != NUM_VARS )
+        return;
+
+      stateManager.beginFrame();
+      try {
+        try {
+          fuelInternal.set( Float.valueOf( data[0] ));
+        } catch( NumberFormatException e ) {}
+
+        try {
+          fuelExternal.set( Float.valueOf( data[1] ));
+        } catch( NumberFormatException e ) {}
+
+        try {
+          tempLeft.set( Float.valueOf( data[2] ));
+        } catch( NumberFormatException e ) {}
+
+        try {
+          tempRight.set( Float.valueOf( data[3] ));
+        } catch( NumberFormatException e ) {}
+
+        try {
+          rpmLeft.set( Float.valueOf( data[4] ));
+        } catch( NumberFormatException e ) {}
+
+        try {
+          rpmRight.set( Float.valueOf( data[5] ));
+        } catch( NumberFormatException e ) {}
+
+        try {
+          fuelConsumptionLeft.set( Float.valueOf( data[6] ));
+        } catch( NumberFormatException e ) {}
+
+        try {
+          fuelConsumptionRight.set( Float.valueOf( data[7] ));
+        } catch( NumberFormatException e ) {}
+
+        engineStartLeft.set( data[8].equals( "1" ));
+        engineStartRight.set( data[9].equals( "1" ));
+
+        try {
+          pressureLeft.set( Float.valueOf( data[10] ));
+        } catch( NumberFormatException e ) {}
+
+        try {
+          pressureRight.set( Float.valueOf( data[11] ));
+        } catch( NumberFormatException e ) {}
+      } finally {
+        stateManager.commitFrame();
+      }
+    }
+  }
+  
+  
+  /**
+   * FloatState before the single pass parser, which rounded with BigDecimal 
+   */
+  private static class LegacyFloatState extends VariableState<Float>
+  {
+    private final int scale;
+    
+    
+    private LegacyFloatState( final ISimControl control, final IStateEventManager stateManager, final int scale )
+    {
+      super( control, stateManager, 0f );
+      this.scale = scale;
+    }
+    
+    
+    @Override
+    protected Float formatValue( Float value )
+    {
+      return BigDecimal.valueOf( value ).setScale( scale, RoundingMode.HALF_EVEN ).floatValue();
+    }
+  }
+  
+  
+  /**
+   * Discards every event 
+   */
+  private static final IStateEventManager NO_OP_MANAGER = new IStateEventManager() {
+    @Override
+    public <T> void registerEvent( final ISimControl control, final T value, final T oldValue ) {}
+    
+    @Override
+    public void beginFrame() {}
+    
+    @Override
+    public void commitFrame() {}
+  };
+  
+  private static final int DEFAULT_ITERATIONS = 2_000_000;
+  
+  
+  public static void main( final String[] args )
+  {
+    final int iterations = ( args.length > 0 ) ? Integer.parseInt( args[0] ) : DEFAULT_ITERATIONS;
+    
+    final String[] steady = { "1234.5678,567.8,650.2,648.9,85.3,85.1,0.5213,0.5108,1,1,3000.25,2999.75" };
+    
+    //..Values that change on every payload, as they do in flight 
+    final String[] changing = new String[64];
+    for ( int i = 0; i < changing.length; i++ )
+    {
+      changing[i] = ( 1234.5678f - i ) + "," + ( 567.8f - i * 0.1f ) + "," + ( 650.2f + i * 0.3f ) + "," 
+        + ( 648.9f + i * 0.3f ) + "," + ( 85.3f + i * 0.01f ) + "," + ( 85.1f + i * 0.01f ) + ",0.5213,0.5108,1,1," 
+        + ( 3000.25f + i ) + "," + ( 2999.75f + i );
+    }
+    
+    //..Fields DCS sends when a value is missing 
+    final String[] malformed = { "1234.5678,nil,650.2,,85.3,nan,0.5213,-,1,1,3000.25,inf" };
+    
+    final EngineInfo engineInfo = new EngineInfo( NO_OP_MANAGER );
+    final LegacyEngineInfo legacy = new LegacyEngineInfo( NO_OP_MANAGER );
+    
+    System.out.println( "Payloads per case: " + iterations );
+    run( "steady payload", steady, iterations, legacy::update, engineInfo::update );
+    run( "changing payload", changing, iterations, legacy::update, engineInfo::update );
+    run( "malformed fields", malformed, iterations, legacy::update, engineInfo::update );
+  }
+  
+  
+  private static void run( final String name, final String[] payloads, final int iterations, 
+    final Consumer<String> legacy, final Consumer<String> parser )
+  {
+    //..Warm up both before measuring either 
+    measure( payloads, iterations, legacy );
+    measure( payloads, iterations, parser );
+    
+    final double[] l = measure( payloads, iterations, legacy );
+    final double[] p = measure( payloads, iterations, parser );
+    System.out.println( String.format( "  %-18s legacy %7.1f ns / %6.0f B,  parser %7.1f ns / %6.0f B", 
+      name + ":", l[0], l[1], p[0], p[1] ));
+  }
+  
+  
+  /**
+   * @return { nanoseconds per payload, bytes allocated per payload }
+   */
+  private static double[] measure( final String[] payloads, final int iterations, final Consumer<String> update )
+  {
+    final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    
+    final long bytes = bean.getCurrentThreadAllocatedBytes();
+    final long start = System.nanoTime();
+    for ( int i = 0; i < iterations; i++ )
+    {
+      update.accept( payloads[i % payloads.length] );
+    }
+    
+    final long elapsed = System.nanoTime() - start;
+    final long allocated = bean.getCurrentThreadAllocatedBytes() - bytes;
+    return new double[] { (double)elapsed / iterations, (double)allocated / iterations };
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2025 John T Quinn III, <johnquinn3@gmail.com>
+ *
+ * This file is part of the DCSBridge package, and is subject to the terms and conditions defined in file 'LICENSE',
+ * which is part of this source code package.
+ */
+
+package com.buffalokiwi.simgateway.hardware;
+
+import com.buffalokiwi.simgateway.SimType;
+import com.buffalokiwi.simgateway.payload.PayloadControl;
+import com.buffalokiwi.simgateway.state.GenericStateEvent;
+import com.buffalokiwi.simgateway.state.IStateEvent;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+
+
+/**
+ * Measures allocation on the device output path, from DeviceRouter to the link output stream.
+ * 
+ * One scheduled device with a memory link and VALUES character display components is built by DeviceFactory, the 
+ * same as a device in config.json.  Each cycle routes a new value for every component and then writes the device, 
+ * all on the calling thread, so ThreadMXBean reports every byte the path allocates.  Events are created before the 
+ * measurement, since they are allocated by the sim payload decoders and not by the output path.
+ * 
+ * This is not a unit test.  Run it with:
+ *   mvn test-compile exec:java -Dexec.mainClass=com.buffalokiwi.simgateway.hardware.DeviceOutputBenchmark 
+ *     -Dexec.classpathScope=test
+ * 
+ * An optional argument sets the number of measured cycles.
+ */
+public class DeviceOutputBenchmark 
+{
+  /**
+   * Number of components on the device, each changed every cycle 
+   */
+  private static final int VALUES = 20;
+  
+  /**
+   * First software address used by the components 
+   */
+  private static final int FIRST_ADDRESS = 1000;
+  
+  private static final int DEFAULT_CYCLES = 100_000;
+  
+  
+  public static void main( final String[] args ) throws Exception
+  {
+    final int cycles = ( args.length > 0 ) ? Integer.parseInt( args[0] ) : DEFAULT_CYCLES;
+    
+    final JsonObjectBuilder components = Json.createObjectBuilder();
+    for ( int i = 0; i < VALUES; i++ )
+    {
+      components.add( "value" + i, Json.createObjectBuilder()
+        .add( "description", "" )
+        .add( "address", i + 1 )
+        .add( "sim", Json.createObjectBuilder().add( SimType.DCS_WORLD.getName(), FIRST_ADDRESS + i )));
+    }
+    
+    //..The baud rate is high enough that the link scheduler never holds messages back between cycles 
+    final JsonObjectBuilder device = Json.createObjectBuilder()
+      .add( "name", "benchmark" )
+      .add( "serial", "benchmark" )
+      .add( "description", "" )
+      .add( "link", Json.createObjectBuilder().add( "type", LinkType.MEMORY.getName()).add( "capture", 0 ))
+      .add( "port", Json.createObjectBuilder().add( "baud", 1_000_000_000 ))
+      .add( "components", Json.createObjectBuilder().add( ComponentType.LCD_CHARACTER.getName(), components ));
+    
+    try ( final DeviceFactory factory = new DeviceFactory( SimType.DCS_WORLD )) {
+      factory.addDeviceList( Json.createArrayBuilder().add( device ).build());
+      final IDevice target = factory.getDeviceList().get( 0 );
+      final MemoryLink link = (MemoryLink)target.getLink();
+      final DeviceRouter router = new DeviceRouter( factory );
+      
+      //..Two sets of values that alternate, so every component changes each cycle 
+      final List<List<IStateEvent>> batches = new ArrayList<>();
+      for ( int b = 0; b < 2; b++ )
+      {
+        final List<IStateEvent> batch = new ArrayList<>();
+        for ( int i = 0; i < VALUES; i++ )
+        {
+          final float value = 100.25f * ( i + 1 ) + b;
+          batch.add( new GenericStateEvent<>( new PayloadControl( SimType.DCS_WORLD, FIRST_ADDRESS + i, "value" + i ), 
+            value, value - 1 ));
+        }
+        
+        batches.add( batch );
+      }
+      
+      //..Buffers grow to their working size during the warm up 
+      run( router, target, batches, cycles );
+      
+      final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+      final long bytesWritten = link.getBytesWritten();
+      final long allocated = bean.getCurrentThreadAllocatedBytes();
+      final long start = System.nanoTime();
+      
+      run( router, target, batches, cycles );
+      
+      final long elapsed = System.nanoTime() - start;
+      final long total = bean.getCurrentThreadAllocatedBytes() - allocated;
+      
+      System.out.println( String.format( "%d cycles of %d values: %.1f ns / cycle, %d bytes allocated (%.3f B / cycle), "
+        + "%d bytes written to the link", cycles, VALUES, (double)elapsed / cycles, total, (double)total / cycles, 
+        link.getBytesWritten() - bytesWritten ));
+    }
+  }
+  
+  
+  private static void run( final DeviceRouter router, final IDevice device, final List<List<IStateEvent>> batches,
+    final int cycles )
+  {
+    for ( int i = 0; i < cycles; i++ )
+    {
+      router.accept( batches.get( i & 1 ));
+      device.run();
+    }
+  }
+}